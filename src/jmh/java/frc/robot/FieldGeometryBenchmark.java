@@ -0,0 +1,79 @@
+package frc.robot;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
+import frc.robot.FieldGeometry.Kind;
+
+/**
+ * Benchmarks the {@code FieldGeometry} queries the aiming commands and
+ * autonomous routines run against the estimated pose of the robot. The robot
+ * sweeps across the field so the queries do not fold into constants.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FieldGeometryBenchmark {
+	private double m_x = -8;
+	private double m_y = 0;
+	private double m_heading = 0;
+
+	/**
+	 * Moves the robot a little.
+	 */
+	private void move() {
+		m_x = m_x > 8 ? -8 : m_x + 0.01;
+		m_y = Math.sin(m_x);
+		m_heading += 0.001;
+	}
+
+	@Benchmark
+	public int nearestSpeaker() {
+		move();
+		return FieldGeometry.nearest(Kind.SPEAKER, m_x, m_y);
+	}
+
+	@Benchmark
+	public Translation2d nearestSpeakerTranslation() {
+		move();
+		return FieldGeometry.translation(FieldGeometry.nearest(Kind.SPEAKER, m_x, m_y));
+	}
+
+	@Benchmark
+	public double distanceToNearestSpeaker() {
+		move();
+		return FieldGeometry.distance(FieldGeometry.nearest(Kind.SPEAKER, m_x, m_y), m_x, m_y);
+	}
+
+	@Benchmark
+	public double bearingToNearestSpeaker() {
+		move();
+		return FieldGeometry.bearing(FieldGeometry.nearest(Kind.SPEAKER, m_x, m_y), m_x, m_y, m_heading);
+	}
+
+	@Benchmark
+	public int nearestAmp() {
+		move();
+		return FieldGeometry.nearest(Kind.AMP, m_x, m_y);
+	}
+
+	@Benchmark
+	public int nearestNote() {
+		move();
+		return FieldGeometry.nearest(Kind.NOTE, Alliance.Blue, m_x, m_y);
+	}
+
+	@Benchmark
+	public int nearestCenterNote() {
+		move();
+		return FieldGeometry.nearest(Kind.CENTER_NOTE, m_x, m_y);
+	}
+}
@@ -0,0 +1,60 @@
+package frc.robot;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.fasterxml.jackson.core.JsonFactory;
+
+import edu.wpi.first.networktables.NetworkTableInstance;
+import frc.robot.LimelightHelper.LimelightResults;
+
+/**
+ * Benchmarks parsing the Limelight JSON dump with
+ * {@code LimelightHelper.getLatestResults} against the streaming parse
+ * {@code LimelightResultsPipeline} runs on its worker thread. The dump is a
+ * typical two-tag result published to the local NetworkTables instance.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LimelightHelperBenchmark {
+	static final String kFiducial = "{\"fID\":%d,\"fam\":\"36H11C\","
+			+ "\"t6c_ts\":[0.1,0.2,2.5,1.0,2.0,3.0],\"t6r_fs\":[-6.2,1.4,0.0,0.0,0.0,178.0],"
+			+ "\"t6r_ts\":[0.3,0.1,2.4,1.0,2.0,3.0],\"t6t_cs\":[-0.1,-0.2,2.5,1.0,2.0,3.0],"
+			+ "\"t6t_rs\":[-0.3,-0.1,2.4,1.0,2.0,3.0],\"ta\":0.012,\"tx\":-3.2,\"txp\":300.5,"
+			+ "\"ty\":5.1,\"typ\":200.2,\"ts\":0.5}";
+	static final String kJson = "{\"Results\":{\"pID\":0,\"tl\":12.5,\"cl\":11.0,\"ts\":123456.7,"
+			+ "\"ts_rio\":123.4,\"v\":1,\"botpose\":[-6.2,1.4,0.0,0.0,0.0,178.0],"
+			+ "\"botpose_wpiblue\":[2.07,5.5,0.0,0.0,0.0,178.0],\"botpose_wpired\":[14.4,2.6,0.0,0.0,0.0,-2.0],"
+			+ "\"Retro\":[],\"Fiducial\":[" + String.format(kFiducial, 7) + "," + String.format(kFiducial, 8)
+			+ "],\"Classifier\":[],\"Detector\":[],\"Barcode\":[]}}";
+
+	private final JsonFactory m_factory = new JsonFactory();
+	private final LimelightResultsPipeline.Snapshot m_snapshot = new LimelightResultsPipeline.Snapshot();
+	private final double[] m_targetPose = new double[6];
+
+	@Setup
+	public void setup() {
+		NetworkTableInstance.getDefault().getTable("limelight").getEntry("json").setString(kJson);
+	}
+
+	@Benchmark
+	public LimelightResults getLatestResults() {
+		return LimelightHelper.getLatestResults("limelight");
+	}
+
+	@Benchmark
+	public LimelightResultsPipeline.Snapshot streamingParse() throws Exception {
+		try (var parser = m_factory.createParser(kJson)) {
+			LimelightResultsPipeline.parse(parser, m_snapshot, m_targetPose);
+		}
+		return m_snapshot;
+	}
+}
@@ -0,0 +1,62 @@
+package frc.robot;
+
+import static frc.robot.Constants.DriveConstants.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+
+/**
+ * Benchmarks the math {@code DriveSubsystem.calculateModuleStates} and
+ * {@code applyModuleStates} run every loop (field-relative conversion, inverse
+ * kinematics, desaturation, and optimization against the current module
+ * angles). {@code wpilib} is the {@code SwerveDriveKinematics} and
+ * {@code SwerveModuleState.optimize} version the drive used to run.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SwerveKinematicsBenchmark {
+	private final SwerveDriveKinematics m_wpilibKinematics = new SwerveDriveKinematics(
+			kFrontLeftLocation, kFrontRightLocation, kBackLeftLocation, kBackRightLocation);
+	private final SwerveKinematics m_kinematics = new SwerveKinematics(
+			kFrontLeftLocation, kFrontRightLocation, kBackLeftLocation, kBackRightLocation);
+	private final Rotation2d[] m_currentRotations = { Rotation2d.fromDegrees(10), Rotation2d.fromDegrees(100),
+			Rotation2d.fromDegrees(-170), Rotation2d.fromDegrees(45) };
+	private final double[] m_currentAngles = { 10, 100, -170, 45 };
+	private final double[] m_robotRelativeSpeeds = new double[2];
+	private final double[] m_speeds = new double[4];
+	private final double[] m_angles = new double[4];
+	private double m_heading = 0;
+
+	@Benchmark
+	public SwerveModuleState[] wpilib() {
+		m_heading += 0.01;
+		var speeds = ChassisSpeeds.fromFieldRelativeSpeeds(6, 3, 2, Rotation2d.fromRadians(m_heading));
+		var states = m_wpilibKinematics.toSwerveModuleStates(speeds);
+		SwerveDriveKinematics.desaturateWheelSpeeds(states, kMaxSpeed);
+		for (int i = 0; i < states.length; i++)
+			states[i] = SwerveModuleState.optimize(states[i], m_currentRotations[i]);
+		return states;
+	}
+
+	@Benchmark
+	public double[] primitive() {
+		m_heading += 0.01;
+		SwerveKinematics.toRobotRelative(6, 3, m_heading, m_robotRelativeSpeeds);
+		m_kinematics.toModuleStates(m_robotRelativeSpeeds[0], m_robotRelativeSpeeds[1], 2, m_speeds, m_angles);
+		SwerveKinematics.desaturate(m_speeds, kMaxSpeed);
+		SwerveKinematics.optimize(m_speeds, m_angles, m_currentAngles);
+		return m_speeds;
+	}
+}
@@ -0,0 +1,76 @@
+package frc.robot;
+
+import static frc.robot.Constants.AimerConstants.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import frc.robot.Targeter.LookupTargeter;
+import frc.robot.Targeter.PhysicsAndMathTargeter;
+import frc.robot.Targeter.RegressionTargeter;
+import frc.robot.Targeter.Solution;
+import frc.robot.Targeter.TableTargeter;
+
+/**
+ * Benchmarks the angle and RPM lookups each {@code Targeter} does every loop
+ * while aiming. The {@code TableTargeter} is measured both through the two
+ * separate getters and through a single {@code solve} call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TargeterBenchmark {
+	private final Targeter m_regression = new RegressionTargeter();
+	private final Targeter m_lookup = new LookupTargeter();
+	private final Targeter m_physics = new PhysicsAndMathTargeter();
+	private final Targeter m_table = new TableTargeter(
+			TableTargeter.defaults(kTableMinDistance, kTableMaxDistance, kTableStep), kTableMinDistance,
+			kTableMaxDistance, kTableStep);
+	private final Solution m_solution = new Solution();
+	private double m_distance = 1;
+
+	/**
+	 * Returns a distance that sweeps the shooting range so the lookups do not
+	 * fold into constants.
+	 */
+	private double nextDistance() {
+		m_distance = m_distance > 6 ? 1 : m_distance + 0.01;
+		return m_distance;
+	}
+
+	@Benchmark
+	public double regression() {
+		double distance = nextDistance();
+		return m_regression.getAngle(distance) + m_regression.getRPM(distance);
+	}
+
+	@Benchmark
+	public double lookup() {
+		double distance = nextDistance();
+		return m_lookup.getAngle(distance) + m_lookup.getRPM(distance);
+	}
+
+	@Benchmark
+	public double physics() {
+		double distance = nextDistance();
+		return m_physics.getAngle(distance) + m_physics.getRPM(distance);
+	}
+
+	@Benchmark
+	public double table() {
+		double distance = nextDistance();
+		return m_table.getAngle(distance) + m_table.getRPM(distance);
+	}
+
+	@Benchmark
+	public double tableSolve() {
+		var solution = m_table.solve(nextDistance(), m_solution);
+		return solution.aimerHeight + solution.topRPM + solution.bottomRPM;
+	}
+}
@@ -0,0 +1,68 @@
+package frc.robot.subsystems;
+
+import static frc.robot.Constants.PoseConstants.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Transform2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import frc.robot.FieldGeometry.Kind;
+
+/**
+ * Benchmarks the geometry queries the aiming commands run every loop against
+ * the estimated pose of the robot.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LimeLightSubsystemBenchmark {
+	private LimeLightSubsystem m_limeLight;
+
+	@Setup
+	public void setup() {
+		// subsystems register with the CommandScheduler, which needs the HAL
+		HAL.initialize(500, 0);
+		m_limeLight = new LimeLightSubsystem();
+		m_limeLight.m_botpose = new double[] { -5.2, 1.0, 0, 0, 0, 160, 30, 2, 0.5, 2.5, 0.01 };
+	}
+
+	@Benchmark
+	public Transform2d transformationToward() {
+		return m_limeLight.transformationToward(kBlueSpeakerPosition, 1.5);
+	}
+
+	@Benchmark
+	public Translation2d closestSpeaker() {
+		return m_limeLight.closest(kBlueSpeakerPosition, kRedSpeakerPosition);
+	}
+
+	@Benchmark
+	public Translation2d closestSpeakerIndexed() {
+		return m_limeLight.closest(Kind.SPEAKER);
+	}
+
+	@Benchmark
+	public Double distanceToClosestSpeaker() {
+		return m_limeLight.distanceToClosestSpeaker();
+	}
+
+	@Benchmark
+	public Double angleToClosestSpeaker() {
+		return m_limeLight.angleToClosestSpeaker();
+	}
+
+	@Benchmark
+	public Pose2d closestNote() {
+		return m_limeLight.closest(kBlueNoteOnePose, kBlueNoteTwoPose, kBlueNoteThreePose);
+	}
+}
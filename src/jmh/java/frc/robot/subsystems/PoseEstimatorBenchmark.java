@@ -0,0 +1,144 @@
+package frc.robot.subsystems;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import frc.robot.PoseHistory;
+import frc.robot.subsystems.LimeLightSubsystem.Pose;
+import frc.robot.subsystems.PoseEstimationSubsystem.KalmanPoseEstimator;
+import frc.robot.subsystems.PoseEstimationSubsystem.PoseCalculator;
+import frc.robot.subsystems.PoseEstimationSubsystem.PoseEstimator;
+import frc.robot.subsystems.PoseEstimationSubsystem.RelativePoseCalculator;
+
+/**
+ * Benchmarks fusing odometry into the estimated pose, which
+ * {@code PoseEstimationSubsystem} does every loop. {@code streamUpdate} is the
+ * stream-based fusion that used to run every loop and serves as the baseline.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PoseEstimatorBenchmark {
+	private final PoseHistory m_odometry = new PoseHistory(256);
+	private double m_time = 0;
+	private double m_x = 0;
+	private double m_yaw = 0;
+
+	private Pose2d m_streamEstimate;
+	private List<PoseCalculator> m_streamCalculators;
+	private PoseEstimator m_blend;
+	private PoseEstimator m_kalman;
+	private PoseEstimator m_kalmanLegacy;
+	private PoseCalculator[] m_calculators;
+	private PoseCalculator[] m_kalmanCalculators;
+	private PoseCalculator[] m_legacyCalculators;
+	private final Pose2d m_sample = new Pose2d(1.05, 2, Rotation2d.fromDegrees(31));
+
+	@Setup
+	public void setup() {
+		m_odometry.add(m_time, m_x, 0, m_yaw);
+		var start = new Pose2d(1, 2, Rotation2d.fromDegrees(30));
+		m_streamEstimate = start;
+		m_streamCalculators = List.of(legacyCalculator());
+		m_blend = new PoseEstimator(1.0, 10, 0.1);
+		m_blend.update(start);
+		m_kalman = new KalmanPoseEstimator(1.0, 10);
+		m_kalman.update(start);
+		m_kalmanLegacy = new KalmanPoseEstimator(1.0, 10);
+		m_kalmanLegacy.update(start);
+		m_calculators = new PoseCalculator[] { historyCalculator() };
+		m_kalmanCalculators = new PoseCalculator[] { historyCalculator() };
+		m_legacyCalculators = new PoseCalculator[] { legacyCalculator() };
+	}
+
+	/**
+	 * Returns a {@code PoseCalculator} reading the odometry the way
+	 * {@code addPoseSupplier} does for a {@code PoseHistory}.
+	 */
+	private RelativePoseCalculator historyCalculator() {
+		return new RelativePoseCalculator() {
+			@Override
+			protected boolean read(double[] pose) {
+				return !Double.isNaN(m_odometry.getLatest(pose));
+			}
+		};
+	}
+
+	/**
+	 * Returns a {@code PoseCalculator} that only implements
+	 * {@code pose(Pose2d)}, like {@code addPoseSupplier} used to.
+	 */
+	private PoseCalculator legacyCalculator() {
+		double[] latest = new double[3];
+		return new PoseCalculator() {
+			Pose2d previous = null;
+
+			@Override
+			public Pose2d pose(Pose2d pose) {
+				m_odometry.getLatest(latest);
+				var current = new Pose2d(latest[0], latest[1], Rotation2d.fromRadians(latest[2]));
+				if (this.previous == null || pose == null) {
+					this.previous = current;
+					return pose;
+				}
+				var refined = pose.plus(current.minus(this.previous));
+				this.previous = current;
+				return refined;
+			}
+		};
+	}
+
+	/**
+	 * Moves the robot a little so that every update has a change to fuse.
+	 */
+	private void drive() {
+		m_time += 0.02;
+		m_x += 0.01;
+		m_yaw += 0.001;
+		m_odometry.add(m_time, m_x, 0, m_yaw);
+	}
+
+	@Benchmark
+	public Pose2d streamUpdate() {
+		drive();
+		var poses = m_streamCalculators.stream().map(c -> c.pose(m_streamEstimate));
+		m_streamEstimate = Pose.average(poses.toList().toArray(new Pose2d[0]));
+		return m_streamEstimate;
+	}
+
+	@Benchmark
+	public PoseEstimator blendUpdate() {
+		drive();
+		m_blend.update(m_calculators);
+		return m_blend;
+	}
+
+	@Benchmark
+	public PoseEstimator kalmanUpdate() {
+		drive();
+		m_kalman.update(m_kalmanCalculators);
+		return m_kalman;
+	}
+
+	@Benchmark
+	public PoseEstimator kalmanUpdateLegacyCalculator() {
+		drive();
+		m_kalmanLegacy.update(m_legacyCalculators);
+		return m_kalmanLegacy;
+	}
+
+	@Benchmark
+	public boolean kalmanCorrect() {
+		return m_kalman.update(m_sample, 0.1, 0.1);
+	}
+}
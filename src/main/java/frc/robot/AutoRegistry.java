@@ -0,0 +1,100 @@
+package frc.robot;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj2.command.Command;
+
+/**
+ * The autonomous routines offered on the dashboard, registered as factories
+ * rather than as built commands. Only the selected routine is built: once the
+ * selection has stayed unchanged for a while during disabled mode,
+ * {@link #update()} builds it so that {@link #getSelected()} can return it
+ * right away when autonomous starts. Routines that are never selected are never
+ * built.
+ */
+public class AutoRegistry {
+	private final SendableChooser<String> m_chooser = new SendableChooser<String>();
+	private final Map<String, Supplier<Command>> m_factories = new HashMap<String, Supplier<Command>>();
+	private final double m_settleTime;
+	private String m_selection = null;
+	private double m_selectionTime = 0;
+	private String m_builtName = null;
+	private Command m_built = null;
+
+	/**
+	 * Constructs an {@code AutoRegistry}.
+	 *
+	 * @param settleTime the time in seconds the selection must stay unchanged
+	 *                   before the selected routine is built
+	 */
+	public AutoRegistry(double settleTime) {
+		m_settleTime = settleTime;
+	}
+
+	/**
+	 * Registers an autonomous routine.
+	 *
+	 * @param name    the name shown on the dashboard
+	 * @param factory builds the routine (called only if the routine is selected)
+	 */
+	public void addOption(String name, Supplier<Command> factory) {
+		m_factories.put(name, factory);
+		m_chooser.addOption(name, name);
+	}
+
+	/**
+	 * Returns the {@code SendableChooser} to put on the dashboard.
+	 *
+	 * @return the {@code SendableChooser} to put on the dashboard
+	 */
+	public SendableChooser<String> getChooser() {
+		return m_chooser;
+	}
+
+	/**
+	 * Builds the selected routine once the selection has stayed unchanged for
+	 * the settle time. Should be called periodically during disabled mode.
+	 */
+	public void update() {
+		String selection = m_chooser.getSelected();
+		double now = Timer.getFPGATimestamp();
+		if (selection == null ? m_selection != null : !selection.equals(m_selection)) {
+			m_selection = selection;
+			m_selectionTime = now;
+		} else if (selection != null && !selection.equals(m_builtName) && now - m_selectionTime >= m_settleTime)
+			build(selection);
+	}
+
+	/**
+	 * Returns the selected routine, building it now if {@link #update()} has not
+	 * built it yet.
+	 *
+	 * @return the selected routine or {@code null} if no routine is selected
+	 */
+	public Command getSelected() {
+		String selection = m_chooser.getSelected();
+		if (selection == null)
+			return null;
+		if (!selection.equals(m_builtName))
+			build(selection);
+		return m_built;
+	}
+
+	/**
+	 * Builds the specified routine, dropping the previously built one.
+	 *
+	 * @param name the name of the routine
+	 */
+	private void build(String name) {
+		long start = System.nanoTime();
+		m_built = m_factories.get(name).get();
+		m_builtName = name;
+		SmartDashboard.putString("Auto Built", name);
+		SmartDashboard.putNumber("Auto Build Time (ms)", (System.nanoTime() - start) / 1e6);
+	}
+}
@@ -0,0 +1,149 @@
+package frc.robot;
+
+import static frc.robot.Constants.CanConstants.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.hardware.ParentDevice;
+import com.revrobotics.CANSparkLowLevel.PeriodicFrame;
+
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+/**
+ * Keeps track of the status frames each device on the CAN bus is expected to
+ * send. Every device declares the signals the code actually reads and how
+ * often it needs them: a SPARK MAX through
+ * {@link DeviceConfigurator.SparkMaxConfig#reads(SparkSignal, double)}, which
+ * sends each status frame as often as its most demanding signal requires and
+ * slows down the frames nobody reads, and a CTRE device through
+ * {@link #configure(String, ParentDevice, double, BaseStatusSignal...)},
+ * which disables every signal but the ones given. {@link #report()} logs the
+ * resulting frame rates and the expected bus utilization; {@link #periodic()}
+ * publishes the utilization measured by the roboRIO next to it.
+ */
+public class CanBudget {
+	/**
+	 * The signals of a SPARK MAX, each with the status frame that carries it.
+	 */
+	public enum SparkSignal {
+		/** The applied output (status 0, which also carries faults and limit switches). */
+		APPLIED_OUTPUT(PeriodicFrame.kStatus0),
+		/** The velocity of the built-in encoder (status 1). */
+		VELOCITY(PeriodicFrame.kStatus1),
+		/** The output current (status 1). */
+		CURRENT(PeriodicFrame.kStatus1),
+		/** The motor temperature (status 1). */
+		TEMPERATURE(PeriodicFrame.kStatus1),
+		/** The position of the built-in encoder (status 2). */
+		POSITION(PeriodicFrame.kStatus2),
+		/** The analog sensor (status 3). */
+		ANALOG_SENSOR(PeriodicFrame.kStatus3),
+		/** The alternate encoder (status 4). */
+		ALTERNATE_ENCODER(PeriodicFrame.kStatus4),
+		/** The position of the duty cycle absolute encoder (status 5). */
+		ABSOLUTE_ENCODER_POSITION(PeriodicFrame.kStatus5),
+		/** The velocity of the duty cycle absolute encoder (status 6). */
+		ABSOLUTE_ENCODER_VELOCITY(PeriodicFrame.kStatus6);
+
+		final PeriodicFrame m_frame;
+
+		SparkSignal(PeriodicFrame frame) {
+			m_frame = frame;
+		}
+	}
+
+	/** The expected number of frames per second of each device, by name. */
+	private static final Map<String, Double> s_framesPerSecond = new LinkedHashMap<String, Double>();
+	private static final Telemetry.NumberSignal s_measuredSignal = Telemetry.number("CAN Utilization Measured",
+			0.005, 0.5);
+
+	/**
+	 * Returns the period of a SPARK MAX status frame none of whose signals is
+	 * read.
+	 *
+	 * @param frame the status frame
+	 * @return the period in milliseconds
+	 */
+	static int idlePeriod(PeriodicFrame frame) {
+		switch (frame) {
+			case kStatus0:
+				return kIdleStatus0PeriodMs;
+			case kStatus1:
+			case kStatus2:
+				return kIdleStatusPeriodMs;
+			default:
+				return kUnusedStatusPeriodMs;
+		}
+	}
+
+	/**
+	 * Records the status frame periods and the command period of a SPARK MAX.
+	 *
+	 * @param name          the name of the device
+	 * @param periods       the period of each status frame in milliseconds
+	 * @param commandPeriod the shortest time between two commands in seconds
+	 */
+	static synchronized void addSparkMax(String name, Map<PeriodicFrame, Integer> periods, double commandPeriod) {
+		double framesPerSecond = 1 / commandPeriod;
+		for (int periodMs : periods.values())
+			framesPerSecond += 1000.0 / periodMs;
+		s_framesPerSecond.put(name, framesPerSecond);
+	}
+
+	/**
+	 * Sends the specified signals of a CTRE device at the specified period and
+	 * disables all its other signals.
+	 *
+	 * @param name          the name of the device
+	 * @param device        the device
+	 * @param periodSeconds how often the signals are needed in seconds
+	 * @param signals       the signals the code reads
+	 */
+	public static synchronized void configure(String name, ParentDevice device, double periodSeconds,
+			BaseStatusSignal... signals) {
+		BaseStatusSignal.setUpdateFrequencyForAll(1 / periodSeconds, signals);
+		device.optimizeBusUtilization();
+		s_framesPerSecond.put(name, signals.length / periodSeconds);
+	}
+
+	/**
+	 * Returns the expected utilization of the CAN bus.
+	 *
+	 * @return the expected fraction of the bus bandwidth used
+	 */
+	public static synchronized double expectedUtilization() {
+		double framesPerSecond = 0;
+		for (double f : s_framesPerSecond.values())
+			framesPerSecond += f;
+		return framesPerSecond * kBitsPerFrame / kBitRate;
+	}
+
+	/**
+	 * Logs the expected frame rate of each device and the expected utilization
+	 * of the CAN bus, and warns if the latter leaves too little headroom. Should
+	 * be called once at the end of {@code robotInit}.
+	 */
+	public static synchronized void report() {
+		for (var entry : s_framesPerSecond.entrySet())
+			DataLogManager.log(String.format("CAN %s: %.0f frames/s", entry.getKey(), entry.getValue()));
+		double expected = expectedUtilization();
+		DataLogManager.log(String.format("CAN utilization expected: %.1f%%", expected * 100));
+		SmartDashboard.putNumber("CAN Utilization Expected", expected);
+		if (expected > kMaxExpectedUtilization)
+			DriverStation.reportWarning(String.format("Expected CAN utilization %.0f%% exceeds the budget of %.0f%%",
+					expected * 100, kMaxExpectedUtilization * 100), false);
+	}
+
+	/**
+	 * Publishes the utilization of the CAN bus measured by the roboRIO. Should
+	 * be called once per robot loop.
+	 */
+	public static void periodic() {
+		s_measuredSignal.set(RobotController.getCANStatus().percentBusUtilization);
+	}
+}
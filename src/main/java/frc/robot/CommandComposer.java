@@ -14,7 +14,7 @@ import edu.wpi.first.wpilibj.DriverStation.Alliance;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
 import edu.wpi.first.wpilibj2.command.WaitCommand;
-import frc.robot.Targeter.RegressionTargeter;
+import frc.robot.FieldGeometry.Kind;
 import frc.robot.commands.TimedLEDCommand;
 import frc.robot.commands.aimshooter.AimHeightCommand;
 import frc.robot.commands.aimshooter.AimHeightCommand.AimHeightOperation;
@@ -50,15 +50,16 @@ public class CommandComposer {
 	private static ArduinoSubsystem m_arduinoSubsystem;
 	private static PneumaticsSubsystem m_pneumaticsSubsystem;
 	private static AimerSubsystem m_aimerSubsystem;
-	private static RegressionTargeter m_targeter;
+	private static Targeter m_targeter;
 	private static IndexerSubsystem m_indexerSubsystem;
 	private static SimpleVisionSubsystem m_simpleVisionSubsystem;
 	private static FlywheelSubsystem m_flywheelSubsystem;
 	private static IntakeSubsystem m_intakeSubsystem;
 	private static LimeLightSubsystem m_limeLightSubsystem;
+	private static ShotReadiness m_shotReadiness;
 
 	public static void setSubsystems(DriveSubsystem driveSubsystem, ArduinoSubsystem arduinoSubsystem,
-			PneumaticsSubsystem pneumaticsSubsystem, AimerSubsystem aimerSubsystem, RegressionTargeter targeter,
+			PneumaticsSubsystem pneumaticsSubsystem, AimerSubsystem aimerSubsystem, Targeter targeter,
 			IndexerSubsystem indexerSubsystem, SimpleVisionSubsystem simpleVisionSubsystem,
 			FlywheelSubsystem flywheelSubsystem, IntakeSubsystem intakeSubsystem,
 			LimeLightSubsystem limeLightSubsystem) {
@@ -72,6 +73,10 @@ public class CommandComposer {
 		m_flywheelSubsystem = flywheelSubsystem;
 		m_intakeSubsystem = intakeSubsystem;
 		m_limeLightSubsystem = limeLightSubsystem;
+		m_shotReadiness = new ShotReadiness(flywheelSubsystem, aimerSubsystem, () -> {
+			var t = m_limeLightSubsystem.transformationToward(m_limeLightSubsystem.closest(Kind.SPEAKER));
+			return t == null ? Double.POSITIVE_INFINITY : t.getRotation().getDegrees();
+		});
 	}
 
 	/**
@@ -650,7 +655,8 @@ public class CommandComposer {
 				new AimHeightCommand(m_aimerSubsystem, m_targeter, AimHeightOperation.SET_PRESET_DEFAULT),
 				parallel(
 						sequence(
-								new FlywheelCommand(m_flywheelSubsystem, FlywheelOperation.SET_VELOCITY, 8000, 8000),
+								// start the spin-up just early enough to be ready with the aimer
+								m_flywheelSubsystem.spinUpInTimeCommand(8000, 8000, m_shotReadiness::timeUntilReady),
 								new FlywheelCommand(m_flywheelSubsystem, FlywheelOperation.SETTLE, 0, 0)),
 						new AimHeightCommand(m_aimerSubsystem, m_targeter,
 								AimHeightOperation.CALC_AND_SET, m_limeLightSubsystem)
@@ -665,7 +671,9 @@ public class CommandComposer {
 
 	public static Command getAimAndShootAuto(double timeout, double duration) {
 		return sequence(
-				getAimCommand()
+				// shoot as soon as everything is ready rather than when every part of
+				// the aim command has finished
+				race(getAimCommand(), m_shotReadiness.waitUntilReady())
 						.withTimeout(timeout),
 				new IndexerShootCommand(m_indexerSubsystem),
 				m_arduinoSubsystem.writeStatus(StatusCode.DEFAULT),
@@ -690,7 +698,7 @@ public class CommandComposer {
 
 	public static Command getTurnToClosestSpeakerCommand() {
 		Supplier<Pose2d> s = () -> {
-			var target = m_limeLightSubsystem.closest(kBlueSpeakerPosition, kRedSpeakerPosition);
+			var target = m_limeLightSubsystem.closest(Kind.SPEAKER);
 			var t = m_limeLightSubsystem.transformationToward(target);
 			return m_driveSubsystem.getPose().plus(t);
 		};
@@ -701,7 +709,7 @@ public class CommandComposer {
 
 	public static Command getMoveTowardClosestSpeakerCommand(double distanceToTarget) {
 		Supplier<Pose2d> s = () -> {
-			var target = m_limeLightSubsystem.closest(kBlueSpeakerPosition, kRedSpeakerPosition);
+			var target = m_limeLightSubsystem.closest(Kind.SPEAKER);
 			var t = m_limeLightSubsystem.transformationToward(target, distanceToTarget);
 			return m_driveSubsystem.getPose().plus(t);
 		};
@@ -710,12 +718,12 @@ public class CommandComposer {
 
 	public static Command getAlignToClosestAmpCommand() {
 		Supplier<Pose2d> s1 = () -> {
-			Pose target = new Pose(m_limeLightSubsystem.closest(kBlueAmpPose, kRedAmpPose));
+			Pose target = new Pose(m_limeLightSubsystem.closestPose(Kind.AMP));
 			var t = m_limeLightSubsystem.transformationTo(target.add(new Pose(0, -0.3, 0)));
 			return m_driveSubsystem.getPose().plus(t);
 		};
 		Supplier<Pose2d> s2 = () -> {
-			var target = m_limeLightSubsystem.closest(kBlueAmpPose, kRedAmpPose);
+			var target = m_limeLightSubsystem.closestPose(Kind.AMP);
 			var t = m_limeLightSubsystem.transformationTo(target);
 			return m_driveSubsystem.getPose().plus(t);
 		};
@@ -779,24 +787,6 @@ public class CommandComposer {
 				getShootToClosestSpeakerAtCommand(kRedNoteOnePose, 4));
 	}
 
-	public static Command getTwoMiddleFourScoreRedCommand() {
-		return sequence(
-				m_pneumaticsSubsystem.downIntakeCommand(),
-				getAimAndShootAuto(),
-				getPickUpNoteAndShootAtCommand(kRedNoteThreePose, 5),
-				DriveCommand.moveToward(new Translation2d(6, -2), 0, 0.5, 360, m_driveSubsystem, m_limeLightSubsystem),
-				getPickUpNoteAtCommand(kRedCenterNoteFivePose),
-				DriveCommand.moveToward(new Translation2d(6, -2), 0, 0.5, 360, m_driveSubsystem, m_limeLightSubsystem),
-				getShootToClosestSpeakerAtCommand(new Pose(6, -0.5, 25), 3),
-				DriveCommand.moveToward(new Translation2d(6, -3), 0, 0.5, 360, m_driveSubsystem, m_limeLightSubsystem),
-				DriveCommand.moveToward(new Translation2d(2, -3), 0, 0.5, 360, m_driveSubsystem, m_limeLightSubsystem),
-				getPickUpNoteAtCommand(kRedCenterNoteFourPose),
-				DriveCommand.moveToward(new Translation2d(6, -3), 0, 0.5, 360, m_driveSubsystem, m_limeLightSubsystem),
-				getShootToClosestSpeakerAtCommand(new Pose(6, -0.5, 25), 3)
-
-		);
-	}
-
 	public static Command getTwoMiddleFourScoreBlueCommand() {
 		return sequence(
 				m_pneumaticsSubsystem.downIntakeCommand(),
@@ -869,16 +859,6 @@ public class CommandComposer {
 				getShootToClosestSpeakerAtCommand(kBlueNoteOnePose, 4));
 	}
 
-	public static Command getThreeScoreOneMiddleTopRedAuto() {
-		return sequence(m_pneumaticsSubsystem.downIntakeCommand(),
-				getShootToClosestSpeakerAtCommand(kRedNoteOnePose.add(new Pose(0.4, -0.4, 0)), 1.5),
-				// 2nd note
-				getPickUpNoteAndShootAtCommand(kRedNoteOnePose, 1.5),
-				// 3rd note
-				getPickUpNoteAtCommand(kRedCenterNoteOnePose).withTimeout(4),
-				getShootToClosestSpeakerAtCommand(kRedNoteOnePose, 4));
-	}
-
 	public static Command getFourScoreTwoMiddleTopBlueAuto() {
 		return sequence(getThreeScoreOneMiddleTopBlueAuto(),
 				// 4th note
@@ -886,13 +866,6 @@ public class CommandComposer {
 				getShootToClosestSpeakerAtCommand(kBlueNoteOnePose, 4));
 	}
 
-	public static Command getFourScoreTwoMiddleTopRedAuto() {
-		return sequence(getThreeScoreOneMiddleTopRedAuto(),
-				// 4th note
-				getPickUpNoteAtCommand(kRedCenterNoteTwoPose).withTimeout(4),
-				getShootToClosestSpeakerAtCommand(kRedNoteOnePose, 4));
-	}
-
 	public static Command getAimWileMovingAndShootCommand(double maxDistanceToTarget, double timeout) {
 		return getAimWhileMovingAndShootCommand(maxDistanceToTarget, timeout, 0);
 	}
@@ -912,21 +885,6 @@ public class CommandComposer {
 						kBlueCenterNoteFivePose.add(new Pose(-3.3, 0, -20))));
 	}
 
-	// changes made after the last match on 3/22
-	public static Command getThreeScoreRedC4C5() {
-		return sequence(
-				parallel(m_pneumaticsSubsystem.downIntakeCommand(), getAimAndShootAuto(.5, 0.25)),
-				getPickUpNoteAtCommand(kRedCenterNoteFourPose, 0.5, 6, 20,
-						new Pose(6.8, -2.7, 0),
-						new Pose(1.5, -2.7, 0)),
-				getAimWhileMovingAndShootCommand(3.5, 4, 20,
-						new Pose(3, -3, 0)),
-				getPickUpNoteAtCommand(kRedCenterNoteFivePose, 0.5, 6, 20,
-						new Pose(3, -3.2, 0)),
-				getAimWhileMovingAndShootCommand(3.65, 3.7, 20,
-						kRedCenterNoteFivePose.add(new Pose(3.3, 0, 20))));
-	}
-
 	public static Command getThreeScoreRedC4C5Greece() {
 		return sequence(
 				parallel(m_pneumaticsSubsystem.downIntakeCommand(), getAimAndShootAuto(.5, 0.25)),
@@ -996,17 +954,6 @@ public class CommandComposer {
 				getPickUpNoteAndShootAtCommand(kBlueNoteOnePose, 0.6, kBlueSpeakerPosition, 5, 3));
 	}
 
-	public static Command getFourScoreRed321() {
-		return sequence(
-				parallel(m_pneumaticsSubsystem.downIntakeCommand(), getAimAndShootAuto(.5, 0.25)),
-				// 2nd note
-				getPickUpNoteAndShootAtCommand(kRedNoteThreePose, 0.6, kRedSpeakerPosition, 5, 3),
-				// 3rd note
-				getPickUpNoteAndShootAtCommand(kRedNoteTwoPose, 0.9, kRedSpeakerPosition, 5, 3),
-				// 4th note
-				getPickUpNoteAndShootAtCommand(kRedNoteOnePose, 0.6, kRedSpeakerPosition, 5, 3));
-	}
-
 	public static Command getFiveScoreBlue321C1() {
 		return sequence(
 				getFourScoreBlue321(),
@@ -1015,14 +962,6 @@ public class CommandComposer {
 						kBlueCenterNoteOnePose.add(new Pose(-3, 0, 0))));
 	}
 
-	public static Command getFiveScoreRed321C1() {
-		return sequence(
-				getFourScoreRed321(),
-				getPickUpNoteAtCommand(kRedCenterNoteOnePose, 0.2, 4, 2),
-				getAimWhileMovingAndShootCommand(3.5, 2.5, 12,
-						kRedCenterNoteOnePose.add(new Pose(3, 0, 0))));
-	}
-
 	public static Command getFiveScoreBlue321C2() {
 		return sequence(
 				getFourScoreBlue321(),
@@ -1077,7 +1016,7 @@ public class CommandComposer {
 	public static Command getAimWhileMovingCommand(double maxDistanceToTarget, double intermediateTolerance,
 			Pose2d... intermediatePoses) {
 		Supplier<Transform2d> transform = () -> {
-			var target = m_limeLightSubsystem.closest(kBlueSpeakerPosition, kRedSpeakerPosition);
+			var target = m_limeLightSubsystem.closest(Kind.SPEAKER);
 			var distance = m_limeLightSubsystem.distanceTo(target);
 			return distance < maxDistanceToTarget ? m_limeLightSubsystem.transformationToward(target)
 					: m_limeLightSubsystem.transformationToward(target, maxDistanceToTarget);
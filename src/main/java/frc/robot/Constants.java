@@ -7,6 +7,7 @@ package frc.robot;
 import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.util.Units;
 import edu.wpi.first.wpilibj.DoubleSolenoid.Value;
+import frc.robot.subsystems.LimeLightSubsystem.Camera;
 import frc.robot.subsystems.LimeLightSubsystem.Pose;
 
 /**
@@ -118,6 +119,13 @@ public final class Constants {
 		public static final int kSteerPeakCurrentLimit = kSteerSmartCurrentLimit + 15;
 		// The amount of time to go from 0 to full power in seconds
 		public static final double kRampRate = .1; // .1
+
+		// The period of the odometry thread in seconds (200 Hz)
+		public static final double kOdometryPeriod = 0.005;
+		// The number of odometry samples to keep (about 1.3 seconds)
+		public static final int kOdometryHistoryLength = 256;
+		// The window over which the velocity is measured from odometry (seconds)
+		public static final double kVelocityWindow = 0.1;
 	}
 
 	public static final class FlywheelConstants {
@@ -128,15 +136,39 @@ public final class Constants {
 		public static final int kSmartCurrentLimit = 50;
 		public static final double kPeakCurrentLimit = 60;
 		public static final int kPeakCurrentDurationMillis = 100;
-		public static final double kP = 0.000_1;
+		// The velocity loop of each flywheel only corrects what the feedforward
+		// misses (duty cycle per rpm)
+		public static final double kBottomP = 0.000_1;
+		public static final double kTopP = 0.000_1;
 		public static final double kI = 0;
 		public static final double kD = 0;
 		public static final double kIz = 0.0;
-		public static final double kFF = .000_1050;
 		public static final double kMaxOutput = 1;
 		public static final double kMinOutput = -1;
 		public static final double kGearRatio = 2;
 		public static final double kAllowedError = 50;
+		// The feedforward of each flywheel (volts, volts per rpm, volts per rpm/s),
+		// also used to predict the time to reach a speed; kV is the previous
+		// SPARK MAX kFF (0.000105 per rpm) times kNominalVoltage and kA assumes a
+		// 0.5 s time constant, until the flywheel SysId routine is run (its kV
+		// and kA, in rotations per second, are then divided by 60)
+		public static final double kBottomS = 0;
+		public static final double kBottomV = 0.00126;
+		public static final double kBottomA = 0.00063;
+		public static final double kTopS = 0;
+		public static final double kTopV = 0.00126;
+		public static final double kTopA = 0.00063;
+		// The drop below the setpoint (rpm), after having reached it, taken as a
+		// shot, and the voltage added to the feedforward until the flywheel is
+		// back within kAllowedError
+		public static final double kRecoveryThreshold = 150;
+		public static final double kRecoveryBoostVoltage = 2;
+		// The voltage the output is compensated to (volts)
+		public static final double kNominalVoltage = 12;
+		// The cap on the published time to setpoint and the time added to the
+		// predicted spin-up when it is started just in time (seconds)
+		public static final double kMaxPredictedTime = 10;
+		public static final double kSpinUpMargin = 0.25;
 	}
 
 	public static final class ClimbConstants {
@@ -217,45 +249,184 @@ public final class Constants {
 		public static final double kPassActuatorHeight = 0.65;
 		public static final double kAimerTolerance = 0.001; // previously 0.01
 		public static final double kAdjustAmount = 0.05; // Adjust with testing
-		public static final double kP = 5;
+		// The aimer follows a trapezoidal profile ("height" per second and per
+		// second squared) at the rate of its own control loop (seconds)
+		public static final double kMaxVelocity = 1.0;
+		public static final double kMaxAcceleration = 8.0;
+		public static final double kControlPeriod = 0.005;
+		// The feedforward (duty cycle, duty cycle per "height" per second) and the
+		// feedback (duty cycle per "height") following the profile; kS is also the
+		// least output while away from the profile (the lead screw stalls below
+		// it), which kP reaches at 5 times kAimerTolerance
+		public static final double kS = 0.075;
+		public static final double kV = 0.8;
+		public static final double kP = 15;
 		public static final double kMaxAimerPower = 1;
-		public static final double kMinAimerPower = 0.075;
+		// The profile velocity below which the aimer is considered settled
+		// ("height" per second) and the cap on the published time to setpoint
+		// (seconds)
+		public static final double kSettledVelocity = 0.01;
+		public static final double kMaxPredictedTime = 10;
+		// The shooting range covered by the TableTargeter and the distance
+		// between its rows (meters)
+		public static final double kTableMinDistance = 0.5;
+		public static final double kTableMaxDistance = 7.0;
+		public static final double kTableStep = 0.01;
+		// The flywheel speed of the speaker shots (RPM)
+		public static final double kShootingRPM = 8000;
 	}
 
 	public static final class PoseConstants {
-		public static final Translation2d kBlueSpeakerPosition = new Translation2d(-7.87, 1.45);
-		public static final Translation2d kBlueAmpCorner = new Translation2d(-7.87, 3.75);
+		// Loaded from deploy/field.json; red landmarks mirror blue ones unless
+		// the file overrides them
+		public static final Translation2d kBlueSpeakerPosition = FieldModel.blue("speaker").getTranslation();
+		public static final Translation2d kBlueAmpCorner = FieldModel.blue("ampCorner").getTranslation();
+		public static final Pose kBlueAmpPose = FieldModel.blue("amp");
+		public static final Pose kBlueNoteOnePose = FieldModel.blue("noteOne");
+		public static final Pose kBlueNoteTwoPose = FieldModel.blue("noteTwo");
+		public static final Pose kBlueNoteThreePose = FieldModel.blue("noteThree");
+		public static final Pose kBlueCenterNoteOnePose = FieldModel.blue("centerNoteOne");
+		public static final Pose kBlueCenterNoteTwoPose = FieldModel.blue("centerNoteTwo");
+		public static final Pose kBlueCenterNoteThreePose = FieldModel.blue("centerNoteThree");
+		public static final Pose kBlueCenterNoteFourPose = FieldModel.blue("centerNoteFour");
+		public static final Pose kBlueCenterNoteFivePose = FieldModel.blue("centerNoteFive");
+		public static final Pose kBlueFeederPose = FieldModel.blue("feeder");
 
-		public static final Pose kBlueAmpPose = new Pose(-6.44, 3.75, 90);
+		public static final Translation2d kRedSpeakerPosition = FieldModel.red("speaker").getTranslation();
+		public static final Translation2d kRedAmpCorner = FieldModel.red("ampCorner").getTranslation();
+		public static final Pose kRedAmpPose = FieldModel.red("amp");
+		public static final Pose kRedNoteOnePose = FieldModel.red("noteOne");
+		public static final Pose kRedNoteTwoPose = FieldModel.red("noteTwo");
+		public static final Pose kRedNoteThreePose = FieldModel.red("noteThree");
+		public static final Pose kRedCenterNoteOnePose = FieldModel.red("centerNoteOne");
+		public static final Pose kRedCenterNoteTwoPose = FieldModel.red("centerNoteTwo");
+		public static final Pose kRedCenterNoteThreePose = FieldModel.red("centerNoteThree");
+		public static final Pose kRedCenterNoteFourPose = FieldModel.red("centerNoteFour");
+		public static final Pose kRedCenterNoteFivePose = FieldModel.red("centerNoteFive");
+		public static final Pose kRedFeederPose = FieldModel.red("feeder");
+	}
+
+	public static final class PoseEstimatorConstants {
+		// Whether to use the Kalman filter (true) or the fixed-weight blend (false);
+		// the blend stays the default until the filter has been tuned on the field
+		public static final boolean kUseKalmanFilter = false;
+		// Samples farther than this (in meters) from the estimate are rejected
+		public static final double kDistanceThreshold = 1.0;
+		// The number of consecutive rejections that reset the estimator
+		public static final int kRejectionLimit = 10;
+		// The weight of each sample in the fixed-weight blend
+		public static final double kWeight = 0.1;
+		// Odometry noise per update, plus slip per meter traveled and per radian
+		// turned (meters, radians)
+		public static final double kOdometryXYStdDev = 0.002;
+		public static final double kOdometryXYStdDevPerMeter = 0.05;
+		public static final double kOdometryYawStdDev = 0.001;
+		public static final double kOdometryYawStdDevPerRadian = 0.02;
+		// Vision noise for a single tag right in front of the camera, growing with
+		// the square of the average tag distance (meters, radians)
+		public static final double kVisionXYStdDev = 0.05;
+		public static final double kVisionYawStdDev = 0.1;
+		// The number of botpose samples that may wait for the robot loop (a power
+		// of two)
+		public static final int kBotPoseQueueCapacity = 16;
+		// The LimeLights providing botpose samples. A null robot-to-camera transform
+		// keeps the camera pose configured on the LimeLight itself
+		public static final Camera[] kCameras = { new Camera("limelight", null, 0) };
+		// How much the vision noise grows per unit of average tag pose ambiguity
+		public static final double kVisionAmbiguityScale = 5;
+		// The fraction of the motion during the latency that latency compensation
+		// leaves as error
+		public static final double kVisionLatencyMotionFraction = 0.3;
+		// Samples with a larger height (meters), roll or pitch (degrees), latency
+		// (seconds), or average tag distance (meters), or a smaller average tag
+		// area (percent of the image) are rejected
+		public static final double kVisionMaxHeight = 0.5;
+		public static final double kVisionMaxTilt = 15;
+		public static final double kVisionMaxLatency = 0.25;
+		public static final double kVisionMaxTagDistance = 6;
+		public static final double kVisionMinTagArea = 0.02;
+		// The outlier gate of the Kalman filter: this many standard deviations of
+		// the difference between a sample and the estimate, but at least kMinGate
+		// (meters); both it and kDistanceThreshold widen by the distance traveled in
+		// kGateSpeedSlack (seconds)
+		public static final double kGateSigmas = 3;
+		public static final double kMinGate = 0.3;
+		public static final double kGateSpeedSlack = 0.1;
+		// The time window (seconds) over which the speed of the robot is measured
+		public static final double kSpeedWindow = 0.1;
+	}
 
-		public static final Pose kBlueNoteOnePose = new Pose(-6.0 + 0.55, 2.82 - 0.25 + 0.4, 180 + 25);
-		public static final Pose kBlueNoteTwoPose = new Pose(-6.0 + 0.55 - 0.2, 1.45, 180);
-		// to avoid collision
-		public static final Pose kBlueNoteThreePose = new Pose(-6.0 + 0.45 - 0.2, 0.0 + 0.45 - 0.3, 180 - 25);
+	public static final class AutoConstants {
+		// The time (seconds) the auto selection must stay unchanged while disabled
+		// before the selected routine is built
+		public static final double kSelectionSettleTime = 1.0;
+	}
 
-		public static final Pose kBlueCenterNoteOnePose = new Pose(-0.2 + 0.2, 3.4, 180);
-		public static final Pose kBlueCenterNoteTwoPose = new Pose(-0.2 + 0.25 + 0.4, 1.7 + 0.25, 180 - 45);
-		public static final Pose kBlueCenterNoteThreePose = new Pose(-0.2 + 0.4, 0, 180);
-		public static final Pose kBlueCenterNoteFourPose = new Pose(-0.2 + 0.25, -1.7 + 0.05, 180 + 30);
-		public static final Pose kBlueCenterNoteFivePose = new Pose(-0.2 + 0.2, -3.4 + 0.3, 180 - 15);
-		public static final Pose kBlueFeederPose = new Pose(0.0, -2.2, 180 - 15);
+	public static final class DeviceConstants {
+		// The number of threads configuring motor controllers at startup, how many
+		// times a configuration is applied before giving up, and how long
+		// robotInit waits for all of them (seconds)
+		public static final int kConfigurationThreads = 4;
+		public static final int kConfigurationAttempts = 3;
+		public static final double kConfigurationTimeout = 10;
+		// How often a condition is polled instead of sleeping (seconds)
+		public static final double kPollPeriod = 0.005;
+		// The maximum time (seconds) to wait for the encoders to report a reset
+		public static final double kEncoderResetTimeout = 0.1;
+		// Appended to the device name to form the Preferences key under which the
+		// fingerprint of its last burned configuration is stored
+		public static final String kFingerprintKeySuffix = " Config";
+	}
 
-		public static final Translation2d kRedSpeakerPosition = new Translation2d(7.87, 1.45);
-		public static final Translation2d kRedAmpCorner = new Translation2d(7.87, 3.75);
+	public static final class ShotConstants {
+		// The speed of the note leaving the shooter per flywheel RPM (m/s per RPM,
+		// to be calibrated: about 20 m/s at 8000 RPM)
+		public static final double kNoteSpeedPerRPM = 0.0025;
+		// The time from aiming to the note leaving the shooter (seconds)
+		public static final double kReleaseLatency = 0.2;
+		// The bound on the time-of-flight iterations and the change in the time
+		// of flight (seconds) at which they stop
+		public static final int kMaxIterations = 5;
+		public static final double kTimeOfFlightTolerance = 0.001;
+		// The change in the flywheel speeds (RPM) below which the setpoints are not
+		// resent
+		public static final double kRPMDeadband = 10;
+	}
 
-		public static final Pose kRedAmpPose = new Pose(6.44, 3.75, 90);
+	public static final class ShotReadinessConstants {
+		// The heading error tolerated when shooting (degrees) and how long
+		// everything must stay ready before the shot (seconds)
+		public static final double kHeadingTolerance = 3;
+		public static final double kReadyDebounceTime = 0.04;
+	}
 
-		public static final Pose kRedNoteOnePose = new Pose(6.0 - 0.55, 2.82 - 0.25 + 0.4, -25);
-		public static final Pose kRedNoteTwoPose = new Pose(6.0 - 0.55 + 0.2, 1.45, 0);
-		// to avoid collision
-		public static final Pose kRedNoteThreePose = new Pose(6.0 - 0.45 + 0.2, 0.0 + 0.45 - 0.3, 25);
+	public static final class CanConstants {
+		// The bit rate of the CAN bus and the size of a frame with an extended ID
+		// and 8 data bytes, including typical bit stuffing (bits)
+		public static final double kBitRate = 1e6;
+		public static final double kBitsPerFrame = 135;
+		// How often the roboRIO sends a command to a SPARK MAX, unless its
+		// configuration declares otherwise (seconds)
+		public static final double kCommandPeriod = 0.02;
+		// The periods (ms) of the SPARK MAX status frames whose signals are not
+		// read: status 0 carries the faults, status 1 and 2 stay slow but alive
+		// for the log, and the others (sensors we do not use) are all but off
+		public static final int kIdleStatus0PeriodMs = 100;
+		public static final int kIdleStatusPeriodMs = 500;
+		public static final int kUnusedStatusPeriodMs = 65535;
+		// How often signals that are only logged or shown on the dashboard are
+		// needed (seconds)
+		public static final double kTelemetryPeriod = 0.1;
+		// The expected utilization above which a warning is reported, leaving
+		// headroom for the commands and retransmissions during matches
+		public static final double kMaxExpectedUtilization = 0.6;
+	}
 
-		public static final Pose kRedCenterNoteOnePose = new Pose(0.2 - 0.2, 3.4, 0);
-		public static final Pose kRedCenterNoteTwoPose = new Pose(0.2 - 0.25 - 0.4, 1.7 + 0.25, 45);
-		public static final Pose kRedCenterNoteThreePose = new Pose(0.2 - 0.4, 0, 0);
-		public static final Pose kRedCenterNoteFourPose = new Pose(0.2 - 0.25, -1.7 + 0.05, -30);
-		public static final Pose kRedCenterNoteFivePose = new Pose(0.2 - 0.2, -3.4 + 0.3, 0 + 15);
-		public static final Pose kRedFeederPose = new Pose(0.0, -2.2, -25);
+	public static final class WarmUpConstants {
+		// The number of times the hot paths are run while disabled (above the
+		// invocation thresholds of the JIT) and how many of them run per loop
+		public static final int kWarmUpIterations = 20000;
+		public static final int kWarmUpIterationsPerLoop = 250;
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,579 @@
+package frc.robot;
+
+import static frc.robot.Constants.DeviceConstants.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.zip.CRC32;
+
+import com.revrobotics.CANSparkBase.IdleMode;
+import com.revrobotics.CANSparkBase.SoftLimitDirection;
+import com.revrobotics.CANSparkLowLevel.PeriodicFrame;
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.REVLibError;
+import com.revrobotics.RelativeEncoder;
+import com.revrobotics.SparkLimitSwitch;
+import com.revrobotics.SparkPIDController;
+
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.Preferences;
+import frc.robot.CanBudget.SparkSignal;
+import frc.robot.Constants.CanConstants;
+
+/**
+ * Configures the motor controllers concurrently instead of one setter at a
+ * time on the main thread. Each subsystem describes the configuration of its
+ * {@code CANSparkMax}es with a {@link SparkMaxConfig} and hands it to
+ * {@link #configure(String, CANSparkMax, SparkMaxConfig)}, which returns right
+ * away; a small pool of worker threads applies the configurations, reads the
+ * parameters back, and reapplies a configuration that did not take.
+ * {@link #awaitAll(double)}, called once at the end of {@code robotInit},
+ * waits for all of them and logs how long each device took.
+ *
+ * The configurations are persistent: after a device has been configured, its
+ * parameters are burned into its flash and a fingerprint of the configuration
+ * is stored in {@code Preferences}. On later boots, only the parameters that
+ * read back differently are sent (plus, if the fingerprint has changed, those
+ * that cannot be read back), and the flash is only burned again if something
+ * was sent. The factory defaults are restored the first time, and again
+ * whenever a parameter that can be read back differs (a reset or replaced
+ * device may hold parameters that no configuration sets).
+ */
+public class DeviceConfigurator {
+
+	/**
+	 * The desired configuration of a {@code CANSparkMax}. Only the parameters
+	 * that are set are applied; the others keep their current values.
+	 */
+	public static class SparkMaxConfig {
+		private boolean m_restoreFactoryDefaults = false;
+		private IdleMode m_idleMode;
+		private Boolean m_inverted;
+		private Double m_voltageCompensation;
+		private Integer m_smartCurrentLimit;
+		private Double m_secondaryCurrentLimit;
+		private int m_secondaryCurrentLimitChopCycles = 0;
+		private Float m_reverseSoftLimit;
+		private Float m_forwardSoftLimit;
+		private Double m_p;
+		private Double m_i;
+		private Double m_d;
+		private Double m_iZone;
+		private Double m_ff;
+		private Double m_minOutput;
+		private Double m_maxOutput;
+		private Double m_velocityConversionFactor;
+		private SparkLimitSwitch.Type m_limitSwitchType;
+		private double m_commandPeriod = CanConstants.kCommandPeriod;
+		private final Map<PeriodicFrame, Integer> m_periodicFramePeriods = new EnumMap<PeriodicFrame, Integer>(
+				PeriodicFrame.class);
+		private final Map<PeriodicFrame, Integer> m_readPeriods = new EnumMap<PeriodicFrame, Integer>(
+				PeriodicFrame.class);
+
+		/**
+		 * Restores the factory defaults before applying the other parameters the
+		 * first time the device is configured (when no fingerprint is stored for
+		 * it) and whenever a parameter that can be read back differs from this
+		 * configuration.
+		 *
+		 * @return this {@code SparkMaxConfig}
+		 */
+		public SparkMaxConfig restoreFactoryDefaults() {
+			m_restoreFactoryDefaults = true;
+			return this;
+		}
+
+		public SparkMaxConfig idleMode(IdleMode idleMode) {
+			m_idleMode = idleMode;
+			return this;
+		}
+
+		public SparkMaxConfig inverted(boolean inverted) {
+			m_inverted = inverted;
+			return this;
+		}
+
+		public SparkMaxConfig voltageCompensation(double nominalVoltage) {
+			m_voltageCompensation = nominalVoltage;
+			return this;
+		}
+
+		public SparkMaxConfig smartCurrentLimit(int limit) {
+			m_smartCurrentLimit = limit;
+			return this;
+		}
+
+		public SparkMaxConfig secondaryCurrentLimit(double limit) {
+			return secondaryCurrentLimit(limit, 0);
+		}
+
+		public SparkMaxConfig secondaryCurrentLimit(double limit, int chopCycles) {
+			m_secondaryCurrentLimit = limit;
+			m_secondaryCurrentLimitChopCycles = chopCycles;
+			return this;
+		}
+
+		/**
+		 * Sets and enables both soft limits.
+		 *
+		 * @param reverse the reverse soft limit in rotations
+		 * @param forward the forward soft limit in rotations
+		 * @return this {@code SparkMaxConfig}
+		 */
+		public SparkMaxConfig softLimits(float reverse, float forward) {
+			m_reverseSoftLimit = reverse;
+			m_forwardSoftLimit = forward;
+			return this;
+		}
+
+		public SparkMaxConfig pid(double p, double i, double d) {
+			m_p = p;
+			m_i = i;
+			m_d = d;
+			return this;
+		}
+
+		public SparkMaxConfig iZone(double iZone) {
+			m_iZone = iZone;
+			return this;
+		}
+
+		public SparkMaxConfig ff(double ff) {
+			m_ff = ff;
+			return this;
+		}
+
+		public SparkMaxConfig outputRange(double min, double max) {
+			m_minOutput = min;
+			m_maxOutput = max;
+			return this;
+		}
+
+		public SparkMaxConfig velocityConversionFactor(double factor) {
+			m_velocityConversionFactor = factor;
+			return this;
+		}
+
+		/**
+		 * Enables both limit switches.
+		 *
+		 * @param type the type of the limit switches
+		 * @return this {@code SparkMaxConfig}
+		 */
+		public SparkMaxConfig limitSwitches(SparkLimitSwitch.Type type) {
+			m_limitSwitchType = type;
+			return this;
+		}
+
+		/**
+		 * Declares that the code reads the specified signal, so that the status
+		 * frame carrying it is sent at least as often as specified. The status
+		 * frames carrying no declared signal are slowed down (see
+		 * {@link CanBudget}).
+		 *
+		 * @param signal        the signal
+		 * @param periodSeconds how often the signal is needed in seconds
+		 * @return this {@code SparkMaxConfig}
+		 */
+		public SparkMaxConfig reads(SparkSignal signal, double periodSeconds) {
+			m_readPeriods.merge(signal.m_frame, (int) Math.round(periodSeconds * 1000), Math::min);
+			return this;
+		}
+
+		/**
+		 * Declares how often the code sends a command to the device, if more often
+		 * than once per robot loop (for the {@link CanBudget}; it is not sent to
+		 * the device).
+		 *
+		 * @param periodSeconds the shortest time between two commands in seconds
+		 * @return this {@code SparkMaxConfig}
+		 */
+		public SparkMaxConfig commandPeriod(double periodSeconds) {
+			m_commandPeriod = periodSeconds;
+			return this;
+		}
+
+		/**
+		 * Sets the period of the specified status frame, overriding the period
+		 * derived from the signals declared with
+		 * {@link #reads(SparkSignal, double)}.
+		 *
+		 * @param frame    the status frame
+		 * @param periodMs the period in milliseconds
+		 * @return this {@code SparkMaxConfig}
+		 */
+		public SparkMaxConfig periodicFramePeriod(PeriodicFrame frame, int periodMs) {
+			m_periodicFramePeriods.put(frame, periodMs);
+			return this;
+		}
+
+		/**
+		 * Returns the period of every status frame: the one set explicitly, or
+		 * else the shortest period required by the signals it carries, or else
+		 * the idle period.
+		 *
+		 * @return the period of each status frame in milliseconds
+		 */
+		Map<PeriodicFrame, Integer> framePeriods() {
+			var periods = new EnumMap<PeriodicFrame, Integer>(PeriodicFrame.class);
+			for (var frame : PeriodicFrame.values())
+				periods.put(frame, CanBudget.idlePeriod(frame));
+			periods.putAll(m_readPeriods);
+			periods.putAll(m_periodicFramePeriods);
+			return periods;
+		}
+
+		/**
+		 * Sends the parameters of this configuration that differ from those of the
+		 * specified device (and the frame periods, which are not persistent).
+		 *
+		 * @param device  the device
+		 * @param all     {@code true} to send every parameter without reading it
+		 *                back first (right after restoring the factory defaults)
+		 * @param changed {@code true} if this configuration differs from the one
+		 *                last burned into the device, in which case the parameters
+		 *                that cannot be read back are sent as well (as they are
+		 *                when any other parameter had to be sent)
+		 * @param errors  collects the errors reported by the device
+		 * @return the number of persistent parameters sent
+		 */
+		int apply(Device device, boolean all, boolean changed, Errors errors) {
+			var motor = device.m_motor;
+			var pid = device.m_pidController;
+			int sent = 0;
+			if (m_inverted != null && (all || motor.getInverted() != m_inverted)) {
+				motor.setInverted(m_inverted);
+				sent++;
+			}
+			if (m_idleMode != null && (all || motor.getIdleMode() != m_idleMode)) {
+				errors.add(motor.setIdleMode(m_idleMode));
+				sent++;
+			}
+			if (m_voltageCompensation != null
+					&& (all || differs(motor.getVoltageCompensationNominalVoltage(), m_voltageCompensation))) {
+				errors.add(motor.enableVoltageCompensation(m_voltageCompensation));
+				sent++;
+			}
+			if (m_forwardSoftLimit != null && (all || softLimitsDiffer(motor))) {
+				errors.add(motor.setSoftLimit(SoftLimitDirection.kForward, m_forwardSoftLimit));
+				errors.add(motor.setSoftLimit(SoftLimitDirection.kReverse, m_reverseSoftLimit));
+				errors.add(motor.enableSoftLimit(SoftLimitDirection.kForward, true));
+				errors.add(motor.enableSoftLimit(SoftLimitDirection.kReverse, true));
+				sent += 4;
+			}
+			if (m_p != null && (all || differs(pid.getP(), m_p) || differs(pid.getI(), m_i)
+					|| differs(pid.getD(), m_d))) {
+				errors.add(pid.setP(m_p));
+				errors.add(pid.setI(m_i));
+				errors.add(pid.setD(m_d));
+				sent += 3;
+			}
+			if (m_iZone != null && (all || differs(pid.getIZone(), m_iZone))) {
+				errors.add(pid.setIZone(m_iZone));
+				sent++;
+			}
+			if (m_ff != null && (all || differs(pid.getFF(), m_ff))) {
+				errors.add(pid.setFF(m_ff));
+				sent++;
+			}
+			if (m_minOutput != null && (all || differs(pid.getOutputMin(), m_minOutput)
+					|| differs(pid.getOutputMax(), m_maxOutput))) {
+				errors.add(pid.setOutputRange(m_minOutput, m_maxOutput));
+				sent++;
+			}
+			if (m_velocityConversionFactor != null
+					&& (all || differs(device.m_encoder.getVelocityConversionFactor(), m_velocityConversionFactor))) {
+				errors.add(device.m_encoder.setVelocityConversionFactor(m_velocityConversionFactor));
+				sent++;
+			}
+			if (m_limitSwitchType != null && (all || limitSwitchesDiffer(device))) {
+				errors.add(device.m_forwardLimitSwitch.enableLimitSwitch(true));
+				errors.add(device.m_reverseLimitSwitch.enableLimitSwitch(true));
+				sent += 2;
+			}
+			// a readable parameter that differs suggests a reset or replaced device
+			boolean unreadable = all || changed || sent > 0;
+			if (m_smartCurrentLimit != null && unreadable) {
+				errors.add(motor.setSmartCurrentLimit(m_smartCurrentLimit));
+				sent++;
+			}
+			if (m_secondaryCurrentLimit != null && unreadable) {
+				errors.add(motor.setSecondaryCurrentLimit(m_secondaryCurrentLimit,
+						m_secondaryCurrentLimitChopCycles));
+				sent++;
+			}
+			for (var entry : device.m_framePeriods.entrySet())
+				errors.add(motor.setPeriodicFramePeriod(entry.getKey(), entry.getValue()));
+			return sent;
+		}
+
+		/**
+		 * Reads back the parameters of this configuration that the device can
+		 * report (the current limits and frame periods cannot be read back).
+		 *
+		 * @param device the device
+		 * @return a description of the first parameter that differs from this
+		 *         configuration; {@code null} if none differs
+		 */
+		String verify(Device device) {
+			var motor = device.m_motor;
+			if (m_inverted != null && motor.getInverted() != m_inverted)
+				return "inverted";
+			if (m_idleMode != null && motor.getIdleMode() != m_idleMode)
+				return "idle mode";
+			if (m_voltageCompensation != null
+					&& differs(motor.getVoltageCompensationNominalVoltage(), m_voltageCompensation))
+				return "voltage compensation";
+			if (m_forwardSoftLimit != null && softLimitsDiffer(motor))
+				return "soft limits";
+			var pid = device.m_pidController;
+			if (m_p != null && (differs(pid.getP(), m_p) || differs(pid.getI(), m_i) || differs(pid.getD(), m_d)))
+				return "PID gains";
+			if (m_iZone != null && differs(pid.getIZone(), m_iZone))
+				return "I zone";
+			if (m_ff != null && differs(pid.getFF(), m_ff))
+				return "feedforward";
+			if (m_minOutput != null
+					&& (differs(pid.getOutputMin(), m_minOutput) || differs(pid.getOutputMax(), m_maxOutput)))
+				return "output range";
+			if (m_velocityConversionFactor != null
+					&& differs(device.m_encoder.getVelocityConversionFactor(), m_velocityConversionFactor))
+				return "velocity conversion factor";
+			if (m_limitSwitchType != null && limitSwitchesDiffer(device))
+				return "limit switches";
+			return null;
+		}
+
+		private boolean softLimitsDiffer(CANSparkMax motor) {
+			return differs(motor.getSoftLimit(SoftLimitDirection.kForward), m_forwardSoftLimit)
+					|| differs(motor.getSoftLimit(SoftLimitDirection.kReverse), m_reverseSoftLimit)
+					|| !motor.isSoftLimitEnabled(SoftLimitDirection.kForward)
+					|| !motor.isSoftLimitEnabled(SoftLimitDirection.kReverse);
+		}
+
+		private static boolean limitSwitchesDiffer(Device device) {
+			return !device.m_forwardLimitSwitch.isLimitSwitchEnabled()
+					|| !device.m_reverseLimitSwitch.isLimitSwitchEnabled();
+		}
+
+		/**
+		 * Returns a fingerprint of the persistent parameters of this configuration
+		 * (everything but the frame periods).
+		 *
+		 * @return the fingerprint
+		 */
+		String fingerprint() {
+			String parameters = "inverted=" + m_inverted + ",idleMode=" + m_idleMode
+					+ ",voltageCompensation=" + m_voltageCompensation + ",smartCurrentLimit=" + m_smartCurrentLimit
+					+ ",secondaryCurrentLimit=" + m_secondaryCurrentLimit + "/" + m_secondaryCurrentLimitChopCycles
+					+ ",softLimits=" + m_reverseSoftLimit + "/" + m_forwardSoftLimit
+					+ ",pid=" + m_p + "/" + m_i + "/" + m_d + ",iZone=" + m_iZone + ",ff=" + m_ff
+					+ ",outputRange=" + m_minOutput + "/" + m_maxOutput
+					+ ",velocityConversionFactor=" + m_velocityConversionFactor
+					+ ",limitSwitches=" + m_limitSwitchType;
+			var crc = new CRC32();
+			crc.update(parameters.getBytes(StandardCharsets.UTF_8));
+			return Long.toHexString(crc.getValue());
+		}
+
+		/**
+		 * Determines whether or not a parameter read back from a device differs
+		 * from the desired value (the device stores parameters as floats).
+		 */
+		private static boolean differs(double actual, double desired) {
+			return Math.abs(actual - desired) > 1e-6 * Math.max(1, Math.abs(desired));
+		}
+	}
+
+	/**
+	 * Remembers the first error among the results of a series of setters.
+	 */
+	private static class Errors {
+		REVLibError m_first = REVLibError.kOk;
+
+		void add(REVLibError error) {
+			if (m_first == REVLibError.kOk)
+				m_first = error;
+		}
+	}
+
+	/**
+	 * A device being configured, along with the timing of its configuration.
+	 */
+	static class Device {
+		final String m_name;
+		final CANSparkMax m_motor;
+		final RelativeEncoder m_encoder;
+		final SparkPIDController m_pidController;
+		final SparkLimitSwitch m_forwardLimitSwitch;
+		final SparkLimitSwitch m_reverseLimitSwitch;
+		final SparkMaxConfig m_config;
+		final Map<PeriodicFrame, Integer> m_framePeriods;
+		final long m_submitTime = System.nanoTime();
+		volatile long m_startTime;
+		volatile long m_endTime;
+		int m_attempts = 0;
+		/** The number of persistent parameters sent. */
+		int m_sent = 0;
+		boolean m_burned = false;
+		/** Whether or not the factory defaults were restored. */
+		boolean m_restored = false;
+		/** What went wrong in the last attempt ({@code null} if nothing). */
+		String m_problem;
+
+		Device(String name, CANSparkMax motor, SparkMaxConfig config) {
+			m_name = name;
+			m_motor = motor;
+			// the REVLib wrappers are created on the calling thread
+			m_encoder = motor.getEncoder();
+			m_pidController = motor.getPIDController();
+			m_forwardLimitSwitch = config.m_limitSwitchType == null ? null
+					: motor.getForwardLimitSwitch(config.m_limitSwitchType);
+			m_reverseLimitSwitch = config.m_limitSwitchType == null ? null
+					: motor.getReverseLimitSwitch(config.m_limitSwitchType);
+			m_config = config;
+			m_framePeriods = config.framePeriods();
+		}
+
+		/**
+		 * Brings the device in line with the configuration, reading it back and
+		 * retrying up to {@code kConfigurationAttempts} times, and burns the
+		 * parameters into its flash if any had to be sent.
+		 */
+		void configure() {
+			m_startTime = System.nanoTime();
+			String key = m_name + kFingerprintKeySuffix;
+			String fingerprint = m_config.fingerprint();
+			String stored = Preferences.getString(key, "");
+			boolean changed = !fingerprint.equals(stored);
+			// a readable parameter that differs suggests a reset or replaced device,
+			// which may also hold parameters this configuration does not set
+			boolean restore = m_config.m_restoreFactoryDefaults
+					&& (stored.isEmpty() || m_config.verify(this) != null);
+			var restoreError = restore ? m_motor.restoreFactoryDefaults() : REVLibError.kOk;
+			m_restored = restore;
+			do {
+				m_attempts++;
+				var errors = new Errors();
+				errors.add(restoreError);
+				int sent = m_config.apply(this, restore && m_attempts == 1, changed, errors);
+				m_sent += sent;
+				m_problem = errors.m_first != REVLibError.kOk ? errors.m_first.toString()
+						: sent > 0 ? m_config.verify(this) : null;
+				restoreError = REVLibError.kOk;
+			} while (m_problem != null && m_attempts < kConfigurationAttempts);
+			if (m_problem == null && (m_sent > 0 || changed)) {
+				var error = m_motor.burnFlash();
+				if (error == REVLibError.kOk) {
+					Preferences.setString(key, fingerprint);
+					m_burned = true;
+				} else
+					m_problem = "burnFlash " + error;
+			}
+			m_endTime = System.nanoTime();
+		}
+	}
+
+	private static final ExecutorService s_executor = Executors.newFixedThreadPool(kConfigurationThreads, r -> {
+		var thread = new Thread(r, "Device configuration");
+		thread.setDaemon(true);
+		return thread;
+	});
+	private static final ArrayList<Device> s_devices = new ArrayList<Device>();
+	private static final ArrayList<CompletableFuture<Void>> s_futures = new ArrayList<CompletableFuture<Void>>();
+
+	/**
+	 * Starts configuring the specified {@code CANSparkMax} on a worker thread.
+	 * Should be called from the main thread.
+	 *
+	 * @param name   the name of the device (for the log)
+	 * @param motor  the {@code CANSparkMax}
+	 * @param config the configuration
+	 * @return a future that completes when the configuration has been applied
+	 *         (and verified, if possible)
+	 */
+	public static CompletableFuture<Void> configure(String name, CANSparkMax motor, SparkMaxConfig config) {
+		var device = new Device(name, motor, config);
+		CanBudget.addSparkMax(name, device.m_framePeriods, config.m_commandPeriod);
+		var future = CompletableFuture.runAsync(device::configure, s_executor);
+		s_devices.add(device);
+		s_futures.add(future);
+		return future;
+	}
+
+	/**
+	 * Waits for all the configurations started so far and logs how long each
+	 * device took.
+	 *
+	 * @param timeoutSeconds the maximum time to wait in seconds
+	 * @return {@code true} if every device was configured and verified;
+	 *         {@code false} otherwise
+	 */
+	public static boolean awaitAll(double timeoutSeconds) {
+		long start = System.nanoTime();
+		boolean timedOut = false;
+		try {
+			CompletableFuture.allOf(s_futures.toArray(new CompletableFuture[0]))
+					.get((long) (timeoutSeconds * 1e9), TimeUnit.NANOSECONDS);
+		} catch (Exception e) {
+			timedOut = true;
+		}
+		long end = System.nanoTime();
+		boolean ok = !timedOut;
+		long first = end;
+		double total = 0;
+		for (var device : s_devices) {
+			first = Math.min(first, device.m_submitTime);
+			if (device.m_endTime == 0) {
+				DataLogManager.log(String.format("%s: not configured in time", device.m_name));
+				ok = false;
+				continue;
+			}
+			double millis = (device.m_endTime - device.m_startTime) / 1e6;
+			total += millis;
+			DataLogManager.log(String.format("%s: %.1f ms (queued %.1f ms, %d attempt%s, %s%d parameters sent%s)%s",
+					device.m_name, millis, (device.m_startTime - device.m_submitTime) / 1e6, device.m_attempts,
+					device.m_attempts == 1 ? "" : "s", device.m_restored ? "factory defaults restored, " : "",
+					device.m_sent, device.m_burned ? ", flash burned" : "",
+					device.m_problem == null ? "" : ", FAILED: " + device.m_problem));
+			ok &= device.m_problem == null;
+		}
+		DataLogManager.log(String.format(
+				"configured %d devices in %.1f ms (%.1f ms of device time, %.1f ms waiting in robotInit)",
+				s_devices.size(), (end - first) / 1e6, total, (end - start) / 1e6));
+		s_devices.clear();
+		s_futures.clear();
+		return ok;
+	}
+
+	/**
+	 * Waits until the specified condition holds, polling it every
+	 * {@code kPollPeriod}, instead of sleeping for a fixed time.
+	 *
+	 * @param condition      the condition
+	 * @param timeoutSeconds the maximum time to wait in seconds
+	 * @return {@code true} if the condition holds; {@code false} if the time ran
+	 *         out first
+	 */
+	public static boolean waitUntil(BooleanSupplier condition, double timeoutSeconds) {
+		long deadline = System.nanoTime() + (long) (timeoutSeconds * 1e9);
+		while (!condition.getAsBoolean()) {
+			if (System.nanoTime() >= deadline)
+				return false;
+			try {
+				Thread.sleep((long) (kPollPeriod * 1000));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return condition.getAsBoolean();
+			}
+		}
+		return true;
+	}
+}
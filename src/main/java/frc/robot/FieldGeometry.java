@@ -0,0 +1,231 @@
+package frc.robot;
+
+import static frc.robot.Constants.PoseConstants.*;
+
+import java.util.ArrayList;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
+import frc.robot.subsystems.LimeLightSubsystem.Pose;
+
+/**
+ * An index of the landmarks in {@code PoseConstants}, loaded once into flat
+ * primitive arrays. Landmarks are identified by their index; the landmarks of
+ * each {@link Kind} and alliance occupy a contiguous range, so nearest-landmark,
+ * distance, and bearing queries are plain loops over a few doubles and do not
+ * allocate. Each landmark also keeps the constant it was loaded from, so
+ * callers that need a {@code Translation2d} or {@code Pose2d} get the existing
+ * object rather than a new one.
+ */
+public class FieldGeometry {
+
+	/**
+	 * The kinds of landmarks.
+	 */
+	public enum Kind {
+		SPEAKER, AMP_CORNER, AMP, NOTE, CENTER_NOTE, FEEDER
+	}
+
+	private static final int kAlliances = 2;
+
+	private static final double[] s_x;
+	private static final double[] s_y;
+	private static final double[] s_yaw;
+	private static final Translation2d[] s_translations;
+	private static final Pose2d[] s_poses;
+	/** The first index of each kind and alliance (and the end of the last). */
+	private static final int[] s_start = new int[Kind.values().length * kAlliances + 1];
+
+	static {
+		var translations = new ArrayList<Translation2d>();
+		var poses = new ArrayList<Pose2d>();
+		for (var kind : Kind.values()) {
+			for (int alliance = 0; alliance < kAlliances; alliance++) {
+				s_start[range(kind, alliance)] = poses.size();
+				for (var landmark : landmarks(kind, alliance == 0)) {
+					if (landmark instanceof Translation2d) {
+						var translation = (Translation2d) landmark;
+						translations.add(translation);
+						poses.add(new Pose(translation.getX(), translation.getY(), 0));
+					} else {
+						var pose = (Pose2d) landmark;
+						translations.add(pose.getTranslation());
+						poses.add(pose);
+					}
+				}
+			}
+		}
+		s_start[s_start.length - 1] = poses.size();
+		s_translations = translations.toArray(new Translation2d[0]);
+		s_poses = poses.toArray(new Pose2d[0]);
+		s_x = new double[s_poses.length];
+		s_y = new double[s_poses.length];
+		s_yaw = new double[s_poses.length];
+		for (int i = 0; i < s_poses.length; i++) {
+			s_x[i] = s_poses[i].getX();
+			s_y[i] = s_poses[i].getY();
+			s_yaw[i] = s_poses[i].getRotation().getRadians();
+		}
+	}
+
+	/**
+	 * Returns the landmarks of the specified kind for the specified alliance.
+	 *
+	 * @param kind the kind of the landmarks
+	 * @param blue {@code true} for the blue alliance; {@code false} for the red
+	 *             alliance
+	 * @return the {@code Translation2d}s or {@code Pose2d}s of the landmarks
+	 */
+	private static Object[] landmarks(Kind kind, boolean blue) {
+		switch (kind) {
+			case SPEAKER:
+				return new Object[] { blue ? kBlueSpeakerPosition : kRedSpeakerPosition };
+			case AMP_CORNER:
+				return new Object[] { blue ? kBlueAmpCorner : kRedAmpCorner };
+			case AMP:
+				return new Object[] { blue ? kBlueAmpPose : kRedAmpPose };
+			case NOTE:
+				return blue ? new Object[] { kBlueNoteOnePose, kBlueNoteTwoPose, kBlueNoteThreePose }
+						: new Object[] { kRedNoteOnePose, kRedNoteTwoPose, kRedNoteThreePose };
+			case CENTER_NOTE:
+				return blue
+						? new Object[] { kBlueCenterNoteOnePose, kBlueCenterNoteTwoPose, kBlueCenterNoteThreePose,
+								kBlueCenterNoteFourPose, kBlueCenterNoteFivePose }
+						: new Object[] { kRedCenterNoteOnePose, kRedCenterNoteTwoPose, kRedCenterNoteThreePose,
+								kRedCenterNoteFourPose, kRedCenterNoteFivePose };
+			case FEEDER:
+				return new Object[] { blue ? kBlueFeederPose : kRedFeederPose };
+			default:
+				return new Object[0];
+		}
+	}
+
+	private static int range(Kind kind, int alliance) {
+		return kind.ordinal() * kAlliances + alliance;
+	}
+
+	/**
+	 * Returns the landmark of the specified kind (of either alliance) closest to
+	 * the specified position.
+	 *
+	 * @param kind the kind of the landmark
+	 * @param x    the x-coordinate value of the position in meters
+	 * @param y    the y-coordinate value of the position in meters
+	 * @return the index of the closest landmark
+	 */
+	public static int nearest(Kind kind, double x, double y) {
+		return nearest(s_start[range(kind, 0)], s_start[range(kind, kAlliances - 1) + 1], x, y);
+	}
+
+	/**
+	 * Returns the landmark of the specified kind of the specified alliance
+	 * closest to the specified position.
+	 *
+	 * @param kind     the kind of the landmark
+	 * @param alliance the alliance
+	 * @param x        the x-coordinate value of the position in meters
+	 * @param y        the y-coordinate value of the position in meters
+	 * @return the index of the closest landmark
+	 */
+	public static int nearest(Kind kind, Alliance alliance, double x, double y) {
+		int range = range(kind, alliance == Alliance.Blue ? 0 : 1);
+		return nearest(s_start[range], s_start[range + 1], x, y);
+	}
+
+	private static int nearest(int start, int end, double x, double y) {
+		int nearest = start;
+		double min = Double.POSITIVE_INFINITY;
+		for (int i = start; i < end; i++) {
+			double dx = s_x[i] - x;
+			double dy = s_y[i] - y;
+			double d = dx * dx + dy * dy;
+			if (d < min) {
+				min = d;
+				nearest = i;
+			}
+		}
+		return nearest;
+	}
+
+	/**
+	 * Returns the distance from the specified position to the specified landmark.
+	 *
+	 * @param landmark the index of the landmark
+	 * @param x        the x-coordinate value of the position in meters
+	 * @param y        the y-coordinate value of the position in meters
+	 * @return the distance in meters
+	 */
+	public static double distance(int landmark, double x, double y) {
+		return Math.hypot(s_x[landmark] - x, s_y[landmark] - y);
+	}
+
+	/**
+	 * Returns the angle the robot at the specified pose needs to turn to face the
+	 * specified landmark.
+	 *
+	 * @param landmark       the index of the landmark
+	 * @param x              the x-coordinate value of the robot in meters
+	 * @param y              the y-coordinate value of the robot in meters
+	 * @param headingRadians the heading of the robot in radians
+	 * @return the angle in degrees between -180 and 180 (counterclockwise
+	 *         positive)
+	 */
+	public static double bearing(int landmark, double x, double y, double headingRadians) {
+		double angle = Math.atan2(s_y[landmark] - y, s_x[landmark] - x);
+		return Math.toDegrees(MathUtil.angleModulus(angle - headingRadians));
+	}
+
+	/**
+	 * Returns the x-coordinate value of the specified landmark.
+	 *
+	 * @param landmark the index of the landmark
+	 * @return the x-coordinate value of the landmark in meters
+	 */
+	public static double x(int landmark) {
+		return s_x[landmark];
+	}
+
+	/**
+	 * Returns the y-coordinate value of the specified landmark.
+	 *
+	 * @param landmark the index of the landmark
+	 * @return the y-coordinate value of the landmark in meters
+	 */
+	public static double y(int landmark) {
+		return s_y[landmark];
+	}
+
+	/**
+	 * Returns the yaw of the specified landmark (0 for landmarks that are only
+	 * positions).
+	 *
+	 * @param landmark the index of the landmark
+	 * @return the yaw of the landmark in radians
+	 */
+	public static double yaw(int landmark) {
+		return s_yaw[landmark];
+	}
+
+	/**
+	 * Returns the position of the specified landmark.
+	 *
+	 * @param landmark the index of the landmark
+	 * @return the {@code Translation2d} from {@code PoseConstants}
+	 */
+	public static Translation2d translation(int landmark) {
+		return s_translations[landmark];
+	}
+
+	/**
+	 * Returns the pose of the specified landmark.
+	 *
+	 * @param landmark the index of the landmark
+	 * @return the {@code Pose2d} from {@code PoseConstants} (for landmarks that are
+	 *         only positions, a {@code Pose2d} facing along the x-axis)
+	 */
+	public static Pose2d pose(int landmark) {
+		return s_poses[landmark];
+	}
+}
@@ -0,0 +1,194 @@
+package frc.robot;
+
+import static edu.wpi.first.wpilibj2.command.Commands.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj2.command.Command;
+import frc.robot.subsystems.LimeLightSubsystem.Pose;
+
+/**
+ * The field landmarks, loaded once at startup from {@value #kFileName} in the
+ * deploy directory (or, if that file is missing or malformed, from the
+ * built-in defaults). Landmarks are given for the blue alliance; the red
+ * landmark is the mirror image of the blue one across the center line unless
+ * the file lists it under "red".
+ *
+ * Autonomous routines are built once in blue coordinates and wrapped with
+ * {@link #mirroredForAlliance(Command)}. While such a routine runs on the red
+ * alliance, {@link #resolve(Pose2d)} and {@link #resolve(Translation2d)}, which
+ * the drive commands apply to their targets when they start, return the mirror
+ * images of the blue targets.
+ */
+public class FieldModel {
+	/** The name of the field model file in the deploy directory. */
+	public static final String kFileName = "field.json";
+
+	private static final Map<String, Pose> s_blue = new HashMap<String, Pose>();
+	private static final Map<String, Pose> s_red = new HashMap<String, Pose>();
+
+	/** Whether a mirrored autonomous routine is running on the red alliance. */
+	private static boolean s_mirrored = false;
+
+	static {
+		s_blue.put("speaker", new Pose(-7.87, 1.45, 0));
+		s_blue.put("ampCorner", new Pose(-7.87, 3.75, 0));
+		s_blue.put("amp", new Pose(-6.44, 3.75, 90));
+		s_blue.put("noteOne", new Pose(-6.0 + 0.55, 2.82 - 0.25 + 0.4, 180 + 25));
+		s_blue.put("noteTwo", new Pose(-6.0 + 0.55 - 0.2, 1.45, 180));
+		// to avoid collision
+		s_blue.put("noteThree", new Pose(-6.0 + 0.45 - 0.2, 0.0 + 0.45 - 0.3, 180 - 25));
+		s_blue.put("centerNoteOne", new Pose(-0.2 + 0.2, 3.4, 180));
+		s_blue.put("centerNoteTwo", new Pose(-0.2 + 0.25 + 0.4, 1.7 + 0.25, 180 - 45));
+		s_blue.put("centerNoteThree", new Pose(-0.2 + 0.4, 0, 180));
+		s_blue.put("centerNoteFour", new Pose(-0.2 + 0.25, -1.7 + 0.05, 180 + 30));
+		s_blue.put("centerNoteFive", new Pose(-0.2 + 0.2, -3.4 + 0.3, 180 - 15));
+		s_blue.put("feeder", new Pose(0.0, -2.2, 180 - 15));
+		// the feeder is not symmetric
+		s_red.put("feeder", new Pose(0.0, -2.2, -25));
+		load(new File(Filesystem.getDeployDirectory(), kFileName));
+	}
+
+	/**
+	 * Replaces the built-in landmarks with those in the specified file.
+	 *
+	 * @param file a JSON file with a "blue" object and an optional "red" object,
+	 *             each mapping landmark names to [x, y, yaw in degrees]
+	 */
+	private static void load(File file) {
+		if (!file.exists()) {
+			System.err.println("field model not found, using defaults: " + file);
+			return;
+		}
+		try {
+			JsonNode root = new ObjectMapper().readTree(file);
+			var blue = new HashMap<String, Pose>();
+			var red = new HashMap<String, Pose>();
+			read(root.path("blue"), blue);
+			read(root.path("red"), red);
+			s_blue.putAll(blue);
+			s_red.putAll(red);
+		} catch (IOException | IllegalArgumentException e) {
+			System.err.println("field model error, using defaults: " + e.getMessage());
+		}
+	}
+
+	private static void read(JsonNode node, Map<String, Pose> poses) {
+		var fields = node.fields();
+		while (fields.hasNext()) {
+			var field = fields.next();
+			var value = field.getValue();
+			if (!value.isArray() || value.size() != 3)
+				throw new IllegalArgumentException("expected [x, y, yaw] for " + field.getKey());
+			poses.put(field.getKey(),
+					new Pose(value.get(0).asDouble(), value.get(1).asDouble(), value.get(2).asDouble()));
+		}
+	}
+
+	/**
+	 * Returns the specified landmark of the blue alliance.
+	 *
+	 * @param name the name of the landmark
+	 * @return the pose of the landmark
+	 */
+	public static Pose blue(String name) {
+		var pose = s_blue.get(name);
+		if (pose == null)
+			throw new IllegalArgumentException("unknown landmark: " + name);
+		return pose;
+	}
+
+	/**
+	 * Returns the specified landmark of the red alliance.
+	 *
+	 * @param name the name of the landmark
+	 * @return the pose of the landmark (the mirror image of the blue landmark
+	 *         unless the field model says otherwise)
+	 */
+	public static Pose red(String name) {
+		var pose = s_red.get(name);
+		return pose != null ? pose : mirror(blue(name));
+	}
+
+	/**
+	 * Returns the specified landmark of the specified alliance.
+	 *
+	 * @param name     the name of the landmark
+	 * @param alliance the alliance
+	 * @return the pose of the landmark
+	 */
+	public static Pose pose(String name, Alliance alliance) {
+		return alliance == Alliance.Red ? red(name) : blue(name);
+	}
+
+	/**
+	 * Returns the mirror image of the specified pose across the center line.
+	 *
+	 * @param pose a {@code Pose2d}
+	 * @return the mirror image of the pose
+	 */
+	public static Pose mirror(Pose2d pose) {
+		return new Pose(-pose.getX(), pose.getY(), 180 - pose.getRotation().getDegrees());
+	}
+
+	/**
+	 * Returns the mirror image of the specified position across the center line.
+	 *
+	 * @param position a {@code Translation2d}
+	 * @return the mirror image of the position
+	 */
+	public static Translation2d mirror(Translation2d position) {
+		return new Translation2d(-position.getX(), position.getY());
+	}
+
+	/**
+	 * Returns the specified target pose, given in blue coordinates, in the
+	 * coordinates of the running autonomous routine.
+	 *
+	 * @param pose the target pose in blue coordinates
+	 * @return the mirror image of the pose while a routine wrapped with
+	 *         {@link #mirroredForAlliance(Command)} runs on the red alliance;
+	 *         the pose itself otherwise
+	 */
+	public static Pose2d resolve(Pose2d pose) {
+		return s_mirrored ? mirror(pose) : pose;
+	}
+
+	/**
+	 * Returns the specified target position, given in blue coordinates, in the
+	 * coordinates of the running autonomous routine.
+	 *
+	 * @param position the target position in blue coordinates
+	 * @return the mirror image of the position while a routine wrapped with
+	 *         {@link #mirroredForAlliance(Command)} runs on the red alliance;
+	 *         the position itself otherwise
+	 */
+	public static Translation2d resolve(Translation2d position) {
+		return s_mirrored ? mirror(position) : position;
+	}
+
+	/**
+	 * Returns a command that runs the specified autonomous routine, built in
+	 * blue coordinates, mirrored for the red alliance if the robot is on the red
+	 * alliance when the command is scheduled.
+	 *
+	 * @param blueAuto the autonomous routine in blue coordinates
+	 * @return a command that runs the routine for the current alliance
+	 */
+	public static Command mirroredForAlliance(Command blueAuto) {
+		return sequence(
+				runOnce(() -> s_mirrored = DriverStation.getAlliance().orElse(Alliance.Blue) == Alliance.Red),
+				blueAuto).finallyDo(() -> s_mirrored = false);
+	}
+}
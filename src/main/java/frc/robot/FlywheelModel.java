@@ -0,0 +1,65 @@
+package frc.robot;
+
+/**
+ * A first-order model of a flywheel driven by a DC motor: a voltage {@code V}
+ * holds the flywheel at {@code (V - kS) / kV} in steady state, and the speed
+ * approaches that value exponentially with the time constant {@code kA / kV}
+ * (the same {@code kS}, {@code kV}, and {@code kA} a
+ * {@code SimpleMotorFeedforward} uses). While the speed is far from the
+ * setpoint, the velocity controller saturates and applies the full voltage,
+ * so the time to reach a speed follows from the model in closed form.
+ */
+public class FlywheelModel {
+	private final double m_kS;
+	private final double m_kV;
+	private final double m_kA;
+
+	/**
+	 * Constructs a {@code FlywheelModel}.
+	 *
+	 * @param kS the voltage needed to overcome static friction (volts)
+	 * @param kV the voltage per RPM in steady state (volts per RPM)
+	 * @param kA the voltage per RPM per second of acceleration (volts per RPM/s)
+	 */
+	public FlywheelModel(double kS, double kV, double kA) {
+		m_kS = kS;
+		m_kV = kV;
+		m_kA = kA;
+	}
+
+	/**
+	 * Returns the speed the flywheel settles at under the specified voltage.
+	 *
+	 * @param voltage the voltage applied to the motor (volts)
+	 * @return the steady-state speed in RPM
+	 */
+	public double steadyStateSpeed(double voltage) {
+		return Math.max(0, voltage - m_kS) / m_kV;
+	}
+
+	/**
+	 * Predicts the time it takes to bring the flywheel from the specified speed
+	 * to within the specified tolerance of the target speed, applying at most
+	 * the specified voltage in either direction.
+	 *
+	 * @param currentRPM   the current speed in RPM
+	 * @param targetRPM    the target speed in RPM
+	 * @param toleranceRPM the tolerance in RPM
+	 * @param voltage      the largest voltage available (volts)
+	 * @return the time in seconds (0 if already within the tolerance;
+	 *         {@code Double.POSITIVE_INFINITY} if the target cannot be reached)
+	 */
+	public double timeToSpeed(double currentRPM, double targetRPM, double toleranceRPM, double voltage) {
+		double error = targetRPM - currentRPM;
+		if (Math.abs(error) <= toleranceRPM)
+			return 0;
+		// work in the direction of the change so the limit is always ahead
+		double direction = Math.signum(error);
+		double limit = steadyStateSpeed(voltage);
+		double start = direction * currentRPM;
+		double goal = direction * targetRPM - toleranceRPM;
+		if (goal >= limit)
+			return Double.POSITIVE_INFINITY;
+		return m_kA / m_kV * Math.log((limit - start) / (limit - goal));
+	}
+}
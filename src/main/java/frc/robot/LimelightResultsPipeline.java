@@ -0,0 +1,281 @@
+package frc.robot;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import edu.wpi.first.networktables.NetworkTableEvent;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.NetworkTableListenerPoller;
+import edu.wpi.first.networktables.StringSubscriber;
+import edu.wpi.first.util.WPIUtilJNI;
+
+/**
+ * Parses the Limelight JSON results dump on a background thread. Whenever the
+ * "json" entry changes, the worker parses it with Jackson's streaming parser,
+ * keeping only the fields the robot uses, into one of three reusable
+ * {@link Snapshot}s, and hands it over to the robot loop through a lock-free
+ * triple buffer. {@link #latest()} never blocks and never parses.
+ *
+ * This replaces calling {@code LimelightHelper.getLatestResults} from the
+ * robot loop, which maps the whole dump into a new object graph each time.
+ */
+public class LimelightResultsPipeline {
+	/** The maximum number of fiducials kept per result. */
+	public static final int kMaxFiducials = 16;
+
+	/**
+	 * The fields of one Limelight result the robot uses. A {@code Snapshot}
+	 * returned by {@link LimelightResultsPipeline#latest()} stays unchanged
+	 * until the next call to {@code latest()}.
+	 */
+	public static class Snapshot {
+		/** The number of results parsed so far (0 if none has been parsed). */
+		public long sequence;
+		/** The time (NetworkTables time in seconds) the dump was received. */
+		public double receivedTimestamp;
+		/** The time the parse took in milliseconds. */
+		public double parseMillis;
+		public boolean valid;
+		public double pipelineID;
+		public double latencyPipeline;
+		public double latencyCapture;
+		public double timestampLimelightPublish;
+		public final double[] botpose = new double[6];
+		public final double[] botposeWpiBlue = new double[6];
+		public final double[] botposeWpiRed = new double[6];
+		public final double[] cameraPoseRobotSpace = new double[6];
+		public int fiducialCount;
+		public final int[] fiducialIds = new int[kMaxFiducials];
+		public final double[] fiducialTx = new double[kMaxFiducials];
+		public final double[] fiducialTy = new double[kMaxFiducials];
+		public final double[] fiducialArea = new double[kMaxFiducials];
+		/** The distance from the camera to each fiducial in meters. */
+		public final double[] fiducialDistance = new double[kMaxFiducials];
+
+		/**
+		 * Clears the fields that may be missing from a dump.
+		 */
+		void clear() {
+			valid = false;
+			pipelineID = 0;
+			latencyPipeline = 0;
+			latencyCapture = 0;
+			timestampLimelightPublish = 0;
+			for (int i = 0; i < 6; i++) {
+				botpose[i] = 0;
+				botposeWpiBlue[i] = 0;
+				botposeWpiRed[i] = 0;
+				cameraPoseRobotSpace[i] = 0;
+			}
+			fiducialCount = 0;
+		}
+	}
+
+	private static final int kDirty = 4;
+
+	private final StringSubscriber m_subscriber;
+	private final JsonFactory m_factory = new JsonFactory();
+	private final Snapshot[] m_buffers = { new Snapshot(), new Snapshot(), new Snapshot() };
+	/**
+	 * The index of the buffer in the middle of the handoff, plus {@code kDirty}
+	 * if the worker has filled it since the robot loop last took it.
+	 */
+	private final AtomicInteger m_middle = new AtomicInteger(1);
+	/** The buffer the worker fills (only used by the worker). */
+	private int m_back = 2;
+	/** The buffer the robot loop reads (only used by the robot loop). */
+	private int m_front = 0;
+	private final double[] m_targetPose = new double[6];
+	private long m_sequence = 0;
+
+	/**
+	 * Constructs a {@code LimelightResultsPipeline} and starts its worker thread.
+	 *
+	 * @param limelightName the name of the Limelight table
+	 */
+	public LimelightResultsPipeline(String limelightName) {
+		m_subscriber = NetworkTableInstance.getDefault().getTable(limelightName).getStringTopic("json")
+				.subscribe("");
+		var thread = new Thread(this::run, limelightName + " JSON");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Returns the latest completely parsed result. Never blocks.
+	 *
+	 * @return the latest result (its {@code sequence} is 0 if nothing has been
+	 *         parsed yet); it stays unchanged until the next call
+	 */
+	public Snapshot latest() {
+		if ((m_middle.get() & kDirty) != 0)
+			m_front = m_middle.getAndSet(m_front) & ~kDirty;
+		return m_buffers[m_front];
+	}
+
+	/**
+	 * Waits for the "json" entry to change and parses it, until interrupted.
+	 */
+	private void run() {
+		try (var poller = new NetworkTableListenerPoller(NetworkTableInstance.getDefault())) {
+			poller.addListener(m_subscriber, EnumSet.of(NetworkTableEvent.Kind.kValueAll));
+			while (!Thread.currentThread().isInterrupted()) {
+				if (WPIUtilJNI.waitForObjectTimeout(poller.getHandle(), 0.5))
+					continue; // timed out
+				poller.readQueue();
+				String json = m_subscriber.get();
+				if (json.isEmpty())
+					continue;
+				var snapshot = m_buffers[m_back];
+				long start = System.nanoTime();
+				try (var parser = m_factory.createParser(json)) {
+					if (!parse(parser, snapshot, m_targetPose))
+						continue;
+				} catch (IOException e) {
+					System.err.println("lljson error: " + e.getMessage());
+					continue;
+				}
+				snapshot.parseMillis = (System.nanoTime() - start) / 1e6;
+				snapshot.receivedTimestamp = m_subscriber.getLastChange() / 1e6;
+				snapshot.sequence = ++m_sequence;
+				// hand the filled buffer over and take back the one in the middle
+				m_back = m_middle.getAndSet(m_back | kDirty) & ~kDirty;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Parses a Limelight JSON results dump into the specified {@code Snapshot},
+	 * skipping the fields the robot does not use.
+	 *
+	 * @param parser     a {@code JsonParser} positioned before the dump
+	 * @param snapshot   the {@code Snapshot} to fill
+	 * @param targetPose a buffer of at least 6 elements
+	 * @return {@code false} if the dump is not a JSON object
+	 * @throws IOException if the dump is malformed
+	 */
+	static boolean parse(JsonParser parser, Snapshot snapshot, double[] targetPose) throws IOException {
+		snapshot.clear();
+		if (parser.nextToken() != JsonToken.START_OBJECT)
+			return false;
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String name = parser.getCurrentName();
+			if (parser.nextToken() == JsonToken.START_OBJECT && name.equals("Results"))
+				parseResults(parser, snapshot, targetPose);
+			else
+				parser.skipChildren();
+		}
+		return true;
+	}
+
+	private static void parseResults(JsonParser parser, Snapshot snapshot, double[] targetPose)
+			throws IOException {
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String name = parser.getCurrentName();
+			parser.nextToken();
+			switch (name) {
+				case "pID":
+					snapshot.pipelineID = parser.getValueAsDouble();
+					break;
+				case "tl":
+					snapshot.latencyPipeline = parser.getValueAsDouble();
+					break;
+				case "cl":
+					snapshot.latencyCapture = parser.getValueAsDouble();
+					break;
+				case "ts":
+					snapshot.timestampLimelightPublish = parser.getValueAsDouble();
+					break;
+				case "v":
+					snapshot.valid = parser.getValueAsInt() != 0;
+					break;
+				case "botpose":
+					readArray(parser, snapshot.botpose);
+					break;
+				case "botpose_wpiblue":
+					readArray(parser, snapshot.botposeWpiBlue);
+					break;
+				case "botpose_wpired":
+					readArray(parser, snapshot.botposeWpiRed);
+					break;
+				case "t6c_rs":
+					readArray(parser, snapshot.cameraPoseRobotSpace);
+					break;
+				case "Fiducial":
+					parseFiducials(parser, snapshot, targetPose);
+					break;
+				default:
+					parser.skipChildren();
+			}
+		}
+	}
+
+	private static void parseFiducials(JsonParser parser, Snapshot snapshot, double[] targetPose)
+			throws IOException {
+		if (parser.currentToken() != JsonToken.START_ARRAY) {
+			parser.skipChildren();
+			return;
+		}
+		while (parser.nextToken() == JsonToken.START_OBJECT) {
+			int i = snapshot.fiducialCount;
+			if (i >= kMaxFiducials) {
+				parser.skipChildren();
+				continue;
+			}
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String name = parser.getCurrentName();
+				parser.nextToken();
+				switch (name) {
+					case "fID":
+						snapshot.fiducialIds[i] = parser.getValueAsInt();
+						break;
+					case "tx":
+						snapshot.fiducialTx[i] = parser.getValueAsDouble();
+						break;
+					case "ty":
+						snapshot.fiducialTy[i] = parser.getValueAsDouble();
+						break;
+					case "ta":
+						snapshot.fiducialArea[i] = parser.getValueAsDouble();
+						break;
+					case "t6t_cs":
+						readArray(parser, targetPose);
+						snapshot.fiducialDistance[i] = Math.sqrt(targetPose[0] * targetPose[0]
+								+ targetPose[1] * targetPose[1] + targetPose[2] * targetPose[2]);
+						break;
+					default:
+						parser.skipChildren();
+				}
+			}
+			snapshot.fiducialCount++;
+		}
+	}
+
+	/**
+	 * Reads a JSON array of numbers into the specified array, dropping the
+	 * numbers that do not fit.
+	 *
+	 * @param parser a {@code JsonParser} positioned at the start of the array
+	 * @param values the array to store the numbers in
+	 * @throws IOException if the dump is malformed
+	 */
+	private static void readArray(JsonParser parser, double[] values) throws IOException {
+		if (parser.currentToken() != JsonToken.START_ARRAY) {
+			parser.skipChildren();
+			return;
+		}
+		int i = 0;
+		while (parser.nextToken() != JsonToken.END_ARRAY) {
+			if (i < values.length)
+				values[i] = parser.getValueAsDouble();
+			i++;
+		}
+	}
+}
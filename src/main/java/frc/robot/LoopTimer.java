@@ -0,0 +1,332 @@
+package frc.robot;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.StructArrayPublisher;
+import edu.wpi.first.util.struct.Struct;
+import edu.wpi.first.wpilibj2.command.Command;
+
+/**
+ * Records how long each part of the robot loop takes. Each {@link Section}
+ * keeps a preallocated histogram of its durations in nanoseconds, so recording
+ * does not allocate. Once per second the p50, p99, and max of every section
+ * are published to the "/LoopTiming" struct-array topic (which the DataLog
+ * picks up along with the rest of NetworkTables) and the histograms start
+ * over.
+ *
+ * The scheduler itself is split up with markers: {@link #loopStarted()} and
+ * {@link #loopFinished()} around {@code CommandScheduler.run()},
+ * {@link #subsystemsFinished()} bound first and {@link #buttonsFinished()}
+ * bound last to the default button loop (which the scheduler polls after the
+ * subsystem periodics and before the commands), and
+ * {@link #commandExecuted(Command)} registered with {@code onCommandExecute}.
+ * Commands are timed by name, at most {@code kMaxCommandSections} of them (the
+ * rest share one section), and the section of a command is dropped once its
+ * last statistics have been published after it ends
+ * ({@link #commandEnded(Command)}). Subsystems time their own
+ * {@code periodic()} with a {@link Section}.
+ */
+public class LoopTimer {
+	/** The width of each histogram bucket in nanoseconds (20 microseconds). */
+	static final long kBucketWidth = 20_000;
+	/** The number of histogram buckets (the last one holds 20 ms and above). */
+	static final int kBuckets = 1000;
+	/** The number of bytes the name of a section takes in the struct. */
+	static final int kNameLength = 32;
+	/** How often the statistics are published in nanoseconds. */
+	static final long kPublishPeriod = 1_000_000_000;
+	/** The number of commands timed in their own sections. */
+	static final int kMaxCommandSections = 32;
+
+	/**
+	 * A part of the robot loop whose duration is recorded.
+	 */
+	public static class Section {
+		private final String m_name;
+		private final byte[] m_nameBytes = new byte[kNameLength];
+		private final int[] m_histogram = new int[kBuckets];
+		private int m_count = 0;
+		private long m_max = 0;
+		private long m_start = 0;
+		// The statistics last published (in milliseconds)
+		private double m_p50 = 0;
+		private double m_p99 = 0;
+		private double m_maxMillis = 0;
+		private int m_publishedCount = 0;
+		/** Whether the command timed by this section has ended since it last ran. */
+		private boolean m_ended = false;
+
+		Section(String name) {
+			m_name = name;
+			byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+			System.arraycopy(bytes, 0, m_nameBytes, 0, Math.min(bytes.length, kNameLength));
+		}
+
+		/**
+		 * Returns the name of this {@code Section}.
+		 *
+		 * @return the name of this {@code Section}
+		 */
+		public String getName() {
+			return m_name;
+		}
+
+		/**
+		 * Starts timing this {@code Section}.
+		 */
+		public void start() {
+			m_start = System.nanoTime();
+		}
+
+		/**
+		 * Stops timing this {@code Section} and records the time since
+		 * {@link #start()}.
+		 */
+		public void stop() {
+			record(System.nanoTime() - m_start);
+		}
+
+		/**
+		 * Records the specified duration.
+		 *
+		 * @param nanos the duration in nanoseconds
+		 */
+		public void record(long nanos) {
+			int bucket = (int) Math.min(nanos / kBucketWidth, kBuckets - 1);
+			m_histogram[Math.max(bucket, 0)]++;
+			m_count++;
+			m_max = Math.max(m_max, nanos);
+		}
+
+		/**
+		 * Calculates the statistics of the durations recorded since the last call
+		 * and clears the histogram.
+		 */
+		void summarize() {
+			m_p50 = percentile(0.5) / 1e6;
+			m_p99 = percentile(0.99) / 1e6;
+			m_maxMillis = m_max / 1e6;
+			m_publishedCount = m_count;
+			for (int i = 0; i < kBuckets; i++)
+				m_histogram[i] = 0;
+			m_count = 0;
+			m_max = 0;
+		}
+
+		/**
+		 * Returns the specified percentile of the recorded durations (the upper
+		 * bound of the bucket it falls into, but no more than the max).
+		 *
+		 * @param p the percentile between 0 and 1
+		 * @return the percentile in nanoseconds
+		 */
+		private long percentile(double p) {
+			if (m_count == 0)
+				return 0;
+			long rank = (long) Math.ceil(p * m_count);
+			long seen = 0;
+			for (int i = 0; i < kBuckets - 1; i++) {
+				seen += m_histogram[i];
+				if (seen >= rank)
+					return Math.min((i + 1) * kBucketWidth, m_max);
+			}
+			return m_max;
+		}
+	}
+
+	/**
+	 * Packs the statistics of {@link Section}s for NetworkTables and the DataLog.
+	 */
+	public static class SectionStruct implements Struct<Section> {
+		@Override
+		public Class<Section> getTypeClass() {
+			return Section.class;
+		}
+
+		@Override
+		public String getTypeString() {
+			return "struct:LoopTiming";
+		}
+
+		@Override
+		public int getSize() {
+			return kNameLength + kSizeDouble * 3 + kSizeInt32;
+		}
+
+		@Override
+		public String getSchema() {
+			return "char name[" + kNameLength + "];double p50_ms;double p99_ms;double max_ms;int32 count";
+		}
+
+		@Override
+		public Section unpack(ByteBuffer bb) {
+			byte[] bytes = new byte[kNameLength];
+			bb.get(bytes);
+			int length = 0;
+			while (length < kNameLength && bytes[length] != 0)
+				length++;
+			var section = new Section(new String(bytes, 0, length, StandardCharsets.UTF_8));
+			section.m_p50 = bb.getDouble();
+			section.m_p99 = bb.getDouble();
+			section.m_maxMillis = bb.getDouble();
+			section.m_publishedCount = bb.getInt();
+			return section;
+		}
+
+		@Override
+		public void pack(ByteBuffer bb, Section value) {
+			bb.put(value.m_nameBytes);
+			bb.putDouble(value.m_p50);
+			bb.putDouble(value.m_p99);
+			bb.putDouble(value.m_maxMillis);
+			bb.putInt(value.m_publishedCount);
+		}
+	}
+
+	public static final SectionStruct struct = new SectionStruct();
+
+	private static final ArrayList<Section> s_sectionList = new ArrayList<Section>();
+	private static Section[] s_sections = new Section[0];
+	/** The sections of the commands, by name. */
+	private static final HashMap<String, Section> s_commandSections = new HashMap<String, Section>();
+	/** The section shared by the commands beyond {@code kMaxCommandSections}. */
+	private static Section s_otherCommands;
+	private static StructArrayPublisher<Section> s_publisher;
+
+	private static final Section s_loopPeriod = section("Loop period");
+	private static final Section s_scheduler = section("CommandScheduler.run");
+	private static final Section s_subsystems = section("Subsystem periodics");
+	private static final Section s_buttons = section("Button bindings");
+
+	private static long s_loopStart = 0;
+	private static long s_mark = 0;
+	private static long s_lastPublish = 0;
+
+	/**
+	 * Creates a {@code Section} whose statistics will be published. Should be
+	 * called during initialization (for example, from a field initializer).
+	 *
+	 * @param name the name of the {@code Section} (up to 32 bytes are published)
+	 * @return the {@code Section}
+	 */
+	public static Section section(String name) {
+		var section = new Section(name);
+		s_sectionList.add(section);
+		s_sections = s_sectionList.toArray(new Section[0]);
+		return section;
+	}
+
+	/**
+	 * Returns the {@code Section} timing the specified {@code Command}, creating
+	 * it the first time a command with that name runs.
+	 *
+	 * @param command a {@code Command}
+	 * @return the {@code Section}
+	 */
+	private static Section commandSection(Command command) {
+		var section = s_commandSections.get(command.getName());
+		if (section != null)
+			return section;
+		if (s_commandSections.size() < kMaxCommandSections) {
+			section = section(command.getName());
+			s_commandSections.put(command.getName(), section);
+			return section;
+		}
+		if (s_otherCommands == null)
+			s_otherCommands = section("Other commands");
+		return s_otherCommands;
+	}
+
+	/**
+	 * Marks the start of the robot loop. Call right before
+	 * {@code CommandScheduler.run()}.
+	 */
+	public static void loopStarted() {
+		long now = System.nanoTime();
+		if (s_loopStart != 0)
+			s_loopPeriod.record(now - s_loopStart);
+		s_loopStart = now;
+		s_mark = now;
+	}
+
+	/**
+	 * Marks the end of the subsystem periodics. Bind to the default button loop
+	 * before any other binding.
+	 */
+	public static void subsystemsFinished() {
+		long now = System.nanoTime();
+		s_subsystems.record(now - s_mark);
+		s_mark = now;
+	}
+
+	/**
+	 * Marks the end of the button bindings. Bind to the default button loop after
+	 * all other bindings.
+	 */
+	public static void buttonsFinished() {
+		long now = System.nanoTime();
+		s_buttons.record(now - s_mark);
+		s_mark = now;
+	}
+
+	/**
+	 * Records the time since the previous marker as the time the specified
+	 * {@code Command} took to execute. Register with
+	 * {@code CommandScheduler.onCommandExecute}.
+	 *
+	 * @param command the {@code Command} that has just been executed
+	 */
+	public static void commandExecuted(Command command) {
+		long now = System.nanoTime();
+		var section = commandSection(command);
+		section.m_ended = false;
+		section.record(now - s_mark);
+		s_mark = now;
+	}
+
+	/**
+	 * Marks the section of the specified {@code Command} to be dropped once its
+	 * statistics have been published, unless a command with the same name runs
+	 * again before then. Register with {@code CommandScheduler.onCommandFinish}
+	 * and {@code onCommandInterrupt}.
+	 *
+	 * @param command the {@code Command} that has just ended
+	 */
+	public static void commandEnded(Command command) {
+		var section = s_commandSections.get(command.getName());
+		if (section != null)
+			section.m_ended = true;
+	}
+
+	/**
+	 * Drops the sections of the commands that have ended.
+	 */
+	private static void dropEndedCommands() {
+		if (!s_commandSections.values().removeIf(section -> section.m_ended))
+			return;
+		s_sectionList.removeIf(section -> section.m_ended);
+		s_sections = s_sectionList.toArray(new Section[0]);
+	}
+
+	/**
+	 * Marks the end of the robot loop and publishes the statistics once per
+	 * second. Call right after {@code CommandScheduler.run()}.
+	 */
+	public static void loopFinished() {
+		long now = System.nanoTime();
+		s_scheduler.record(now - s_loopStart);
+		if (now - s_lastPublish >= kPublishPeriod) {
+			s_lastPublish = now;
+			for (var section : s_sections)
+				section.summarize();
+			if (s_publisher == null)
+				s_publisher = NetworkTableInstance.getDefault().getStructArrayTopic("/LoopTiming", struct).publish();
+			s_publisher.set(s_sections);
+			dropEndedCommands();
+		}
+	}
+}
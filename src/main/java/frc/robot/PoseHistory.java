@@ -0,0 +1,167 @@
+package frc.robot;
+
+import java.lang.invoke.VarHandle;
+
+import edu.wpi.first.math.MathUtil;
+
+/**
+ * A fixed-size ring buffer of timestamped poses kept in primitive arrays. One
+ * thread at a time may add poses while any number of threads read them without
+ * locking: a reader copies a sample and then checks that the writer has not
+ * wrapped around onto it in the meantime, retrying if it has (a sequence
+ * lock). Neither adding nor reading allocates objects.
+ *
+ * Poses are stored as x and y in meters and the heading in radians.
+ */
+public class PoseHistory {
+	private final int m_capacity;
+	private final double[] m_timestamps;
+	private final double[] m_x;
+	private final double[] m_y;
+	private final double[] m_heading;
+	/** The number of poses ever added (the next pose goes at this index). */
+	private volatile long m_count = 0;
+
+	/**
+	 * Constructs a {@code PoseHistory}.
+	 *
+	 * @param capacity the number of poses to keep
+	 */
+	public PoseHistory(int capacity) {
+		m_capacity = capacity;
+		m_timestamps = new double[capacity];
+		m_x = new double[capacity];
+		m_y = new double[capacity];
+		m_heading = new double[capacity];
+	}
+
+	/**
+	 * Adds a pose. Only one thread may call this at a time.
+	 *
+	 * @param timestamp      the time of the pose in seconds (FPGA time)
+	 * @param x              the x-coordinate value of the robot
+	 * @param y              the y-coordinate value of the robot
+	 * @param headingRadians the heading of the robot in radians
+	 */
+	public void add(double timestamp, double x, double y, double headingRadians) {
+		long count = m_count;
+		int i = (int) (count % m_capacity);
+		m_timestamps[i] = timestamp;
+		m_x[i] = x;
+		m_y[i] = y;
+		m_heading[i] = headingRadians;
+		// the volatile write publishes the sample to the readers
+		m_count = count + 1;
+	}
+
+	/**
+	 * Returns the timestamp of the most recent pose.
+	 *
+	 * @return the timestamp of the most recent pose in seconds or {@code NaN} if
+	 *         no pose has been added
+	 */
+	public double getLatestTimestamp() {
+		while (true) {
+			long count = m_count;
+			if (count == 0)
+				return Double.NaN;
+			double timestamp = m_timestamps[(int) ((count - 1) % m_capacity)];
+			if (isIntact(count - 1))
+				return timestamp;
+		}
+	}
+
+	/**
+	 * Copies the most recent pose into the specified array.
+	 *
+	 * @param pose the array to store x, y, and heading (in radians) in
+	 * @return the timestamp of the pose in seconds or {@code NaN} if no pose has
+	 *         been added (in which case the array is left untouched)
+	 */
+	public double getLatest(double[] pose) {
+		while (true) {
+			long count = m_count;
+			if (count == 0)
+				return Double.NaN;
+			int i = (int) ((count - 1) % m_capacity);
+			double timestamp = m_timestamps[i];
+			double x = m_x[i];
+			double y = m_y[i];
+			double heading = m_heading[i];
+			if (isIntact(count - 1)) {
+				pose[0] = x;
+				pose[1] = y;
+				pose[2] = heading;
+				return timestamp;
+			}
+		}
+	}
+
+	/**
+	 * Copies the pose at the specified time into the specified array,
+	 * interpolating linearly between the two poses around that time. Times
+	 * before the oldest pose or after the newest pose are clamped to that pose.
+	 *
+	 * @param timestamp the time in seconds (FPGA time)
+	 * @param pose      the array to store x, y, and heading (in radians) in
+	 * @return {@code true} if the pose was found; {@code false} if no pose has
+	 *         been added (in which case the array is left untouched)
+	 */
+	public boolean sample(double timestamp, double[] pose) {
+		while (true) {
+			long count = m_count;
+			if (count == 0)
+				return false;
+			// leave one slot of slack for the sample the writer may be filling
+			long oldest = Math.max(0, count - m_capacity + 1);
+			long newest = count - 1;
+			// binary search for the last sample at or before the timestamp
+			long low = oldest;
+			long high = newest;
+			if (timestamp <= m_timestamps[(int) (oldest % m_capacity)]) {
+				high = low;
+			} else {
+				while (low < high) {
+					long mid = (low + high + 1) >>> 1;
+					if (m_timestamps[(int) (mid % m_capacity)] <= timestamp)
+						low = mid;
+					else
+						high = mid - 1;
+				}
+			}
+			int i = (int) (low % m_capacity);
+			double t0 = m_timestamps[i];
+			double x = m_x[i];
+			double y = m_y[i];
+			double heading = m_heading[i];
+			if (low < newest && timestamp > t0) {
+				int j = (int) ((low + 1) % m_capacity);
+				double t1 = m_timestamps[j];
+				double s = t1 > t0 ? (timestamp - t0) / (t1 - t0) : 0;
+				x += (m_x[j] - x) * s;
+				y += (m_y[j] - y) * s;
+				heading += MathUtil.angleModulus(m_heading[j] - heading) * s;
+			}
+			if (isIntact(oldest)) {
+				pose[0] = x;
+				pose[1] = y;
+				pose[2] = heading;
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Determines whether the sample with the specified index (and every newer
+	 * one) has not been overwritten since it was read.
+	 *
+	 * @param index the index of the oldest sample that was read
+	 * @return {@code true} if the samples read are still intact
+	 */
+	private boolean isIntact(long index) {
+		// make sure the samples are read before the count is checked again
+		VarHandle.loadLoadFence();
+		// the writer starts overwriting index once m_count reaches index + capacity
+		return m_count < index + m_capacity;
+	}
+}
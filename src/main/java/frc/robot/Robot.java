@@ -19,6 +19,7 @@ import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.Constants.DeviceConstants;
 
 /**
  * The VM is configured to automatically run this class, and to call the
@@ -44,7 +45,18 @@ public class Robot extends TimedRobot {
 		URCL.start(Map.of(10, "FR Drive", 11, "FR Turn", 20, "BR Drive", 21, "BR Turn", 30, "BL Drive", 31, "BL Turn",
 				40, "FL Drive", 41, "FL Turn"));
 		DriverStation.startDataLog(DataLogManager.getLog());
+		// Time the phases of the scheduler (see LoopTimer)
+		var scheduler = CommandScheduler.getInstance();
+		scheduler.getDefaultButtonLoop().bind(LoopTimer::subsystemsFinished);
 		m_robotContainer = new RobotContainer();
+		scheduler.getDefaultButtonLoop().bind(LoopTimer::buttonsFinished);
+		// The subsystems configure their motor controllers concurrently
+		if (!DeviceConfigurator.awaitAll(DeviceConstants.kConfigurationTimeout))
+			DriverStation.reportWarning("Some motor controllers were not configured (see the log)", false);
+		CanBudget.report();
+		scheduler.onCommandExecute(LoopTimer::commandExecuted);
+		scheduler.onCommandFinish(LoopTimer::commandEnded);
+		scheduler.onCommandInterrupt(LoopTimer::commandEnded);
 		if (RobotBase.isReal()) {
 			UsbCamera camera = CameraServer.startAutomaticCapture();
 			camera.setVideoMode(PixelFormat.kMJPEG, 160, 120, 30);
@@ -69,7 +81,11 @@ public class Robot extends TimedRobot {
 		 * This must be called from the robot's periodic block in order for anything
 		 * in the Command-based framework to work.
 		 */
+		LoopTimer.loopStarted();
 		CommandScheduler.getInstance().run();
+		CanBudget.periodic();
+		Telemetry.flush();
+		LoopTimer.loopFinished();
 	}
 
 	/** This function is called once each time the robot enters Disabled mode. */
@@ -79,6 +95,7 @@ public class Robot extends TimedRobot {
 
 	@Override
 	public void disabledPeriodic() {
+		m_robotContainer.prepareAutonomousCommand();
 	}
 
 	/**
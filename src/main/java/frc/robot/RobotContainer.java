@@ -9,17 +9,18 @@ import static edu.wpi.first.wpilibj2.command.Commands.*;
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.GenericHID;
 import edu.wpi.first.wpilibj.XboxController;
-import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.WaitCommand;
 import edu.wpi.first.wpilibj2.command.button.CommandGenericHID;
 import edu.wpi.first.wpilibj2.command.button.Trigger;
 import edu.wpi.first.wpilibj2.command.sysid.SysIdRoutine.Direction;
+import frc.robot.Constants.AutoConstants;
 import frc.robot.Constants.ControllerConstants;
 import frc.robot.Constants.ControllerConstants.Axis;
 import frc.robot.Constants.ControllerConstants.Button;
-import frc.robot.Targeter.RegressionTargeter;
+import frc.robot.Constants.ShotConstants;
+import frc.robot.Targeter.TableTargeter;
 import frc.robot.commands.aimshooter.AimHeightCommand;
 import frc.robot.commands.aimshooter.AimHeightCommand.AimHeightOperation;
 import frc.robot.commands.aimshooter.AimerDriveCommand;
@@ -45,6 +46,7 @@ import frc.robot.subsystems.LimeLightSubsystem;
 import frc.robot.subsystems.PneumaticsSubsystem;
 import frc.robot.subsystems.PoseEstimationSubsystem;
 import frc.robot.subsystems.SimpleVisionSubsystem;
+import frc.robot.subsystems.WarmUpSubsystem;
 
 /**
  * This class is where the bulk of the robot should be declared. Since
@@ -63,15 +65,17 @@ public class RobotContainer {
 	private final ClimberSubsystem m_climberSubsystem = new ClimberSubsystem();
 	private final PneumaticsSubsystem m_pneumaticsSubsystem = new PneumaticsSubsystem();
 	private final AimerSubsystem m_aimerSubsystem = new AimerSubsystem();
-	private final RegressionTargeter m_targeter = new RegressionTargeter();
-	private final SendableChooser<Command> m_autoSelector = new SendableChooser<Command>();
+	private final Targeter m_targeter = new TableTargeter();
+	private final WarmUpSubsystem m_warmUpSubsystem = new WarmUpSubsystem(m_targeter);
+	private final AutoRegistry m_autoSelector = new AutoRegistry(AutoConstants.kSelectionSettleTime);
 	private final IndexerSubsystem m_indexerSubsystem = new IndexerSubsystem();
 	private final SimpleVisionSubsystem m_visionSubsystem = new SimpleVisionSubsystem();
 	private final FlywheelSubsystem m_flywheelSubsystem = new FlywheelSubsystem();
 	private final IntakeSubsystem m_intakeSubsystem = new IntakeSubsystem();
 	final LimeLightSubsystem m_limeLightSubsystem = new PoseEstimationSubsystem() {
 		{
-			addPoseSupplier("BotPose@Odometry", () -> m_driveSubsystem.getPose());
+			addPoseSupplier("BotPose@Odometry", m_driveSubsystem.getPoseHistory());
+			setOdometryHistory(m_driveSubsystem.getPoseHistory());
 		}
 	};
 
@@ -88,14 +92,24 @@ public class RobotContainer {
 		// TurnToAngleCommand(m_driveSubsystem, 90.0, 0.5, true));
 		// m_autoSelector.addOption("Bang Bang Drive 2 Meters",
 		// new BangBangDriveDistanceCommand(m_driveSubsystem, 2, 0.01));
-		m_autoSelector.addOption("Sysid Dynamic Forward", m_driveSubsystem.sysidDynamic(Direction.kForward));
-		m_autoSelector.addOption("Sysid Dynamic Backward", m_driveSubsystem.sysidDynamic(Direction.kReverse));
-		m_autoSelector.addOption("Sysid Quasistatic Forward", m_driveSubsystem.sysidQuasistatic(Direction.kForward));
-		m_autoSelector.addOption("Sysid Quasistatic Backward", m_driveSubsystem.sysidQuasistatic(Direction.kReverse));
-		m_autoSelector.addOption("Polar Drive Two Meters", new PolarDriveCommand(m_driveSubsystem, 2, 180));
-		m_autoSelector.addOption("Shoot and Leave Auto", CommandComposer.getShootAndLeaveAuto());
-		m_autoSelector.addOption("Middle Two Score", CommandComposer.getTwoScoreMiddleAuto());
-		m_autoSelector.addOption("Amp and Leave", CommandComposer.getAmpAndLeave());
+		m_autoSelector.addOption("Sysid Dynamic Forward", () -> m_driveSubsystem.sysidDynamic(Direction.kForward));
+		m_autoSelector.addOption("Sysid Dynamic Backward", () -> m_driveSubsystem.sysidDynamic(Direction.kReverse));
+		m_autoSelector.addOption("Sysid Quasistatic Forward",
+				() -> m_driveSubsystem.sysidQuasistatic(Direction.kForward));
+		m_autoSelector.addOption("Sysid Quasistatic Backward",
+				() -> m_driveSubsystem.sysidQuasistatic(Direction.kReverse));
+		m_autoSelector.addOption("Flywheel Sysid Dynamic Forward",
+				() -> m_flywheelSubsystem.sysidDynamic(Direction.kForward));
+		m_autoSelector.addOption("Flywheel Sysid Dynamic Backward",
+				() -> m_flywheelSubsystem.sysidDynamic(Direction.kReverse));
+		m_autoSelector.addOption("Flywheel Sysid Quasistatic Forward",
+				() -> m_flywheelSubsystem.sysidQuasistatic(Direction.kForward));
+		m_autoSelector.addOption("Flywheel Sysid Quasistatic Backward",
+				() -> m_flywheelSubsystem.sysidQuasistatic(Direction.kReverse));
+		m_autoSelector.addOption("Polar Drive Two Meters", () -> new PolarDriveCommand(m_driveSubsystem, 2, 180));
+		m_autoSelector.addOption("Shoot and Leave Auto", CommandComposer::getShootAndLeaveAuto);
+		m_autoSelector.addOption("Middle Two Score", CommandComposer::getTwoScoreMiddleAuto);
+		m_autoSelector.addOption("Amp and Leave", CommandComposer::getAmpAndLeave);
 		// m_autoSelector.addOption("Right Two Score Blue",
 		// CommandComposer.getTwoScoreRightAutoBlue());
 		// m_autoSelector.addOption("Right Two Score Red",
@@ -122,39 +136,34 @@ public class RobotContainer {
 		// CommandComposer.getFourScoreLeftAutoRed());
 		// m_autoSelector.addOption("Five Score RED Auto (Start on Left)",
 		// CommandComposer.getFiveScoreRedAutoCommand());
-		m_autoSelector.addOption("Five Score BLUE Auto (Start on Right)",
-				CommandComposer.getFiveScoreBlue321C1());
-		m_autoSelector.addOption("Five Score RED Auto (Start on Left)",
-				CommandComposer.getFiveScoreRed321C1());
-		m_autoSelector.addOption("Four Score @red 3, middle 5, and middle 4 RED Auto (Start on Left)",
-				CommandComposer.getTwoMiddleFourScoreRedCommand());
-		m_autoSelector.addOption("Four Score @blue 3, middle 5, and middle 4 BLUE Auto (Start on Right)",
-				CommandComposer.getTwoMiddleFourScoreBlueCommand());
+		// the autos below built for BLUE are mirrored for RED when they start
+		m_autoSelector.addOption("Five Score Auto (BLUE: Start on Right, RED: Start on Left)",
+				() -> FieldModel.mirroredForAlliance(CommandComposer.getFiveScoreBlue321C1()));
+		m_autoSelector.addOption(
+				"Four Score @3, middle 5, and middle 4 Auto (BLUE: Start on Right, RED: Start on Left)",
+				() -> FieldModel.mirroredForAlliance(CommandComposer.getTwoMiddleFourScoreBlueCommand()));
 		m_autoSelector.addOption("Four Score @middle 3, middle 4, and middle 5 RED Auto (Start on Left)",
-				CommandComposer.getThreeMiddleFourScoreRedCommand());
+				CommandComposer::getThreeMiddleFourScoreRedCommand);
 		m_autoSelector.addOption("Four Score @middle 3, middle 4, and middle 5 BLUE Auto (Start on Right)",
-				CommandComposer.getThreeMiddleFourScoreBlueCommand());
-		m_autoSelector.addOption("Three Score @middle 4 and middle 5 BLUE Auto (Start on Right, New)",
-				CommandComposer.getThreeScoreBlueC4C5());
-		m_autoSelector.addOption("Three Score @middle 4 and middle 5 RED Auto (Start on Right, New)",
-				CommandComposer.getThreeScoreRedC4C5());
+				CommandComposer::getThreeMiddleFourScoreBlueCommand);
+		m_autoSelector.addOption("Three Score @middle 4 and middle 5 Auto (Start on Right, New)",
+				() -> FieldModel.mirroredForAlliance(CommandComposer.getThreeScoreBlueC4C5()));
 		// m_autoSelector.addOption("Three Score @middle 4 and middle 5 BLUE Auto (Start
 		// on Right)",
 		// CommandComposer.getThreeScoreTwoMiddleBottomBlueAuto());
 		// m_autoSelector.addOption("Three Score @middle 4 and middle 5 RED Auto (Start
 		// on Right)",
 		// CommandComposer.getThreeScoreTwoMiddleBottomRedAuto());
-		m_autoSelector.addOption("Four Score @blue1, middle 1, and middle 2 BLUE Auto (Start on Left)",
-				CommandComposer.getFourScoreTwoMiddleTopBlueAuto());
-		m_autoSelector.addOption("Four Score @red 1, middle 1, and middle 2 RED Auto (Start on Right)",
-				CommandComposer.getFourScoreTwoMiddleTopRedAuto());
-		m_autoSelector.addOption("Just leave", new PolarDriveCommand(m_driveSubsystem, 3, 180));
+		m_autoSelector.addOption(
+				"Four Score @1, middle 1, and middle 2 Auto (BLUE: Start on Left, RED: Start on Right)",
+				() -> FieldModel.mirroredForAlliance(CommandComposer.getFourScoreTwoMiddleTopBlueAuto()));
+		m_autoSelector.addOption("Just leave", () -> new PolarDriveCommand(m_driveSubsystem, 3, 180));
 		m_autoSelector.addOption("Five Score BLUE Auto @blue 3, 2, 1, and Middle 2 BLUE",
-				CommandComposer.getFiveScoreBlue321C2());
+				CommandComposer::getFiveScoreBlue321C2);
 		m_autoSelector.addOption("Greecy 3 Score center 4 center 5 RED",
-				CommandComposer.getThreeScoreRedC4C5Greece());
+				CommandComposer::getThreeScoreRedC4C5Greece);
 		m_autoSelector.addOption("Greecy 3 Score center 4 center 5 BLUE",
-				CommandComposer.getThreeScoreBlueC4C5Greece());
+				CommandComposer::getThreeScoreBlueC4C5Greece);
 		// m_autoSelector.addOption("Get Blocks Auto", CommandComposer.getBlocksAuto());
 		// m_autoSelector.addOption("Get Amp Auto Red",
 		// CommandComposer.getAmpTwoAutoRed());
@@ -170,7 +179,7 @@ public class RobotContainer {
 		// CommandComposer.getTeleopIntakeCommand());
 		// m_autoSelector.addOption("Ninja Star Command", new
 		// NinjaStarCommand(m_driveSubsystem, 2, -2, 45));
-		SmartDashboard.putData(m_autoSelector);
+		SmartDashboard.putData(m_autoSelector.getChooser());
 		configureButtonBindings();
 	}
 
@@ -215,7 +224,8 @@ public class RobotContainer {
 
 		m_driverController.button(Button.kRightBumper)
 				.whileTrue(new DriveWhileAimingCommand(() -> m_driverController.getRawAxis(Axis.kLeftY),
-						() -> m_driverController.getRawAxis(Axis.kLeftX), 5, 0.2, 0.5, m_driveSubsystem,
+						() -> m_driverController.getRawAxis(Axis.kLeftX), 5, ShotConstants.kReleaseLatency,
+						m_driveSubsystem,
 						m_aimerSubsystem,
 						m_targeter, m_flywheelSubsystem, m_arduinoSubsystem, m_limeLightSubsystem))
 				// m_driverController.button(Button.kRightBumper).whileTrue(CommandComposer.getDriveWhileAimingCommand(
@@ -372,4 +382,12 @@ public class RobotContainer {
 	public Command getAutonomousCommand() {
 		return m_autoSelector.getSelected();
 	}
+
+	/**
+	 * Builds the selected autonomous routine ahead of time once the selection
+	 * has settled. Should be called periodically during disabled mode.
+	 */
+	public void prepareAutonomousCommand() {
+		m_autoSelector.update();
+	}
 }
\ No newline at end of file
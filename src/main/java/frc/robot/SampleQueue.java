@@ -0,0 +1,96 @@
+package frc.robot;
+
+import java.util.function.Supplier;
+
+/**
+ * A bounded lock-free queue that hands samples from one producer thread (for
+ * example, the NetworkTables listener thread) to one consumer thread (the robot
+ * loop). The slots are created once and reused: the producer fills the slot
+ * returned by {@link #claim()} and then calls {@link #publish()}; the consumer
+ * reads the slot returned by {@link #peek()} and then calls {@link #release()}.
+ * When the queue is full, new samples are dropped (and counted) rather than
+ * blocking the producer.
+ *
+ * @param <T> the type of the slots
+ */
+public class SampleQueue<T> {
+	private final T[] m_slots;
+	private final int m_mask;
+	/** The number of samples ever published (only written by the producer). */
+	private volatile long m_tail = 0;
+	/** The number of samples ever released (only written by the consumer). */
+	private volatile long m_head = 0;
+	private volatile long m_dropped = 0;
+
+	/**
+	 * Constructs a {@code SampleQueue}.
+	 *
+	 * @param capacity    the maximum number of samples waiting in the queue (a
+	 *                    power of two)
+	 * @param slotFactory creates the slots (called {@code capacity} times)
+	 */
+	@SuppressWarnings("unchecked")
+	public SampleQueue(int capacity, Supplier<T> slotFactory) {
+		if (capacity <= 0 || Integer.bitCount(capacity) != 1)
+			throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+		m_slots = (T[]) new Object[capacity];
+		for (int i = 0; i < capacity; i++)
+			m_slots[i] = slotFactory.get();
+		m_mask = capacity - 1;
+	}
+
+	/**
+	 * Returns the slot to fill with the next sample. Only the producer may call
+	 * this.
+	 *
+	 * @return the slot to fill, or {@code null} if the queue is full (in which
+	 *         case the sample should be dropped)
+	 */
+	public T claim() {
+		long tail = m_tail;
+		if (tail - m_head > m_mask) {
+			m_dropped++;
+			return null;
+		}
+		return m_slots[(int) (tail & m_mask)];
+	}
+
+	/**
+	 * Makes the slot returned by the last {@link #claim()} available to the
+	 * consumer. Only the producer may call this.
+	 */
+	public void publish() {
+		// the volatile write publishes the contents of the slot
+		m_tail = m_tail + 1;
+	}
+
+	/**
+	 * Returns the oldest sample in the queue without removing it. Only the
+	 * consumer may call this.
+	 *
+	 * @return the oldest sample, or {@code null} if the queue is empty
+	 */
+	public T peek() {
+		long head = m_head;
+		if (head == m_tail)
+			return null;
+		return m_slots[(int) (head & m_mask)];
+	}
+
+	/**
+	 * Removes the sample returned by the last {@link #peek()} so that its slot can
+	 * be reused. Only the consumer may call this.
+	 */
+	public void release() {
+		m_head = m_head + 1;
+	}
+
+	/**
+	 * Returns the number of samples dropped because the queue was full.
+	 *
+	 * @return the number of samples dropped because the queue was full
+	 */
+	public long dropped() {
+		return m_dropped;
+	}
+}
@@ -0,0 +1,97 @@
+package frc.robot;
+
+import static frc.robot.Constants.ShotReadinessConstants.*;
+
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
+
+import edu.wpi.first.math.filter.Debouncer;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.Commands;
+import frc.robot.subsystems.AimerSubsystem;
+import frc.robot.subsystems.FlywheelSubsystem;
+
+/**
+ * Decides when a shot can be taken: both flywheels are within
+ * {@code kAllowedError} of their setpoints, the aimer is at its setpoint, and
+ * the heading error is within {@code kHeadingTolerance}, all of which have held
+ * for {@code kReadyDebounceTime}. Commands can wait on it with
+ * {@link #waitUntilReady()} instead of on fixed timeouts, and
+ * {@link #timeUntilReady()} predicts how long that wait is.
+ */
+public class ShotReadiness implements BooleanSupplier {
+	private final FlywheelSubsystem m_flywheelSubsystem;
+	private final AimerSubsystem m_aimerSubsystem;
+	private final DoubleSupplier m_headingError;
+	private Debouncer m_debouncer = new Debouncer(kReadyDebounceTime);
+	private final Telemetry.NumberSignal m_readySignal = Telemetry.number("Shot Ready", 0.5, 0);
+
+	/**
+	 * Constructs a {@code ShotReadiness}.
+	 *
+	 * @param flywheelSubsystem the {@code FlywheelSubsystem}
+	 * @param aimerSubsystem    the {@code AimerSubsystem}
+	 * @param headingError      supplies the angle in degrees between the heading
+	 *                          of the robot and the direction of the shot
+	 */
+	public ShotReadiness(FlywheelSubsystem flywheelSubsystem, AimerSubsystem aimerSubsystem,
+			DoubleSupplier headingError) {
+		m_flywheelSubsystem = flywheelSubsystem;
+		m_aimerSubsystem = aimerSubsystem;
+		m_headingError = headingError;
+	}
+
+	/**
+	 * Determines whether or not the flywheels, the aimer, and the heading are
+	 * all ready for the shot right now (without the debounce).
+	 *
+	 * @return {@code true} if everything is ready; {@code false} otherwise
+	 */
+	public boolean isReadyNow() {
+		return m_flywheelSubsystem.atSetpoint() && m_aimerSubsystem.atAimerSetpoint()
+				&& Math.abs(m_headingError.getAsDouble()) <= kHeadingTolerance;
+	}
+
+	/**
+	 * Determines whether or not everything has been ready for the shot for
+	 * {@code kReadyDebounceTime}. Should be called once per loop while waiting
+	 * for the shot, after {@link #reset()} at the start of the wait.
+	 *
+	 * @return {@code true} if the shot can be taken; {@code false} otherwise
+	 */
+	@Override
+	public boolean getAsBoolean() {
+		boolean ready = m_debouncer.calculate(isReadyNow());
+		m_readySignal.set(ready ? 1 : 0);
+		return ready;
+	}
+
+	/**
+	 * Restarts the debounce so that everything must be ready for
+	 * {@code kReadyDebounceTime} from now on (a stale debouncer would pass the
+	 * first ready evaluation right away).
+	 */
+	public void reset() {
+		m_debouncer = new Debouncer(kReadyDebounceTime);
+	}
+
+	/**
+	 * Creates a command that waits until the shot can be taken, restarting the
+	 * debounce when it starts.
+	 *
+	 * @return the command
+	 */
+	public Command waitUntilReady() {
+		return Commands.waitUntil(this).beforeStarting(this::reset);
+	}
+
+	/**
+	 * Predicts the time until both the flywheels and the aimer reach their
+	 * setpoints, whichever takes longer (both move at the same time).
+	 *
+	 * @return the time in seconds
+	 */
+	public double timeUntilReady() {
+		return Math.max(m_flywheelSubsystem.timeToSetpoint(), m_aimerSubsystem.timeToSetpoint());
+	}
+}
@@ -0,0 +1,161 @@
+package frc.robot;
+
+import static frc.robot.Constants.ShotConstants.*;
+
+/**
+ * Solves for a shot taken while the robot moves. The note leaves the shooter
+ * {@code latency} seconds after aiming, from where the robot will be by then,
+ * and keeps the velocity of the robot while it flies. The shot is therefore
+ * aimed at a virtual target: the real target displaced against the velocity of
+ * the robot by the time of flight. The time of flight depends on the distance
+ * to the virtual target (and on the flywheel speeds the {@code Targeter} gives
+ * for that distance), which in turn depends on the time of flight, so
+ * {@link #solve(double, double, double, double, double, double)} iterates
+ * between the two, at most {@code kMaxIterations} times. The iteration
+ * converges as long as the robot is slower than the note.
+ *
+ * A {@code ShotSolver} reuses its results, so {@code solve} does not allocate.
+ */
+public class ShotSolver {
+	private final Targeter m_targeter;
+	private final double m_latency;
+	private final Targeter.Solution m_solution = new Targeter.Solution();
+	private double m_virtualTargetX;
+	private double m_virtualTargetY;
+	private double m_distance;
+	private double m_headingRadians;
+	private double m_timeOfFlight;
+	private int m_iterations;
+	private boolean m_converged;
+
+	/**
+	 * Constructs a {@code ShotSolver}.
+	 *
+	 * @param targeter the {@code Targeter} giving the aimer height and flywheel
+	 *                 speeds for each distance
+	 * @param latency  the time in seconds from aiming to the note leaving the
+	 *                 shooter
+	 */
+	public ShotSolver(Targeter targeter, double latency) {
+		m_targeter = targeter;
+		m_latency = latency;
+	}
+
+	/**
+	 * Solves for a shot at the specified target.
+	 *
+	 * @param x       the x-coordinate of the robot in meters
+	 * @param y       the y-coordinate of the robot in meters
+	 * @param vx      the x component of the velocity of the robot in meters per
+	 *                second
+	 * @param vy      the y component of the velocity of the robot in meters per
+	 *                second
+	 * @param targetX the x-coordinate of the target in meters
+	 * @param targetY the y-coordinate of the target in meters
+	 * @return the aimer height and flywheel speeds for the shot (the same
+	 *         instance on every call)
+	 */
+	public Targeter.Solution solve(double x, double y, double vx, double vy, double targetX, double targetY) {
+		// where the robot will be when the note leaves the shooter
+		double releaseX = x + vx * m_latency;
+		double releaseY = y + vy * m_latency;
+		double timeOfFlight = 0;
+		m_converged = false;
+		for (m_iterations = 1; m_iterations <= kMaxIterations; m_iterations++) {
+			// the time of flight the current solution is computed with
+			m_timeOfFlight = timeOfFlight;
+			m_virtualTargetX = targetX - vx * timeOfFlight;
+			m_virtualTargetY = targetY - vy * timeOfFlight;
+			double dx = m_virtualTargetX - releaseX;
+			double dy = m_virtualTargetY - releaseY;
+			m_distance = Math.sqrt(dx * dx + dy * dy);
+			m_headingRadians = Math.atan2(dy, dx);
+			m_targeter.solve(m_distance, m_solution);
+			double noteSpeed = kNoteSpeedPerRPM * (m_solution.topRPM + m_solution.bottomRPM) / 2;
+			double next = noteSpeed > 0 ? m_distance / noteSpeed : 0;
+			if (Math.abs(next - timeOfFlight) < kTimeOfFlightTolerance) {
+				m_converged = true;
+				break;
+			}
+			timeOfFlight = next;
+		}
+		m_iterations = Math.min(m_iterations, kMaxIterations);
+		return m_solution;
+	}
+
+	/**
+	 * Returns the aimer height and flywheel speeds found by the last call to
+	 * {@link #solve(double, double, double, double, double, double)}.
+	 *
+	 * @return the aimer height and flywheel speeds
+	 */
+	public Targeter.Solution getSolution() {
+		return m_solution;
+	}
+
+	/**
+	 * Returns the x-coordinate of the virtual target.
+	 *
+	 * @return the x-coordinate of the virtual target in meters
+	 */
+	public double getVirtualTargetX() {
+		return m_virtualTargetX;
+	}
+
+	/**
+	 * Returns the y-coordinate of the virtual target.
+	 *
+	 * @return the y-coordinate of the virtual target in meters
+	 */
+	public double getVirtualTargetY() {
+		return m_virtualTargetY;
+	}
+
+	/**
+	 * Returns the distance from the release point to the virtual target.
+	 *
+	 * @return the distance in meters
+	 */
+	public double getDistance() {
+		return m_distance;
+	}
+
+	/**
+	 * Returns the field-relative heading the shooter must face.
+	 *
+	 * @return the heading in radians
+	 */
+	public double getHeadingRadians() {
+		return m_headingRadians;
+	}
+
+	/**
+	 * Returns the time of flight of the note that the last solution was
+	 * computed with.
+	 *
+	 * @return the time of flight in seconds
+	 */
+	public double getTimeOfFlight() {
+		return m_timeOfFlight;
+	}
+
+	/**
+	 * Returns the number of iterations the last solution took.
+	 *
+	 * @return the number of iterations
+	 */
+	public int getIterations() {
+		return m_iterations;
+	}
+
+	/**
+	 * Determines whether the time of flight converged within
+	 * {@code kMaxIterations} iterations.
+	 *
+	 * @return {@code true} if the time of flight converged; {@code false}
+	 *         otherwise
+	 */
+	public boolean isConverged() {
+		return m_converged;
+	}
+}
@@ -0,0 +1,172 @@
+package frc.robot;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Translation2d;
+
+/**
+ * Swerve drive kinematics computed on primitive arrays. Unlike
+ * {@code SwerveDriveKinematics}, none of the methods in this class allocate
+ * objects, so they can be called from the drive control loop every cycle
+ * without producing garbage.
+ *
+ * Module speeds are in the same units as the chassis speeds and module angles
+ * are in degrees.
+ */
+public class SwerveKinematics {
+	private final double[] m_moduleX;
+	private final double[] m_moduleY;
+
+	/**
+	 * The inverse of the normal matrix used to compute the least-squares chassis
+	 * twist from the module displacements (row-major 3x3).
+	 */
+	private final double[] m_inverseNormal = new double[9];
+
+	/**
+	 * Constructs a {@code SwerveKinematics}.
+	 *
+	 * @param moduleLocations the locations of the modules relative to the center
+	 *                        of the robot
+	 */
+	public SwerveKinematics(Translation2d... moduleLocations) {
+		int n = moduleLocations.length;
+		m_moduleX = new double[n];
+		m_moduleY = new double[n];
+		double sumX = 0;
+		double sumY = 0;
+		double sumSquares = 0;
+		for (int i = 0; i < n; i++) {
+			m_moduleX[i] = moduleLocations[i].getX();
+			m_moduleY[i] = moduleLocations[i].getY();
+			sumX += m_moduleX[i];
+			sumY += m_moduleY[i];
+			sumSquares += m_moduleX[i] * m_moduleX[i] + m_moduleY[i] * m_moduleY[i];
+		}
+		// normal matrix [[n, 0, -sumY], [0, n, sumX], [-sumY, sumX, sumSquares]]
+		double a = n, c = -sumY, e = n, f = sumX, i = sumSquares;
+		double det = a * (e * i - f * f) - c * (c * e);
+		m_inverseNormal[0] = (e * i - f * f) / det;
+		m_inverseNormal[1] = (c * f) / det;
+		m_inverseNormal[2] = (-c * e) / det;
+		m_inverseNormal[3] = m_inverseNormal[1];
+		m_inverseNormal[4] = (a * i - c * c) / det;
+		m_inverseNormal[5] = (-a * f) / det;
+		m_inverseNormal[6] = m_inverseNormal[2];
+		m_inverseNormal[7] = m_inverseNormal[5];
+		m_inverseNormal[8] = (a * e) / det;
+	}
+
+	/**
+	 * Returns the number of modules.
+	 *
+	 * @return the number of modules
+	 */
+	public int getNumModules() {
+		return m_moduleX.length;
+	}
+
+	/**
+	 * Calculates the module speeds and angles needed for the robot to achieve the
+	 * specified robot-relative chassis speeds. If all the chassis speeds are zero,
+	 * the module speeds are set to zero and the module angles are left untouched
+	 * so that the modules keep their previous headings.
+	 *
+	 * @param vx            the forward speed
+	 * @param vy            the sideways speed (left positive)
+	 * @param omega         the angular speed in radians per second (CCW positive)
+	 * @param speeds        the array to store the module speeds in
+	 * @param anglesDegrees the array to store the module angles in
+	 */
+	public void toModuleStates(double vx, double vy, double omega, double[] speeds, double[] anglesDegrees) {
+		if (vx == 0 && vy == 0 && omega == 0) {
+			for (int i = 0; i < speeds.length; i++)
+				speeds[i] = 0;
+			return;
+		}
+		for (int i = 0; i < m_moduleX.length; i++) {
+			double moduleVx = vx - omega * m_moduleY[i];
+			double moduleVy = vy + omega * m_moduleX[i];
+			speeds[i] = Math.hypot(moduleVx, moduleVy);
+			anglesDegrees[i] = Math.toDegrees(Math.atan2(moduleVy, moduleVx));
+		}
+	}
+
+	/**
+	 * Calculates the robot-relative twist (dx, dy, dtheta) that best explains the
+	 * specified module displacements in the least-squares sense.
+	 *
+	 * @param distanceDeltas the change in the distance driven by each module
+	 * @param anglesDegrees  the angle of each module in degrees
+	 * @param twist          the array to store dx, dy, and dtheta (in radians) in
+	 */
+	public void toTwist(double[] distanceDeltas, double[] anglesDegrees, double[] twist) {
+		double sumDx = 0;
+		double sumDy = 0;
+		double sumMoment = 0;
+		for (int i = 0; i < m_moduleX.length; i++) {
+			double angle = Math.toRadians(anglesDegrees[i]);
+			double dx = distanceDeltas[i] * Math.cos(angle);
+			double dy = distanceDeltas[i] * Math.sin(angle);
+			sumDx += dx;
+			sumDy += dy;
+			sumMoment += m_moduleX[i] * dy - m_moduleY[i] * dx;
+		}
+		twist[0] = m_inverseNormal[0] * sumDx + m_inverseNormal[1] * sumDy + m_inverseNormal[2] * sumMoment;
+		twist[1] = m_inverseNormal[3] * sumDx + m_inverseNormal[4] * sumDy + m_inverseNormal[5] * sumMoment;
+		twist[2] = m_inverseNormal[6] * sumDx + m_inverseNormal[7] * sumDy + m_inverseNormal[8] * sumMoment;
+	}
+
+	/**
+	 * Scales down the specified module speeds so that none of them exceeds the
+	 * specified maximum while preserving the ratios between them.
+	 *
+	 * @param speeds   the module speeds
+	 * @param maxSpeed the maximum attainable module speed
+	 */
+	public static void desaturate(double[] speeds, double maxSpeed) {
+		double max = 0;
+		for (double speed : speeds)
+			max = Math.max(max, Math.abs(speed));
+		if (max > maxSpeed) {
+			double scale = maxSpeed / max;
+			for (int i = 0; i < speeds.length; i++)
+				speeds[i] *= scale;
+		}
+	}
+
+	/**
+	 * Minimizes the change in heading of each module by reversing the direction
+	 * of the module if the target angle is more than 90 degrees away from the
+	 * current angle (the primitive equivalent of
+	 * {@code SwerveModuleState.optimize}).
+	 *
+	 * @param speeds               the target module speeds
+	 * @param anglesDegrees        the target module angles in degrees
+	 * @param currentAnglesDegrees the current module angles in degrees
+	 */
+	public static void optimize(double[] speeds, double[] anglesDegrees, double[] currentAnglesDegrees) {
+		for (int i = 0; i < speeds.length; i++) {
+			double delta = MathUtil.inputModulus(anglesDegrees[i] - currentAnglesDegrees[i], -180, 180);
+			if (Math.abs(delta) > 90) {
+				speeds[i] = -speeds[i];
+				anglesDegrees[i] = MathUtil.inputModulus(anglesDegrees[i] + 180, -180, 180);
+			}
+		}
+	}
+
+	/**
+	 * Converts the specified field-relative chassis speeds into robot-relative
+	 * chassis speeds.
+	 *
+	 * @param vx             the field-relative x speed
+	 * @param vy             the field-relative y speed
+	 * @param headingRadians the heading of the robot in radians
+	 * @param speeds         the array to store the robot-relative x and y speeds in
+	 */
+	public static void toRobotRelative(double vx, double vy, double headingRadians, double[] speeds) {
+		double cos = Math.cos(headingRadians);
+		double sin = Math.sin(headingRadians);
+		speeds[0] = vx * cos + vy * sin;
+		speeds[1] = -vx * sin + vy * cos;
+	}
+}
@@ -4,8 +4,10 @@
 
 package frc.robot;
 
+import static frc.robot.Constants.CanConstants.kTelemetryPeriod;
 import static frc.robot.Constants.DriveConstants.*;
 
+import com.ctre.phoenix6.StatusSignal;
 import com.ctre.phoenix6.hardware.CANcoder;
 import com.revrobotics.CANSparkBase.IdleMode;
 import com.revrobotics.CANSparkLowLevel.MotorType;
@@ -17,10 +19,12 @@ import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
 import edu.wpi.first.math.system.plant.DCMotor;
-import edu.wpi.first.wpilibj.RobotBase;
 import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj.simulation.DCMotorSim;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import frc.robot.CanBudget.SparkSignal;
+import frc.robot.DeviceConfigurator.SparkMaxConfig;
 
 /**
  * Contains all the hardware and controllers for a swerve module.
@@ -33,6 +37,26 @@ public class SwerveModule {
 	private final CANSparkMax m_steerMotor;
 	private final DCMotorSim m_driveMotorModel = new DCMotorSim(DCMotor.getNEO(1), 1, 0.0005);
 	private final DCMotorSim m_steerMotorModel = new DCMotorSim(DCMotor.getNEO(1), 6.12, 0.0005);
+	private final StatusSignal<Double> m_absolutePosition;
+	/**
+	 * A separate copy of the absolute position signal for the odometry thread
+	 * ({@code StatusSignal} is not safe to refresh from multiple threads).
+	 */
+	private final StatusSignal<Double> m_odometryAbsolutePosition;
+	/**
+	 * The sensor values read by the most recent call to {@link #sample()}. Every
+	 * getter reads these so that each sensor is only read once per loop and all
+	 * consumers see the same values within a loop.
+	 */
+	private double m_angle;
+	private double m_drivePosition;
+	private double m_driveVelocity;
+	private double m_appliedOutput;
+	private double m_driveCurrent;
+	private double m_steerCurrent;
+	/** The voltages last applied, for the simulation models. */
+	private double m_driveVoltage;
+	private double m_steerVoltage;
 
 	public SwerveModule(int CANport, int drivePort, int steerPort) {
 		m_CANCoder = new CANcoder(CANport);
@@ -40,22 +64,51 @@ public class SwerveModule {
 		m_steerMotor = new CANSparkMax(steerPort, MotorType.kBrushless);
 		m_PIDController.setIZone(kIz);
 		m_driveEncoder = m_driveMotor.getEncoder();
-		configMotorController(m_driveMotor, kDriveSmartCurrentLimit, kDrivePeakCurrentLimit);
-		configMotorController(m_steerMotor, kSteerSmartCurrentLimit, kSteerPeakCurrentLimit);
+		// Send the module angle and drive position as often as odometry is sampled
+		DeviceConfigurator.configure("Drive " + drivePort, m_driveMotor,
+				motorConfig(kDriveSmartCurrentLimit, kDrivePeakCurrentLimit)
+						.reads(SparkSignal.POSITION, kOdometryPeriod)
+						.reads(SparkSignal.APPLIED_OUTPUT, TimedRobot.kDefaultPeriod)
+						.reads(SparkSignal.VELOCITY, kTelemetryPeriod)
+						.reads(SparkSignal.CURRENT, kTelemetryPeriod));
+		DeviceConfigurator.configure("Steer " + steerPort, m_steerMotor,
+				motorConfig(kSteerSmartCurrentLimit, kSteerPeakCurrentLimit)
+						.reads(SparkSignal.CURRENT, kTelemetryPeriod));
 		m_PIDController.enableContinuousInput(0, 360);
+		m_absolutePosition = m_CANCoder.getAbsolutePosition();
+		CanBudget.configure("CANcoder " + CANport, m_CANCoder, kOdometryPeriod, m_absolutePosition);
+		m_odometryAbsolutePosition = m_absolutePosition.clone();
+		sample();
+	}
+
+	/**
+	 * Reads the CANcoder, the drive encoder, the applied output, and the output
+	 * currents once and stores them for the getters. Should be called once at
+	 * the start of every loop before any of the getters are used.
+	 */
+	public void sample() {
+		m_angle = m_absolutePosition.refresh().getValueAsDouble() * 360;
+		m_drivePosition = m_driveEncoder.getPosition() * kMotorRotationsPerMeter;
+		m_driveVelocity = m_driveEncoder.getVelocity() * kMotorRotationsPerMeter / 60;
+		m_appliedOutput = m_driveMotor.getAppliedOutput();
+		m_driveCurrent = m_driveMotor.getOutputCurrent();
+		m_steerCurrent = m_steerMotor.getOutputCurrent();
 	}
 
 	/**
-	 * Configures our motors with the exact same settings
+	 * Returns the configuration shared by the drive and steer motors.
 	 * 
-	 * @param motorController The CANSparkMax to configure
+	 * @param smartCurrentLimit The smart current limit in amps
+	 * @param peakCurrentLimit  The secondary current limit in amps
+	 * @return The configuration
 	 */
-	private void configMotorController(CANSparkMax motorController, int smartCurrentLimit, int peakCurrentLimit) {
-		motorController.restoreFactoryDefaults();
-		motorController.setIdleMode(IdleMode.kBrake);
-		motorController.enableVoltageCompensation(12);
-		motorController.setSmartCurrentLimit(smartCurrentLimit);
-		motorController.setSecondaryCurrentLimit(peakCurrentLimit);
+	private static SparkMaxConfig motorConfig(int smartCurrentLimit, int peakCurrentLimit) {
+		return new SparkMaxConfig()
+				.restoreFactoryDefaults()
+				.idleMode(IdleMode.kBrake)
+				.voltageCompensation(12)
+				.smartCurrentLimit(smartCurrentLimit)
+				.secondaryCurrentLimit(peakCurrentLimit);
 	}
 
 	/**
@@ -64,15 +117,45 @@ public class SwerveModule {
 	 * @return The position
 	 */
 	public double getDriveEncoderPosition() {
+		return m_drivePosition;
+	}
+
+	/**
+	 * Reads the drive encoder distance in meters traveled directly from the
+	 * motor controller instead of the snapshot taken by {@link #sample()}. Used
+	 * by the odometry thread.
+	 * 
+	 * @return The position
+	 */
+	public double readDriveEncoderPosition() {
 		return m_driveEncoder.getPosition() * kMotorRotationsPerMeter;
 	}
 
+	/**
+	 * Reads the module angle in degrees directly from the CANcoder instead of
+	 * the snapshot taken by {@link #sample()}. Used by the odometry thread.
+	 * 
+	 * @return The module angle
+	 */
+	public double readModuleAngle() {
+		return m_odometryAbsolutePosition.refresh().getValueAsDouble() * 360;
+	}
+
+	/**
+	 * Returns drive encoder velocity in meters per second.
+	 * 
+	 * @return The velocity
+	 */
+	public double getDriveEncoderVelocity() {
+		return m_driveVelocity;
+	}
+
 	public double getSteerCurrent() {
-		return m_steerMotor.getOutputCurrent();
+		return m_steerCurrent;
 	}
 
 	public double getDriveCurrent() {
-		return m_driveMotor.getOutputCurrent();
+		return m_driveCurrent;
 	}
 
 	/**
@@ -80,6 +163,7 @@ public class SwerveModule {
 	 */
 	public void resetDriveEncoder() {
 		m_driveEncoder.setPosition(0);
+		m_drivePosition = 0;
 	}
 
 	/**
@@ -88,7 +172,7 @@ public class SwerveModule {
 	 * @return The motor speed in voltage
 	 */
 	public double getDriveVoltage() {
-		return m_driveMotor.getAppliedOutput() * 12;
+		return m_appliedOutput * 12;
 	}
 
 	/**
@@ -106,7 +190,7 @@ public class SwerveModule {
 	 * @return The module angle
 	 */
 	public double getModuleAngle() {
-		return m_CANCoder.getAbsolutePosition().getValueAsDouble() * 360;
+		return m_angle;
 	}
 
 	/**
@@ -115,7 +199,22 @@ public class SwerveModule {
 	 * @return The module position
 	 */
 	public SwerveModulePosition getModulePosition() {
-		return new SwerveModulePosition(getDriveEncoderPosition(), Rotation2d.fromDegrees(getModuleAngle()));
+		return getModulePosition(new SwerveModulePosition());
+	}
+
+	/**
+	 * Stores the module position in the specified {@code SwerveModulePosition}.
+	 * Creates a new {@code Rotation2d} for the angle, so code running every loop
+	 * should use {@link #getDriveEncoderPosition()} and
+	 * {@link #getModuleAngle()} instead.
+	 * 
+	 * @param position The {@code SwerveModulePosition} to update
+	 * @return The specified {@code SwerveModulePosition}
+	 */
+	public SwerveModulePosition getModulePosition(SwerveModulePosition position) {
+		position.distanceMeters = getDriveEncoderPosition();
+		position.angle = Rotation2d.fromDegrees(getModuleAngle());
+		return position;
 	}
 
 	/**
@@ -124,7 +223,22 @@ public class SwerveModule {
 	 * @return The module state
 	 */
 	public SwerveModuleState getModuleState() {
-		return new SwerveModuleState(getDriveVoltage(), Rotation2d.fromDegrees(getModuleAngle()));
+		return getModuleState(new SwerveModuleState());
+	}
+
+	/**
+	 * Stores the module speed and angle in the specified
+	 * {@code SwerveModuleState}. Creates a new {@code Rotation2d} for the angle,
+	 * so code running every loop should use {@link #getDriveVoltage()} and
+	 * {@link #getModuleAngle()} instead.
+	 * 
+	 * @param state The {@code SwerveModuleState} to update
+	 * @return The specified {@code SwerveModuleState}
+	 */
+	public SwerveModuleState getModuleState(SwerveModuleState state) {
+		state.speedMetersPerSecond = getDriveVoltage();
+		state.angle = Rotation2d.fromDegrees(getModuleAngle());
+		return state;
 	}
 
 	/**
@@ -133,7 +247,17 @@ public class SwerveModule {
 	 * @param state The module state
 	 */
 	public void setModuleState(SwerveModuleState state) {
-		double power = state.speedMetersPerSecond;
+		setModuleState(state.speedMetersPerSecond, state.angle.getDegrees());
+	}
+
+	/**
+	 * Sets the drive motor speeds and module angle.
+	 * 
+	 * @param speed The drive speed in voltage
+	 * @param angle The module angle in degrees
+	 */
+	public void setModuleState(double speed, double angle) {
+		double power = speed;
 		double currVoltage = RobotController.getBatteryVoltage();
 		if (currVoltage < 7) {
 			power *= 0.1;
@@ -145,18 +269,27 @@ public class SwerveModule {
 			power *= 0.8;
 		}
 		m_driveMotor.setVoltage(power);
-		double turnPower = m_PIDController.calculate(getModuleAngle(), state.angle.getDegrees());
+		double turnPower = m_PIDController.calculate(getModuleAngle(), angle);
 		m_steerMotor.setVoltage(turnPower);
-		if (RobotBase.isSimulation()) {
-			m_driveMotorModel.setInputVoltage(power);
-			m_driveMotorModel.update(0.02);
-			m_driveMotor.getEncoder().setPosition(m_driveMotorModel.getAngularPositionRotations());
-			var encoderSimState = m_CANCoder.getSimState();
-			m_steerMotorModel.setInputVoltage(turnPower);
-			m_steerMotorModel.update(0.02);
-			encoderSimState.setRawPosition(m_steerMotorModel.getAngularPositionRotations());
-			encoderSimState.setVelocity(m_steerMotorModel.getAngularVelocityRPM());
-		}
+		m_driveVoltage = power;
+		m_steerVoltage = turnPower;
+	}
+
+	/**
+	 * Advances the simulation models of the motors by one loop under the
+	 * voltages last applied and feeds their positions back to the sensors.
+	 * Kept out of {@link #setModuleState(double, double)} since the models
+	 * allocate on every update.
+	 */
+	public void simulationPeriodic() {
+		m_driveMotorModel.setInputVoltage(m_driveVoltage);
+		m_driveMotorModel.update(TimedRobot.kDefaultPeriod);
+		m_driveEncoder.setPosition(m_driveMotorModel.getAngularPositionRotations());
+		var encoderSimState = m_CANCoder.getSimState();
+		m_steerMotorModel.setInputVoltage(m_steerVoltage);
+		m_steerMotorModel.update(TimedRobot.kDefaultPeriod);
+		encoderSimState.setRawPosition(m_steerMotorModel.getAngularPositionRotations());
+		encoderSimState.setVelocity(m_steerMotorModel.getAngularVelocityRPM());
 	}
 
 	/**
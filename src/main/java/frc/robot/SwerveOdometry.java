@@ -0,0 +1,123 @@
+package frc.robot;
+
+import edu.wpi.first.math.MathUtil;
+
+/**
+ * Swerve drive odometry that keeps the pose of the robot in primitive fields.
+ * It follows the same approach as {@code SwerveDriveOdometry} (the module
+ * displacements determine the translation and the gyro determines the
+ * heading), but does not allocate any objects while updating.
+ */
+public class SwerveOdometry {
+	private final SwerveKinematics m_kinematics;
+	private final double[] m_previousDistances;
+	private final double[] m_distanceDeltas;
+	private final double[] m_twist = new double[3];
+	private double m_previousGyroRadians;
+	private double m_gyroOffsetRadians;
+	private double m_x;
+	private double m_y;
+	private double m_headingRadians;
+
+	/**
+	 * Constructs a {@code SwerveOdometry}.
+	 *
+	 * @param kinematics     the {@code SwerveKinematics} of the drive
+	 * @param gyroRadians    the current gyro angle in radians
+	 * @param distances      the current distance driven by each module
+	 * @param x              the initial x-coordinate value of the robot
+	 * @param y              the initial y-coordinate value of the robot
+	 * @param headingRadians the initial heading of the robot in radians
+	 */
+	public SwerveOdometry(SwerveKinematics kinematics, double gyroRadians, double[] distances, double x, double y,
+			double headingRadians) {
+		m_kinematics = kinematics;
+		m_previousDistances = new double[kinematics.getNumModules()];
+		m_distanceDeltas = new double[kinematics.getNumModules()];
+		resetPosition(gyroRadians, distances, x, y, headingRadians);
+	}
+
+	/**
+	 * Resets the pose of the robot.
+	 *
+	 * @param gyroRadians    the current gyro angle in radians
+	 * @param distances      the current distance driven by each module
+	 * @param x              the x-coordinate value of the robot
+	 * @param y              the y-coordinate value of the robot
+	 * @param headingRadians the heading of the robot in radians
+	 */
+	public void resetPosition(double gyroRadians, double[] distances, double x, double y, double headingRadians) {
+		m_x = x;
+		m_y = y;
+		m_headingRadians = headingRadians;
+		m_gyroOffsetRadians = headingRadians - gyroRadians;
+		m_previousGyroRadians = gyroRadians;
+		System.arraycopy(distances, 0, m_previousDistances, 0, m_previousDistances.length);
+	}
+
+	/**
+	 * Updates the pose of the robot based on the specified sensor readings.
+	 *
+	 * @param gyroRadians   the current gyro angle in radians
+	 * @param distances     the current distance driven by each module
+	 * @param anglesDegrees the current angle of each module in degrees
+	 */
+	public void update(double gyroRadians, double[] distances, double[] anglesDegrees) {
+		for (int i = 0; i < m_distanceDeltas.length; i++) {
+			m_distanceDeltas[i] = distances[i] - m_previousDistances[i];
+			m_previousDistances[i] = distances[i];
+		}
+		m_kinematics.toTwist(m_distanceDeltas, anglesDegrees, m_twist);
+		double dx = m_twist[0];
+		double dy = m_twist[1];
+		// the gyro is more trustworthy than the wheels for the change in heading
+		// (wrapped since the gyro jumps between -pi and pi)
+		double dtheta = MathUtil.angleModulus(gyroRadians - m_previousGyroRadians);
+		m_previousGyroRadians = gyroRadians;
+
+		// pose exponential (see Pose2d.exp)
+		double s;
+		double c;
+		if (Math.abs(dtheta) < 1E-9) {
+			s = 1.0 - dtheta * dtheta / 6.0;
+			c = 0.5 * dtheta;
+		} else {
+			s = Math.sin(dtheta) / dtheta;
+			c = (1 - Math.cos(dtheta)) / dtheta;
+		}
+		double tx = dx * s - dy * c;
+		double ty = dx * c + dy * s;
+		double cos = Math.cos(m_headingRadians);
+		double sin = Math.sin(m_headingRadians);
+		m_x += tx * cos - ty * sin;
+		m_y += tx * sin + ty * cos;
+		m_headingRadians = gyroRadians + m_gyroOffsetRadians;
+	}
+
+	/**
+	 * Returns the x-coordinate value of the robot.
+	 *
+	 * @return the x-coordinate value of the robot
+	 */
+	public double getX() {
+		return m_x;
+	}
+
+	/**
+	 * Returns the y-coordinate value of the robot.
+	 *
+	 * @return the y-coordinate value of the robot
+	 */
+	public double getY() {
+		return m_y;
+	}
+
+	/**
+	 * Returns the heading of the robot in radians.
+	 *
+	 * @return the heading of the robot in radians
+	 */
+	public double getHeadingRadians() {
+		return m_headingRadians;
+	}
+}
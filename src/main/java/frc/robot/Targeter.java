@@ -2,6 +2,15 @@ package frc.robot;
 
 import static frc.robot.Constants.AimerConstants.*;
 
+import java.io.File;
+import java.io.IOException;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.wpilibj.Filesystem;
+
 public interface Targeter {
 
 	// aka small delta x and big delta y
@@ -12,6 +21,32 @@ public interface Targeter {
 
 	public double calcAimerHeightFromDistance(double distanceMeters);
 
+	/**
+	 * The aimer height and flywheel speeds for a shot from some distance.
+	 */
+	public class Solution {
+		/** The aimer height (as returned by {@link Targeter#getAngle(double)}). */
+		public double aimerHeight;
+		/** The speed of the top flywheel in RPM. */
+		public double topRPM;
+		/** The speed of the bottom flywheel in RPM. */
+		public double bottomRPM;
+	}
+
+	/**
+	 * Stores the aimer height and flywheel speeds for a shot from the specified
+	 * distance in the specified {@code Solution}.
+	 *
+	 * @param distanceMeters the distance to the target in meters
+	 * @param solution       the {@code Solution} to update
+	 * @return the specified {@code Solution}
+	 */
+	public default Solution solve(double distanceMeters, Solution solution) {
+		solution.aimerHeight = getAngle(distanceMeters);
+		solution.topRPM = solution.bottomRPM = getRPM(distanceMeters);
+		return solution;
+	}
+
 	public class RegressionTargeter implements Targeter { // quadratic regression
 
 		public double getAngle(double distanceMeters) {
@@ -122,4 +157,173 @@ public interface Targeter {
 			return aimerHeight;
 		}
 	}
+
+	/**
+	 * Looks the solution up in a dense table of aimer heights and flywheel
+	 * speeds sampled every {@code kTableStep} meters over the shooting range,
+	 * built once at startup. Each query is an index computation and a linear
+	 * interpolation between two adjacent rows, without allocation. The table is
+	 * resampled from the calibration points in {@value #kFileName} in the deploy
+	 * directory or, if that file is missing or malformed, from the
+	 * {@code RegressionTargeter} heights and {@code kShootingRPM}. Distances
+	 * outside the range get the solution at the nearest end of the range.
+	 */
+	public class TableTargeter implements Targeter {
+		/** The name of the calibration file in the deploy directory. */
+		public static final String kFileName = "shooting_table.json";
+
+		/** The rows of the table, each an aimer height, top RPM and bottom RPM. */
+		private final double[] m_table;
+		private final int m_lastRow;
+		private final double m_minDistance;
+		private final double m_inverseStep;
+
+		/**
+		 * Constructs a {@code TableTargeter} over the shooting range from the
+		 * deploy file or the built-in defaults.
+		 */
+		public TableTargeter() {
+			this(load(new File(Filesystem.getDeployDirectory(), kFileName)), kTableMinDistance, kTableMaxDistance,
+					kTableStep);
+		}
+
+		/**
+		 * Constructs a {@code TableTargeter} by resampling the specified
+		 * calibration points.
+		 *
+		 * @param points      the calibration points, each a distance in meters,
+		 *                    aimer height, top RPM and bottom RPM, sorted by
+		 *                    distance
+		 * @param minDistance the start of the shooting range in meters
+		 * @param maxDistance the end of the shooting range in meters
+		 * @param step        the distance between the rows of the table in meters
+		 */
+		public TableTargeter(double[][] points, double minDistance, double maxDistance, double step) {
+			m_lastRow = (int) Math.ceil((maxDistance - minDistance) / step);
+			m_minDistance = minDistance;
+			m_inverseStep = 1 / step;
+			m_table = new double[3 * (m_lastRow + 1)];
+			int segment = 0;
+			for (int row = 0; row <= m_lastRow; row++) {
+				double distance = minDistance + row * step;
+				while (segment < points.length - 2 && points[segment + 1][0] < distance)
+					segment++;
+				double[] p1 = points[segment];
+				double[] p2 = points[Math.min(segment + 1, points.length - 1)];
+				double t = p2[0] == p1[0] ? 0 : MathUtil.clamp((distance - p1[0]) / (p2[0] - p1[0]), 0, 1);
+				for (int k = 0; k < 3; k++)
+					m_table[3 * row + k] = p1[k + 1] + (p2[k + 1] - p1[k + 1]) * t;
+			}
+		}
+
+		/**
+		 * Reads the calibration points from the specified file.
+		 *
+		 * @param file a JSON file with a "points" array of [distance, aimer height,
+		 *             top RPM, bottom RPM], sorted by distance
+		 * @return the calibration points, or the built-in defaults if the file is
+		 *         missing or malformed
+		 */
+		private static double[][] load(File file) {
+			if (file.exists()) {
+				try {
+					JsonNode points = new ObjectMapper().readTree(file).path("points");
+					if (points.size() < 2)
+						throw new IllegalArgumentException("expected at least 2 points");
+					var table = new double[points.size()][4];
+					for (int i = 0; i < table.length; i++) {
+						var point = points.get(i);
+						if (!point.isArray() || point.size() != 4)
+							throw new IllegalArgumentException("expected [distance, height, top RPM, bottom RPM]");
+						for (int k = 0; k < 4; k++)
+							table[i][k] = point.get(k).asDouble();
+						if (i > 0 && table[i][0] <= table[i - 1][0])
+							throw new IllegalArgumentException("points not sorted by distance");
+					}
+					return table;
+				} catch (IOException | IllegalArgumentException e) {
+					System.err.println("shooting table error, using defaults: " + e.getMessage());
+				}
+			} else
+				System.err.println("shooting table not found, using defaults: " + file);
+			return defaults(kTableMinDistance, kTableMaxDistance, kTableStep);
+		}
+
+		/**
+		 * Returns calibration points sampled from the {@code RegressionTargeter}
+		 * with both flywheels at {@code kShootingRPM}.
+		 *
+		 * @param minDistance the start of the shooting range in meters
+		 * @param maxDistance the end of the shooting range in meters
+		 * @param step        the distance between the points in meters
+		 * @return the calibration points
+		 */
+		public static double[][] defaults(double minDistance, double maxDistance, double step) {
+			var regression = new RegressionTargeter();
+			int count = (int) Math.ceil((maxDistance - minDistance) / step) + 1;
+			var points = new double[count][];
+			for (int i = 0; i < count; i++) {
+				double distance = minDistance + i * step;
+				points[i] = new double[] { distance, regression.getAngle(distance), kShootingRPM, kShootingRPM };
+			}
+			return points;
+		}
+
+		@Override
+		public Solution solve(double distanceMeters, Solution solution) {
+			double x = (distanceMeters - m_minDistance) * m_inverseStep;
+			int row;
+			double t;
+			if (!(x > 0)) { // also catches NaN
+				row = 0;
+				t = 0;
+			} else if (x >= m_lastRow) {
+				row = m_lastRow - 1;
+				t = 1;
+			} else {
+				row = (int) x;
+				t = x - row;
+			}
+			int i = 3 * row;
+			solution.aimerHeight = m_table[i] + (m_table[i + 3] - m_table[i]) * t;
+			solution.topRPM = m_table[i + 1] + (m_table[i + 4] - m_table[i + 1]) * t;
+			solution.bottomRPM = m_table[i + 2] + (m_table[i + 5] - m_table[i + 2]) * t;
+			return solution;
+		}
+
+		/**
+		 * Interpolates one column of the table.
+		 *
+		 * @param distanceMeters the distance to the target in meters
+		 * @param column         0 for the aimer height, 1 for the top RPM, 2 for
+		 *                       the bottom RPM
+		 * @return the interpolated value
+		 */
+		private double lookup(double distanceMeters, int column) {
+			double x = (distanceMeters - m_minDistance) * m_inverseStep;
+			if (!(x > 0)) // also catches NaN
+				return m_table[column];
+			if (x >= m_lastRow)
+				return m_table[3 * m_lastRow + column];
+			int row = (int) x;
+			int i = 3 * row + column;
+			return m_table[i] + (m_table[i + 3] - m_table[i]) * (x - row);
+		}
+
+		public double getAngle(double distanceMeters) {
+			return lookup(distanceMeters, 0);
+		}
+
+		/**
+		 * Returns the speed of the top flywheel (see
+		 * {@link #solve(double, Solution)} for both).
+		 */
+		public double getRPM(double distanceMeters) {
+			return lookup(distanceMeters, 1);
+		}
+
+		public double calcAimerHeightFromDistance(double distanceMeters) {
+			return getAngle(distanceMeters) / 360;
+		}
+	}
 }
\ No newline at end of file
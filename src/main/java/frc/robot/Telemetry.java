@@ -0,0 +1,95 @@
+package frc.robot;
+
+import java.util.ArrayList;
+
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.NetworkTableInstance;
+
+/**
+ * Publishes dashboard values through publishers registered once at startup
+ * instead of looking up a {@code SmartDashboard} entry by key on every call.
+ * Setting a {@link NumberSignal} only stores the value; {@link #flush()}, called
+ * once per robot loop, sends the values that have changed by more than their
+ * deadband, but no more often than their minimum period allows. The topics
+ * live under "/SmartDashboard" so dashboards find them under the same keys as
+ * before.
+ */
+public class Telemetry {
+
+	/**
+	 * A number published to the dashboard.
+	 */
+	public static class NumberSignal {
+		private final DoublePublisher m_publisher;
+		private final double m_deadband;
+		private final long m_minPeriod;
+		private double m_value = Double.NaN;
+		private double m_publishedValue = Double.NaN;
+		private long m_publishedTime = 0;
+
+		NumberSignal(String key, double deadband, double minPeriodSeconds) {
+			m_publisher = NetworkTableInstance.getDefault().getTable("SmartDashboard").getDoubleTopic(key)
+					.publish();
+			m_deadband = deadband;
+			m_minPeriod = (long) (minPeriodSeconds * 1e9);
+		}
+
+		/**
+		 * Sets the value to publish at the next {@link Telemetry#flush()}.
+		 *
+		 * @param value the value
+		 */
+		public void set(double value) {
+			m_value = value;
+		}
+
+		/**
+		 * Publishes the value if it has changed by more than the deadband since it
+		 * was last published and the minimum period has passed.
+		 *
+		 * @param now the current time in nanoseconds
+		 */
+		void flush(long now) {
+			if (Double.isNaN(m_value))
+				return;
+			if (!Double.isNaN(m_publishedValue)
+					&& (Math.abs(m_value - m_publishedValue) <= m_deadband || now - m_publishedTime < m_minPeriod))
+				return;
+			m_publisher.set(m_value);
+			m_publishedValue = m_value;
+			m_publishedTime = now;
+		}
+	}
+
+	private static final ArrayList<NumberSignal> s_signalList = new ArrayList<NumberSignal>();
+	private static NumberSignal[] s_signals = new NumberSignal[0];
+	private static final LoopTimer.Section s_flushTimer = LoopTimer.section("Telemetry.flush");
+
+	/**
+	 * Registers a number to publish. Should be called during initialization (for
+	 * example, from a field initializer).
+	 *
+	 * @param key              the dashboard key
+	 * @param deadband         the smallest change worth publishing
+	 * @param minPeriodSeconds the minimum time between two updates in seconds
+	 * @return the {@code NumberSignal} to set the value through
+	 */
+	public static NumberSignal number(String key, double deadband, double minPeriodSeconds) {
+		var signal = new NumberSignal(key, deadband, minPeriodSeconds);
+		s_signalList.add(signal);
+		s_signals = s_signalList.toArray(new NumberSignal[0]);
+		return signal;
+	}
+
+	/**
+	 * Publishes the values set during this loop. Call once per robot loop after
+	 * {@code CommandScheduler.run()}.
+	 */
+	public static void flush() {
+		s_flushTimer.start();
+		long now = System.nanoTime();
+		for (var signal : s_signals)
+			signal.flush(now);
+		s_flushTimer.stop();
+	}
+}
@@ -10,6 +10,7 @@ public class BangBangDriveDistanceCommand extends Command {
 	private double m_target; // if distance, in meters; if angle, in degrees
 	private double m_amount;
 	private double m_tolerance;
+	private final double[] m_pose = new double[3];
 
 	/***
 	 * Autonomous command to drive straight
@@ -46,7 +47,7 @@ public class BangBangDriveDistanceCommand extends Command {
 	@Override
 	public void execute() {
 		double sign;
-		if (m_target > m_driveSubsystem.getPose().getX()) {
+		if (m_target > getX()) {
 			sign = 1;
 		} else {
 			sign = -1;
@@ -78,6 +79,11 @@ public class BangBangDriveDistanceCommand extends Command {
 	}
 
 	private double getDiff() {
-		return Math.abs(m_target - m_driveSubsystem.getPose().getX());
+		return Math.abs(m_target - getX());
+	}
+
+	private double getX() {
+		m_driveSubsystem.getPose(m_pose);
+		return m_pose[0];
 	}
 }
\ No newline at end of file
@@ -11,6 +11,7 @@ import edu.wpi.first.math.geometry.Transform2d;
 import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.trajectory.TrapezoidProfile;
 import edu.wpi.first.wpilibj2.command.Command;
+import frc.robot.FieldModel;
 import frc.robot.subsystems.DriveSubsystem;
 import frc.robot.subsystems.LimeLightSubsystem;
 
@@ -75,6 +76,11 @@ public class DriveCommand extends Command {
 	 */
 	private double m_angleTolerance;
 
+	/**
+	 * The pose of the robot (x, y, and heading in radians), reused every cycle.
+	 */
+	private final double[] m_pose = new double[3];
+
 	/**
 	 * Constructs a new {@code DriveCommand} whose purpose is to move the
 	 * robot by the specified x and y-coordinate and yaw values in the
@@ -187,11 +193,11 @@ public class DriveCommand extends Command {
 	 */
 	@Override
 	public void execute() {
-		Pose2d pose = m_driveSubsystem.getPose();
-		double speedX = m_controllerX.calculate(pose.getX());
-		double speedY = m_controllerY.calculate(pose.getY());
+		m_driveSubsystem.getPose(m_pose);
+		double speedX = m_controllerX.calculate(m_pose[0]);
+		double speedY = m_controllerY.calculate(m_pose[1]);
 		// NEGATION if positive turnSpeed: clockwise rotation
-		double speedYaw = -m_controllerYaw.calculate(pose.getRotation().getDegrees());
+		double speedYaw = -m_controllerYaw.calculate(Math.toDegrees(m_pose[2]));
 		// m_driveSubsystem.setModuleStates(m_controllerX.atGoal() ? 0 : speedX,
 		// m_controllerY.atGoal() ? 0 : speedY,
 		// m_controllerYaw.atGoal() ? 0 : speedYaw, true);
@@ -279,7 +285,8 @@ public class DriveCommand extends Command {
 	 * Constructs a {@code Commmand} for algining the robot to the specified
 	 * {@code Pose}.
 	 * 
-	 * @param targetPose         the target pose
+	 * @param targetPose         the target pose (mirrored by
+	 *                           {@code FieldModel.resolve} when the command starts)
 	 * @param distanceTolerance  the distance error in meters which is tolerable
 	 * @param angleTolerance     the angle error in degrees which is tolerable
 	 * @param previous           the {@code DriveCommand} (to be) executed right
@@ -293,7 +300,8 @@ public class DriveCommand extends Command {
 			DriveCommand previous, DriveSubsystem driveSubsystem,
 			LimeLightSubsystem limeLightSubsystem) {
 		return new DriveCommand(previous, driveSubsystem,
-				() -> driveSubsystem.getPose().plus(limeLightSubsystem.transformationTo(targetPose)),
+				() -> driveSubsystem.getPose()
+						.plus(limeLightSubsystem.transformationTo(FieldModel.resolve(targetPose))),
 				distanceTolerance, angleTolerance);
 	}
 
@@ -301,7 +309,8 @@ public class DriveCommand extends Command {
 	 * Constructs a {@code Commmand} for turning the robot to the specified target
 	 * position.
 	 * 
-	 * @param targetPosition     the target position
+	 * @param targetPosition     the target position (mirrored by
+	 *                           {@code FieldModel.resolve} when the command starts)
 	 * @param distanceTolerance  the distance error in meters which is tolerable
 	 * @param angleTolerance     the angle error in degrees which is tolerable
 	 * @param driveSubsystem     the {@code DriveSubsystem} to use
@@ -315,7 +324,7 @@ public class DriveCommand extends Command {
 			LimeLightSubsystem limeLightSubsystem) {
 		return new DriveCommand(driveSubsystem,
 				() -> driveSubsystem.getPose()
-						.plus(limeLightSubsystem.transformationToward(targetPosition)),
+						.plus(limeLightSubsystem.transformationToward(FieldModel.resolve(targetPosition))),
 				distanceTolerance, angleTolerance);
 	}
 
@@ -325,7 +334,8 @@ public class DriveCommand extends Command {
 	 * position while ensuring that the robot is away from the target by the
 	 * specified distance.
 	 * 
-	 * @param targetPosition     the target position
+	 * @param targetPosition     the target position (mirrored by
+	 *                           {@code FieldModel.resolve} when the command starts)
 	 * @param distanceToTarget   the desired distance between the robot and the
 	 *                           target position
 	 * @param distanceTolerance  the distance error in meters which is tolerable
@@ -341,7 +351,8 @@ public class DriveCommand extends Command {
 			LimeLightSubsystem limeLightSubsystem) {
 		return new DriveCommand(driveSubsystem,
 				() -> driveSubsystem.getPose()
-						.plus(limeLightSubsystem.transformationToward(targetPosition, distanceToTarget)),
+						.plus(limeLightSubsystem.transformationToward(FieldModel.resolve(targetPosition),
+								distanceToTarget)),
 				distanceTolerance, angleTolerance);
 	}
 
@@ -11,6 +11,7 @@ public class DriveDistanceCommand extends Command {
 	private double m_amount;
 	private ProfiledPIDController m_controller = new ProfiledPIDController(0.1, 0.02, 0,
 			new Constraints(3, 2));
+	private final double[] m_pose = new double[3];
 
 	/***
 	 * Autonomous command to drive straight
@@ -52,7 +53,8 @@ public class DriveDistanceCommand extends Command {
 	@Override
 	public void execute() {
 		// SmartDashboard.putNumber("err", m_controller.getPositionError());
-		var out = m_controller.calculate(m_driveSubsystem.getPose().getX());
+		m_driveSubsystem.getPose(m_pose);
+		var out = m_controller.calculate(m_pose[0]);
 		// SmartDashboard.putNumber("out", out);
 		// SmartDashboard.putNumber("Setpoint Position",
 		// m_controller.getSetpoint().position);
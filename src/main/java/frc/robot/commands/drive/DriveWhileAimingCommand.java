@@ -1,18 +1,18 @@
 package frc.robot.commands.drive;
 
+import static frc.robot.Constants.AimerConstants.kShootingRPM;
 import static frc.robot.Constants.DriveConstants.*;
-import static frc.robot.Constants.PoseConstants.*;
+import static frc.robot.Constants.ShotConstants.kRPMDeadband;
 
 import java.util.function.Supplier;
 
 import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.controller.ProfiledPIDController;
-import edu.wpi.first.math.geometry.Transform2d;
-import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.trajectory.TrapezoidProfile;
-import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj2.command.Command;
 import frc.robot.Constants.ControllerConstants;
+import frc.robot.FieldGeometry.Kind;
+import frc.robot.ShotSolver;
 import frc.robot.Targeter;
 import frc.robot.subsystems.AimerSubsystem;
 import frc.robot.subsystems.ArduinoSubsystem;
@@ -20,7 +20,6 @@ import frc.robot.subsystems.ArduinoSubsystem.StatusCode;
 import frc.robot.subsystems.DriveSubsystem;
 import frc.robot.subsystems.FlywheelSubsystem;
 import frc.robot.subsystems.LimeLightSubsystem;
-import frc.robot.subsystems.LimeLightSubsystem.Pose;
 
 /**
  * The {@code DriveWhileAimingCommand} is responsible for moving the robot such
@@ -84,24 +83,20 @@ public class DriveWhileAimingCommand extends Command {
 	private Long timestamp = null;
 
 	/**
-	 * The shooting delay.
+	 * The {@code ShotSolver} that leads the target by the motion of the robot.
 	 */
-	private double m_shootingDelay;
+	private ShotSolver m_shotSolver;
 
 	/**
-	 * The impact of distance changes on aiming (< 1).
+	 * The robot-relative velocity of the robot measured by the odometry.
 	 */
-	private double m_distanceSensitivity;
+	private final double[] m_velocity = new double[2];
 
 	/**
-	 * The position of the robot estimated previously.
+	 * The flywheel speeds last sent to the {@code FlywheelSubsystem} in RPM.
 	 */
-	private Translation2d m_previousPosition = null;
-
-	/**
-	 * The estimated velocity of the robot.
-	 */
-	private Translation2d m_velocity = null;
+	private double m_topRPM;
+	private double m_bottomRPM;
 
 	/**
 	 * Constructs a new {@code DriveWhileAimingCommand} whose purpose is to move the
@@ -113,8 +108,8 @@ public class DriveWhileAimingCommand extends Command {
 	 * @param strafeSpeed         the supplier that provides the strafe speed in
 	 *                            meters per second
 	 * @param angleTolerance      the angle error in degrees which is tolerable
-	 * @param shootingDelay       the shooting delay in seconds
-	 * @param distanceSensitivity the impact of distance changes on aiming (< 1)
+	 * @param shootingDelay       the time in seconds from aiming to the note
+	 *                            leaving the shooter
 	 * @param driveSubsystem      the {@code DriveSubsystem} used by the
 	 *                            {@code DriveWhileAimingCommand}
 	 * @param aimerSubsystem      the {@code AimerSubsystem} used by the
@@ -129,15 +124,13 @@ public class DriveWhileAimingCommand extends Command {
 	 *                            {@code DriveWhileAimingCommand}
 	 */
 	public DriveWhileAimingCommand(Supplier<Double> forwardSpeed, Supplier<Double> strafeSpeed,
-			double angleTolerance, double shootingDelay, double distanceSensitivity, DriveSubsystem driveSubsystem,
+			double angleTolerance, double shootingDelay, DriveSubsystem driveSubsystem,
 			AimerSubsystem aimerSubsystem,
 			Targeter targeter,
 			FlywheelSubsystem flywheelSubsystem, ArduinoSubsystem arduinoSubsystem,
 			LimeLightSubsystem limeLightSubsystem) {
 		m_forwardSpeed = forwardSpeed;
 		m_strafeSpeed = strafeSpeed;
-		m_shootingDelay = shootingDelay;
-		m_distanceSensitivity = distanceSensitivity;
 		m_controllerYaw = new ProfiledPIDController(kTurnP * 1.5, kTurnI, kTurnD,
 				new TrapezoidProfile.Constraints(kTurnMaxVelocity, kTurnMaxAcceleration * 1.5));
 		m_controllerYaw.setTolerance(angleTolerance);
@@ -146,6 +139,7 @@ public class DriveWhileAimingCommand extends Command {
 		m_driveSubsystem = driveSubsystem;
 		m_aimerSubsystem = aimerSubsystem;
 		m_targeter = targeter;
+		m_shotSolver = new ShotSolver(targeter, shootingDelay);
 		m_flywheelSubsystem = flywheelSubsystem;
 		m_arduinoSubsystem = arduinoSubsystem;
 		m_limeLightSubsystem = limeLightSubsystem;
@@ -163,12 +157,11 @@ public class DriveWhileAimingCommand extends Command {
 	@Override
 	public void initialize() {
 		m_controllerYaw.reset(0);
+		m_topRPM = m_bottomRPM = kShootingRPM;
 		if (m_flywheelSubsystem != null) {
-			m_flywheelSubsystem.setBottomVelocity(8000);
-			m_flywheelSubsystem.setTopVelocity(8000);
+			m_flywheelSubsystem.setBottomVelocity(m_bottomRPM);
+			m_flywheelSubsystem.setTopVelocity(m_topRPM);
 		}
-		m_previousPosition = null;
-		m_velocity = null;
 	}
 
 	/**
@@ -185,21 +178,22 @@ public class DriveWhileAimingCommand extends Command {
 		strSpeed = Math.signum(strSpeed) * (strSpeed * strSpeed);
 		double rotSpeed = 0;
 		try {
-			var position = m_limeLightSubsystem.estimatedPose().getTranslation();
-			if (m_previousPosition != null) {
-				Translation2d velocity = position
-						.minus(m_previousPosition);
-				m_velocity = m_velocity == null ? velocity
-						: new Translation2d(velocity.getX() * 0.2 + m_velocity.getX() * 0.8,
-								velocity.getY() * 0.2 + m_velocity.getY() * 0.8);
+			var pose = m_limeLightSubsystem.estimatedPose();
+			var target = m_limeLightSubsystem.closest(Kind.SPEAKER);
+			double heading = pose.getRotation().getRadians();
+			double vx = 0;
+			double vy = 0;
+			if (m_driveSubsystem.getRobotRelativeVelocity(m_velocity)) { // into the field frame
+				double cos = Math.cos(heading);
+				double sin = Math.sin(heading);
+				vx = m_velocity[0] * cos - m_velocity[1] * sin;
+				vy = m_velocity[0] * sin + m_velocity[1] * cos;
 			}
-			m_previousPosition = position;
-			var transform = transformationToClosestSpeaker();
-			double angle = transform.getRotation().getDegrees();
+			var solution = m_shotSolver.solve(pose.getX(), pose.getY(), vx, vy, target.getX(), target.getY());
+			double angle = Math.toDegrees(MathUtil.angleModulus(m_shotSolver.getHeadingRadians() - heading));
 			rotSpeed = m_controllerYaw.calculate(-angle); // to achieve angle error 0
-			double distance = transform.getTranslation().getNorm();
-			double actuatorHeightSetpoint = m_targeter.getAngle(distance);
-			m_aimerSubsystem.setAimerHeight(actuatorHeightSetpoint);
+			m_aimerSubsystem.setAimerHeight(solution.aimerHeight);
+			setFlywheelSpeeds(solution);
 			if (timestamp == null || timestamp < System.currentTimeMillis()) {
 				double readiness = m_limeLightSubsystem.confidence()
 						+ (m_aimerSubsystem.atAimerSetpoint() ? 0 : -1);
@@ -220,23 +214,23 @@ public class DriveWhileAimingCommand extends Command {
 	}
 
 	/**
-	 * Returns the transformation for shooting to the closest speaker.
+	 * Sends the flywheel speeds of the specified solution to the
+	 * {@code FlywheelSubsystem} if they differ from the ones last sent by more
+	 * than {@code kRPMDeadband}.
 	 * 
-	 * @return the transformation for shooting to the closest speaker
-	 */
-	private Transform2d transformationToClosestSpeaker() {
-		var target = m_limeLightSubsystem.closest(kBlueSpeakerPosition, kRedSpeakerPosition);
-		var pose = m_limeLightSubsystem.estimatedPose();
-		if (m_velocity != null) {
-			var velocity = m_velocity.times(m_shootingDelay / TimedRobot.kDefaultPeriod);
-			pose = new Pose(velocity.getX(), velocity.getY(), 0).add(pose);
-			var distance = LimeLightSubsystem.transformationToward(target, 0,
-					pose).getTranslation().getNorm();
-			velocity = m_velocity.times(m_distanceSensitivity * distance / 10 /
-					TimedRobot.kDefaultPeriod);
-			target = new Translation2d(target.getX() - velocity.getX(), target.getY() - velocity.getY());
+	 * @param solution the solution of the {@code ShotSolver}
+	 */
+	private void setFlywheelSpeeds(Targeter.Solution solution) {
+		if (m_flywheelSubsystem == null)
+			return;
+		if (Math.abs(solution.bottomRPM - m_bottomRPM) > kRPMDeadband) {
+			m_bottomRPM = solution.bottomRPM;
+			m_flywheelSubsystem.setBottomVelocity(m_bottomRPM);
+		}
+		if (Math.abs(solution.topRPM - m_topRPM) > kRPMDeadband) {
+			m_topRPM = solution.topRPM;
+			m_flywheelSubsystem.setTopVelocity(m_topRPM);
 		}
-		return LimeLightSubsystem.transformationToward(target, 0, pose);
 	}
 
 	/**
@@ -16,6 +16,7 @@ public class NinjaStarCommand extends Command {
 	private final ClampedController m_xController = new ClampedController(3.6, 1.2, 3.6);
 	private final ClampedController m_yController = new ClampedController(3.6, 1.2, 3.6);
 	private final ClampedController m_rotController = new ClampedController(0.12, 1.2, 3.6);
+	private final double[] m_pose = new double[3];
 
 	/**
 	 * Creates a command to drive to a point by specifying a distance and and angle
@@ -67,15 +68,16 @@ public class NinjaStarCommand extends Command {
 
 	@Override
 	public void execute() {
-		double xSpeed = m_xController.calculate(m_driveSubsystem.getPose().getX());
+		m_driveSubsystem.getPose(m_pose);
+		double xSpeed = m_xController.calculate(m_pose[0]);
 		if (m_xController.atSetpoint()) {
 			xSpeed = 0;
 		}
-		double ySpeed = m_yController.calculate(m_driveSubsystem.getPose().getY());
+		double ySpeed = m_yController.calculate(m_pose[1]);
 		if (m_yController.atSetpoint()) {
 			ySpeed = 0;
 		}
-		double rotSpeed = -m_rotController.calculate(m_driveSubsystem.getHeading().getDegrees());
+		double rotSpeed = -m_rotController.calculate(m_driveSubsystem.getHeadingDegrees());
 		if (m_rotController.atSetpoint()) {
 			rotSpeed = 0;
 		}
@@ -1,7 +1,5 @@
 package frc.robot.commands.drive;
 
-import edu.wpi.first.math.geometry.Rotation2d;
-import edu.wpi.first.math.kinematics.SwerveModuleState;
 import edu.wpi.first.wpilibj2.command.Command;
 import frc.robot.ClampedController;
 import frc.robot.subsystems.DriveSubsystem;
@@ -45,15 +43,15 @@ public class PolarDriveCommand extends Command {
 
 	@Override
 	public void initialize() {
-		m_target = m_driveSubsystem.getModulePositions()[0].distanceMeters + m_distance;
+		m_target = m_driveSubsystem.getModuleDistance(0) + m_distance;
 		m_controller.setSetpoint(m_target);
 		m_controller.setTolerance(m_tolerance);
 	}
 
 	@Override
 	public void execute() {
-		double speed = m_controller.calculate(m_driveSubsystem.getModulePositions()[0].distanceMeters);
-		m_driveSubsystem.setModuleStatesDirect(new SwerveModuleState(speed, Rotation2d.fromDegrees(m_angle)));
+		double speed = m_controller.calculate(m_driveSubsystem.getModuleDistance(0));
+		m_driveSubsystem.setModuleStatesDirect(speed, m_angle);
 	}
 
 	@Override
@@ -46,10 +46,10 @@ public class SetSteeringCommand extends Command {
 	// Returns true when the command should end.
 	@Override
 	public boolean isFinished() {
-		boolean FLWithinTolerance = MathUtil.isNear(m_angle, m_subsystem.getModulePositions()[0].angle.getDegrees(), 1);
-		boolean FRWithinTolerance = MathUtil.isNear(m_angle, m_subsystem.getModulePositions()[1].angle.getDegrees(), 1);
-		boolean BLWithinTolerance = MathUtil.isNear(m_angle, m_subsystem.getModulePositions()[2].angle.getDegrees(), 1);
-		boolean BRWithinTolerance = MathUtil.isNear(m_angle, m_subsystem.getModulePositions()[3].angle.getDegrees(), 1);
+		boolean FLWithinTolerance = MathUtil.isNear(m_angle, m_subsystem.getModuleAngle(0), 1);
+		boolean FRWithinTolerance = MathUtil.isNear(m_angle, m_subsystem.getModuleAngle(1), 1);
+		boolean BLWithinTolerance = MathUtil.isNear(m_angle, m_subsystem.getModuleAngle(2), 1);
+		boolean BRWithinTolerance = MathUtil.isNear(m_angle, m_subsystem.getModuleAngle(3), 1);
 		// SmartDashboard.putNumber("FL Module Angle",
 		// m_subsystem.getModulePositions()[0].angle.getDegrees());
 		// SmartDashboard.putNumber("FR Module Angle",
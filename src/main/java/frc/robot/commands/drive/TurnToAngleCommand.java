@@ -58,7 +58,7 @@ public class TurnToAngleCommand extends Command {
 
 	@Override
 	public void execute() {
-		double speed = -m_controller.calculate(m_driveSubsystem.getHeading().getDegrees());
+		double speed = -m_controller.calculate(m_driveSubsystem.getHeadingDegrees());
 		m_driveSubsystem.setModuleStates(0, 0, speed, false);
 	}
 
@@ -2,6 +2,7 @@ package frc.robot.subsystems;
 
 import static frc.robot.Constants.AimerConstants.*;
 
+import com.ctre.phoenix6.StatusSignal;
 import com.ctre.phoenix6.hardware.CANcoder;
 import com.revrobotics.CANSparkBase.IdleMode;
 import com.revrobotics.CANSparkLowLevel.MotorType;
@@ -9,39 +10,148 @@ import com.revrobotics.CANSparkMax;
 import com.revrobotics.SparkLimitSwitch;
 
 import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.controller.ProfiledPIDController;
+import edu.wpi.first.math.controller.SimpleMotorFeedforward;
+import edu.wpi.first.math.trajectory.TrapezoidProfile;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Notifier;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
-import frc.robot.ClampedController;
+import frc.robot.CanBudget;
 import frc.robot.Constants.AimerConstants;
+import frc.robot.DeviceConfigurator;
+import frc.robot.DeviceConfigurator.SparkMaxConfig;
+import frc.robot.LoopTimer;
+import frc.robot.Telemetry;
 
+/**
+ * Moves the aimer along a trapezoidal profile limited to {@code kMaxVelocity}
+ * and {@code kMaxAcceleration}: the velocity of the profile goes through a
+ * feedforward and a P loop on the CANcoder corrects the rest. The loop runs at
+ * {@code kControlPeriod} on its own thread, and since the profile is known,
+ * {@link #timeToHeight(double)} predicts how long a move takes so that other
+ * mechanisms do not have to wait for the aimer to settle.
+ */
 public class AimerSubsystem extends SubsystemBase {
+	private final LoopTimer.Section m_periodicTimer = LoopTimer.section("AimerSubsystem.periodic");
 	private final CANSparkMax m_neoAimer = new CANSparkMax(AimerConstants.kAimerLeadScrewPort,
 			MotorType.kBrushless);
-	private final ClampedController m_controller = new ClampedController(kP, kMinAimerPower, kMaxAimerPower);
+	private final TrapezoidProfile.Constraints m_constraints = new TrapezoidProfile.Constraints(kMaxVelocity,
+			kMaxAcceleration);
+	/** The controller, only used while holding its lock. */
+	private final ProfiledPIDController m_controller = new ProfiledPIDController(kP, 0, 0, m_constraints,
+			kControlPeriod);
+	private final SimpleMotorFeedforward m_feedforward = new SimpleMotorFeedforward(kS, kV);
+	/** The profile used by {@link #timeToHeight(double)} (on the main thread). */
+	private final TrapezoidProfile m_estimateProfile = new TrapezoidProfile(m_constraints);
+	private final TrapezoidProfile.State m_estimateStart = new TrapezoidProfile.State();
+	private final TrapezoidProfile.State m_estimateGoal = new TrapezoidProfile.State();
 	private final CANcoder m_aimCancoder = new CANcoder(AimerConstants.kAimerEncoderPort);
-	private double m_aimerHeightSetpoint;
-	private boolean m_isManual;
+	/** The position signal, only refreshed by the control thread. */
+	private final StatusSignal<Double> m_position = m_aimCancoder.getAbsolutePosition();
+	/**
+	 * Runs {@link #control()} at {@code kControlPeriod} on its own thread so that
+	 * the aimer is corrected more often than once per robot loop.
+	 */
+	private final Notifier m_controlNotifier = new Notifier(this::control);
+	private final Telemetry.NumberSignal m_timeToSetpointSignal = Telemetry.number("Aimer Time To Setpoint",
+			0.01, 0.1);
+	private volatile double m_aimerHeightSetpoint;
+	private volatile boolean m_isManual;
+	// Written by the control thread
+	private volatile double m_height;
+	private volatile double m_profileVelocity;
+	private volatile boolean m_atGoal;
+	/**
+	 * The last output sent to the motor ({@code NaN} to send the next one
+	 * anyway), only used while holding the lock of the controller.
+	 */
+	private double m_output = Double.NaN;
 
 	/**
 	 * Initializes a new instance of the {@link AimerSubsystem} class.
 	 */
 	public AimerSubsystem() {
-		// Initialize Motors
-		m_neoAimer.restoreFactoryDefaults();
-		m_neoAimer.setInverted(AimerConstants.kMasterInvert);
-		m_neoAimer.setIdleMode(IdleMode.kBrake);
-		m_neoAimer.enableVoltageCompensation(12);
-		m_neoAimer.setSmartCurrentLimit(AimerConstants.kSmartCurrentLimit);
-		m_neoAimer.setSecondaryCurrentLimit(AimerConstants.kPeakCurrentLimit,
-				AimerConstants.kPeakCurrentDurationMillis);
-		SparkLimitSwitch forwardSwitch = m_neoAimer.getForwardLimitSwitch(SparkLimitSwitch.Type.kNormallyOpen);
-		forwardSwitch.enableLimitSwitch(true);
-		SparkLimitSwitch reverseSwitch = m_neoAimer.getReverseLimitSwitch(SparkLimitSwitch.Type.kNormallyOpen);
-		reverseSwitch.enableLimitSwitch(true);
+		// Initialize Motors (only the CANcoder is read)
+		DeviceConfigurator.configure("Aimer", m_neoAimer, new SparkMaxConfig()
+				.restoreFactoryDefaults()
+				.inverted(AimerConstants.kMasterInvert)
+				.idleMode(IdleMode.kBrake)
+				.voltageCompensation(12)
+				.smartCurrentLimit(AimerConstants.kSmartCurrentLimit)
+				.secondaryCurrentLimit(AimerConstants.kPeakCurrentLimit, AimerConstants.kPeakCurrentDurationMillis)
+				.limitSwitches(SparkLimitSwitch.Type.kNormallyOpen)
+				.commandPeriod(kControlPeriod));
+		CanBudget.configure("Aimer CANcoder", m_aimCancoder, kControlPeriod, m_position);
 		m_controller.setTolerance(AimerConstants.kAimerTolerance);
+		m_height = readHeight();
+		m_controller.reset(m_height);
 		this.setAimerHeight(kDefaultActuatorHeight);
+		m_controlNotifier.setName("Aimer");
+		m_controlNotifier.startPeriodic(kControlPeriod);
+	}
+
+	/**
+	 * Reads the "height" of the aimer from the CANcoder (on the control thread
+	 * only, once running).
+	 *
+	 * @return the "height" from 0-1 (cancoder value / maximum)
+	 */
+	private double readHeight() {
+		return m_position.refresh().getValueAsDouble() / AimerConstants.kAimerMaxEncoderValue;
+	}
+
+	/**
+	 * Follows the profile to the setpoint, never driving the motor with less than
+	 * {@code kS} while away from the setpoint of the profile so that the lead
+	 * screw does not stall short of it. Stops driving the motor once at the
+	 * setpoint (the lead screw holds the aimer), and restarts the profile from
+	 * the current height while disabled or under manual control so that it does
+	 * not jump when the control resumes. The output is only sent when it
+	 * changes, so holding the setpoint costs no CAN frames.
+	 */
+	private void control() {
+		double height = readHeight();
+		m_height = height;
+		synchronized (m_controller) {
+			if (m_isManual || DriverStation.isDisabled()) {
+				m_controller.reset(height);
+				m_profileVelocity = 0;
+				m_atGoal = false;
+				m_output = Double.NaN;
+				return;
+			}
+			double feedback = m_controller.calculate(height);
+			m_profileVelocity = m_controller.getSetpoint().velocity;
+			m_atGoal = m_controller.atGoal();
+			if (m_atGoal) {
+				setOutput(0);
+				return;
+			}
+			double output = feedback + m_feedforward.calculate(m_profileVelocity);
+			double error = m_controller.getPositionError();
+			if (Math.abs(output) < kS && Math.abs(error) > kAimerTolerance) {
+				// the feedforward only overcomes stiction while the profile moves
+				output = Math.copySign(kS, error);
+			}
+			setOutput(MathUtil.clamp(output, -kMaxAimerPower, kMaxAimerPower));
+		}
+	}
+
+	/**
+	 * Sends the specified output to the motor unless it was the last one sent.
+	 * Must be called while holding the lock of the controller.
+	 *
+	 * @param output the output from -1 to 1
+	 */
+	private void setOutput(double output) {
+		if (output != m_output) {
+			m_output = output;
+			m_neoAimer.set(output);
+		}
 	}
 
 	public void periodic() {
+		m_periodicTimer.start();
 		// If using a setpoint
 		// SmartDashboard.putNumber("Aimcoder Value",
 		// m_aimCancoder.getAbsolutePosition().getValueAsDouble());
@@ -51,13 +161,9 @@ public class AimerSubsystem extends SubsystemBase {
 		// SmartDashboard.putNumber("Aimer Neo Speed", m_neoAimer.get());
 		// SmartDashboard.putNumber("Aimer 550 Temperature",
 		// m_neoAimer.getMotorTemperature());
-		if (!m_isManual) {
-			if (m_controller.atSetpoint()) {
-				m_neoAimer.set(0);
-			} else {
-				m_neoAimer.set(m_controller.calculate(getAimerHeight()));
-			}
-		}
+		// the control thread drives the motor
+		m_timeToSetpointSignal.set(Math.min(timeToSetpoint(), kMaxPredictedTime));
+		m_periodicTimer.stop();
 	}
 
 	public void stopMotor() {
@@ -70,7 +176,7 @@ public class AimerSubsystem extends SubsystemBase {
 	 * @return the "height" from 0-1 (cancoder value / maximum)
 	 */
 	public double getAimerHeight() {
-		return m_aimCancoder.getAbsolutePosition().getValueAsDouble() / AimerConstants.kAimerMaxEncoderValue;
+		return m_height;
 	}
 
 	/**
@@ -79,8 +185,40 @@ public class AimerSubsystem extends SubsystemBase {
 	 * @param the angle of the shooter from 0-1 (min to max)
 	 */
 	public void setAimerHeight(double actuatorHeightSetpoint) {
-		m_aimerHeightSetpoint = actuatorHeightSetpoint;
-		m_controller.setSetpoint(m_aimerHeightSetpoint);
+		synchronized (m_controller) {
+			m_aimerHeightSetpoint = actuatorHeightSetpoint;
+			m_controller.setGoal(m_aimerHeightSetpoint);
+			// until the control thread has checked the new setpoint
+			m_atGoal = false;
+		}
+	}
+
+	/**
+	 * Predicts the time it takes the aimer to reach the specified "height" from
+	 * where it is now, following the profile.
+	 *
+	 * @param height the "height" from 0-1 (min to max)
+	 * @return the time in seconds (0 if already at that height)
+	 */
+	public double timeToHeight(double height) {
+		if (Math.abs(height - m_height) < AimerConstants.kAimerTolerance
+				&& Math.abs(m_profileVelocity) < kSettledVelocity)
+			return 0;
+		m_estimateStart.position = m_height;
+		m_estimateStart.velocity = m_profileVelocity;
+		m_estimateGoal.position = height;
+		m_estimateGoal.velocity = 0;
+		m_estimateProfile.calculate(0, m_estimateStart, m_estimateGoal);
+		return m_estimateProfile.totalTime();
+	}
+
+	/**
+	 * Predicts the time it takes the aimer to reach its setpoint.
+	 *
+	 * @return the time in seconds (0 if at the setpoint)
+	 */
+	public double timeToSetpoint() {
+		return m_atGoal ? 0 : timeToHeight(m_aimerHeightSetpoint);
 	}
 
 	// public void adjustAimerSetpoint(double adjustAmount) {
@@ -90,11 +228,17 @@ public class AimerSubsystem extends SubsystemBase {
 
 	public void setSpeed(double speed) {
 		speed = Math.signum(speed) * MathUtil.clamp(Math.abs(speed), 0, AimerConstants.kMaxAimerPower);
-		m_neoAimer.set(speed);
+		synchronized (m_controller) {
+			setOutput(speed);
+		}
 	}
 
+	/**
+	 * @return Whether the profile has reached the setpoint and the aimer is
+	 *         within {@code kAimerTolerance} of it.
+	 */
 	public boolean atAimerSetpoint() {
-		return m_controller.atSetpoint();
+		return m_atGoal;
 	}
 
 	public void setManual(boolean isManual) {
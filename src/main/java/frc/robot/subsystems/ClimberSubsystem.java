@@ -4,15 +4,22 @@
 
 package frc.robot.subsystems;
 
+import java.util.concurrent.CompletableFuture;
+
 import com.revrobotics.CANSparkBase.ControlType;
-import com.revrobotics.CANSparkBase.SoftLimitDirection;
+import com.revrobotics.CANSparkBase.IdleMode;
 import com.revrobotics.CANSparkLowLevel.MotorType;
 import com.revrobotics.CANSparkMax;
 import com.revrobotics.RelativeEncoder;
 import com.revrobotics.SparkPIDController;
 
+import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.CanBudget.SparkSignal;
+import frc.robot.Constants.CanConstants;
 import frc.robot.Constants.ClimbConstants;
+import frc.robot.DeviceConfigurator;
+import frc.robot.DeviceConfigurator.SparkMaxConfig;
 
 public class ClimberSubsystem extends SubsystemBase {
 
@@ -34,40 +41,34 @@ public class ClimberSubsystem extends SubsystemBase {
 	/** Creates a new ClimberSubsystem. */
 	public ClimberSubsystem() {
 
-		m_leftMotor.restoreFactoryDefaults();
-		m_leftMotor.setInverted(ClimbConstants.kLeftInvert);
-		m_leftMotor.setIdleMode(CANSparkMax.IdleMode.kBrake);
-		m_leftMotor.enableVoltageCompensation(12);
-		m_leftMotor.setSmartCurrentLimit(ClimbConstants.kSmartCurrentLimit);
-		m_leftMotor.setSecondaryCurrentLimit(ClimbConstants.kSecondaryCurrentLimit);
-		m_leftMotor.setSoftLimit(SoftLimitDirection.kForward, ClimbConstants.kMaxExtension);
-		m_leftMotor.setSoftLimit(SoftLimitDirection.kReverse, 0);
-		m_leftMotor.enableSoftLimit(SoftLimitDirection.kForward, true);
-		m_leftMotor.enableSoftLimit(SoftLimitDirection.kReverse, true);
-
-		m_rightMotor.restoreFactoryDefaults();
-		m_rightMotor.setInverted(ClimbConstants.kRightInvert);
-		m_rightMotor.setIdleMode(CANSparkMax.IdleMode.kBrake);
-		m_rightMotor.enableVoltageCompensation(12);
-		m_rightMotor.setSmartCurrentLimit(ClimbConstants.kSmartCurrentLimit);
-		m_rightMotor.setSecondaryCurrentLimit(ClimbConstants.kSecondaryCurrentLimit);
-		m_rightMotor.setSoftLimit(SoftLimitDirection.kForward, ClimbConstants.kMaxExtension);
-		m_rightMotor.setSoftLimit(SoftLimitDirection.kReverse, 0);
-		m_rightMotor.enableSoftLimit(SoftLimitDirection.kForward, true);
-		m_rightMotor.enableSoftLimit(SoftLimitDirection.kReverse, true);
-
-		m_leftPidController.setP(ClimbConstants.kP);
-		m_leftPidController.setI(ClimbConstants.kI);
-		m_leftPidController.setD(ClimbConstants.kD);
-		m_leftPidController.setFF(ClimbConstants.kFF);
-		m_leftPidController.setOutputRange(ClimbConstants.kMinOutput, ClimbConstants.kMaxOutput);
-
-		m_rightPidController.setP(ClimbConstants.kP);
-		m_rightPidController.setI(ClimbConstants.kI);
-		m_rightPidController.setD(ClimbConstants.kD);
-		m_rightPidController.setFF(ClimbConstants.kFF);
-		m_rightPidController.setOutputRange(ClimbConstants.kMinOutput, ClimbConstants.kMaxOutput);
-		resetEncoder();
+		// zero the encoders only once both controllers are configured so the
+		// configuration (which may restore the factory defaults) cannot race the reset
+		CompletableFuture.allOf(
+				DeviceConfigurator.configure("Left Climber", m_leftMotor, motorConfig(ClimbConstants.kLeftInvert)),
+				DeviceConfigurator.configure("Right Climber", m_rightMotor, motorConfig(ClimbConstants.kRightInvert)))
+				.thenRun(this::resetEncoder);
+	}
+
+	/**
+	 * Returns the configuration of a climber motor.
+	 * 
+	 * @param inverted whether or not the motor is inverted
+	 * @return the configuration
+	 */
+	private static SparkMaxConfig motorConfig(boolean inverted) {
+		return new SparkMaxConfig()
+				.restoreFactoryDefaults()
+				.inverted(inverted)
+				.idleMode(IdleMode.kBrake)
+				.voltageCompensation(12)
+				.smartCurrentLimit(ClimbConstants.kSmartCurrentLimit)
+				.secondaryCurrentLimit(ClimbConstants.kSecondaryCurrentLimit)
+				.softLimits(0, ClimbConstants.kMaxExtension)
+				.pid(ClimbConstants.kP, ClimbConstants.kI, ClimbConstants.kD)
+				.ff(ClimbConstants.kFF)
+				.outputRange(ClimbConstants.kMinOutput, ClimbConstants.kMaxOutput)
+				.reads(SparkSignal.POSITION, TimedRobot.kDefaultPeriod)
+				.reads(SparkSignal.CURRENT, CanConstants.kTelemetryPeriod);
 	}
 
 	@Override
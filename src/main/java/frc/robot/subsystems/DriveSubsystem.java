@@ -6,6 +6,8 @@ package frc.robot.subsystems;
 
 import static frc.robot.Constants.DriveConstants.*;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Arrays;
 import java.util.function.Supplier;
 
@@ -15,41 +17,91 @@ import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.kinematics.ChassisSpeeds;
-import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
-import edu.wpi.first.math.kinematics.SwerveDriveOdometry;
 import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
 import edu.wpi.first.networktables.NetworkTableInstance;
-import edu.wpi.first.networktables.ProtobufPublisher;
-import edu.wpi.first.networktables.StructArrayPublisher;
+import edu.wpi.first.networktables.RawPublisher;
 import edu.wpi.first.units.Units;
+import edu.wpi.first.wpilibj.Notifier;
 import edu.wpi.first.wpilibj.RobotBase;
 import edu.wpi.first.wpilibj.SPI;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.Commands;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import edu.wpi.first.wpilibj2.command.sysid.SysIdRoutine;
 import frc.robot.Constants.ControllerConstants;
+import frc.robot.Constants.DeviceConstants;
+import frc.robot.DeviceConfigurator;
+import frc.robot.LoopTimer;
+import frc.robot.PoseHistory;
+import frc.robot.SwerveKinematics;
 import frc.robot.SwerveModule;
+import frc.robot.SwerveOdometry;
+import frc.robot.Telemetry;
 
 public class DriveSubsystem extends SubsystemBase {
 	private final SwerveModule m_frontLeft;
 	private final SwerveModule m_frontRight;
 	private final SwerveModule m_backLeft;
 	private final SwerveModule m_backRight;
+	/** The swerve modules, in order of FL, FR, BL, BR. */
+	private final SwerveModule[] m_modules;
 
-	private final SwerveDriveKinematics m_kinematics = new SwerveDriveKinematics(
+	private final SwerveKinematics m_kinematics = new SwerveKinematics(
 			kFrontLeftLocation, kFrontRightLocation, kBackLeftLocation, kBackRightLocation);
-	private final SwerveDriveOdometry m_odometry;
+	/**
+	 * The odometry, updated by the odometry thread. Synchronize on it when
+	 * updating or resetting it.
+	 */
+	private final SwerveOdometry m_odometry;
+	/** The poses calculated by the odometry thread. */
+	private final PoseHistory m_poseHistory = new PoseHistory(kOdometryHistoryLength);
+	/**
+	 * Runs {@link #updateOdometry()} at {@code kOdometryPeriod} on its own thread
+	 * so that the pose does not lag behind by up to a whole robot loop.
+	 */
+	private final Notifier m_odometryNotifier = new Notifier(this::updateOdometry);
+	// Buffers only used by the odometry thread
+	private final double[] m_odometryDistances = new double[4];
+	private final double[] m_odometryAngles = new double[4];
 	private final AHRS m_gyro = new AHRS(SPI.Port.kMXP);
-	private double m_headingOffset = 0;
+	private volatile double m_headingOffset = 0;
 	private Rotation2d m_heading = new Rotation2d();
 	private final SysIdRoutine m_sysidRoutine;
 
-	private final ProtobufPublisher<Pose2d> m_posePublisher;
-	private final StructArrayPublisher<SwerveModuleState> m_targetModuleStatePublisher;
-	private final StructArrayPublisher<SwerveModuleState> m_currentModuleStatePublisher;
+	// Buffers reused every cycle so that the control loop does not allocate
+	private final double[] m_robotRelativeSpeeds = new double[2];
+	private final double[] m_targetSpeeds = new double[4];
+	private final double[] m_targetAngles = new double[4];
+	private final double[] m_currentAngles = new double[4];
+	private final double[] m_distances = new double[4];
+	private final SwerveModulePosition[] m_modulePositions = new SwerveModulePosition[4];
+	/**
+	 * The module states (in order of FL, FR, BL, BR) and the pose published
+	 * every loop, packed in the layout of the {@code SwerveModuleState} and
+	 * {@code Pose2d} structs.
+	 */
+	private final ByteBuffer m_targetStateBuffer = structBuffer(SwerveModuleState.struct.getSize() * 4);
+	private final ByteBuffer m_currentStateBuffer = structBuffer(SwerveModuleState.struct.getSize() * 4);
+	private final ByteBuffer m_poseBuffer = structBuffer(Pose2d.struct.getSize());
+	/** The pose last returned by {@link #getPose()}. */
+	private Pose2d m_pose = new Pose2d();
+	private final double[] m_latestPose = new double[3];
+	// Buffers used by getRobotRelativeVelocity
+	private final double[] m_velocityLatestPose = new double[3];
+	private final double[] m_velocityPastPose = new double[3];
+
+	private final LoopTimer.Section m_periodicTimer = LoopTimer.section("DriveSubsystem.periodic");
+	private final LoopTimer.Section m_sampleTimer = LoopTimer.section("DriveSubsystem.sample");
+	private final Telemetry.NumberSignal m_headingRadiansSignal = Telemetry.number("Heading Radians", 0.001, 0.05);
+	private final Telemetry.NumberSignal m_headingDegreesSignal = Telemetry.number("Heading Degrees", 0.05, 0.05);
+
+	// Published as raw struct bytes so that publishing does not allocate (the
+	// dashboards decode them as a Pose2d and SwerveModuleState[])
+	private final RawPublisher m_posePublisher;
+	private final RawPublisher m_targetModuleStatePublisher;
+	private final RawPublisher m_currentModuleStatePublisher;
 
 	/** Creates a new DriveSubsystem. */
 	public DriveSubsystem() {
@@ -61,27 +113,31 @@ public class DriveSubsystem extends SubsystemBase {
 					Arrays.fill(pos, new SwerveModuleState(volt.magnitude(), new Rotation2d(Math.PI / 2)));
 					setModuleStates(pos);
 				}, null, this));
-		m_posePublisher = NetworkTableInstance.getDefault().getProtobufTopic("/SmartDashboard/Pose", Pose2d.proto)
-				.publish();
-		m_targetModuleStatePublisher = NetworkTableInstance.getDefault()
-				.getStructArrayTopic("/SmartDashboard/Target Swerve Modules States", SwerveModuleState.struct)
-				.publish();
-		m_currentModuleStatePublisher = NetworkTableInstance.getDefault()
-				.getStructArrayTopic("/SmartDashboard/Current Swerve Modules States", SwerveModuleState.struct)
-				.publish();
+		var instance = NetworkTableInstance.getDefault();
+		instance.addSchema(Pose2d.struct);
+		instance.addSchema(SwerveModuleState.struct);
+		m_posePublisher = instance.getRawTopic("/SmartDashboard/Pose").publish(Pose2d.struct.getTypeString());
+		m_targetModuleStatePublisher = instance.getRawTopic("/SmartDashboard/Target Swerve Modules States")
+				.publish(SwerveModuleState.struct.getTypeString() + "[]");
+		m_currentModuleStatePublisher = instance.getRawTopic("/SmartDashboard/Current Swerve Modules States")
+				.publish(SwerveModuleState.struct.getTypeString() + "[]");
 		m_frontLeft = new SwerveModule(kFrontLeftCANCoderPort, kFrontLeftDrivePort, kFrontLeftSteerPort);
 		m_frontRight = new SwerveModule(kFrontRightCANCoderPort, kFrontRightDrivePort, kFrontRightSteerPort);
 		m_backLeft = new SwerveModule(kBackLeftCANCoderPort, kBackLeftDrivePort, kBackLeftSteerPort);
 		m_backRight = new SwerveModule(kBackRightCANCoderPort, kBackRightDrivePort, kBackRightSteerPort);
+		m_modules = new SwerveModule[] { m_frontLeft, m_frontRight, m_backLeft, m_backRight };
+		for (int i = 0; i < m_modules.length; i++) {
+			m_modulePositions[i] = new SwerveModulePosition();
+		}
 		m_gyro.zeroYaw();
 		resetEncoders();
-		// Wait 100 milliseconds to let all the encoders reset
-		try {
-			Thread.sleep(100);
-		} catch (InterruptedException e) {
-			e.printStackTrace();
-		}
-		m_odometry = new SwerveDriveOdometry(m_kinematics, getHeading(), getModulePositions());
+		// Wait (at most kEncoderResetTimeout) for all the encoders to report the reset
+		DeviceConfigurator.waitUntil(this::encodersReset, DeviceConstants.kEncoderResetTimeout);
+		readDistances();
+		m_odometry = new SwerveOdometry(m_kinematics, getHeadingRadians(), m_distances, 0, 0, getHeadingRadians());
+		m_poseHistory.add(Timer.getFPGATimestamp(), 0, 0, getHeadingRadians());
+		m_odometryNotifier.setName("Odometry");
+		m_odometryNotifier.startPeriodic(kOdometryPeriod);
 	}
 
 	/**
@@ -102,7 +158,30 @@ public class DriveSubsystem extends SubsystemBase {
 		if (RobotBase.isSimulation()) {
 			return m_heading;
 		}
-		return Rotation2d.fromDegrees(-m_gyro.getYaw() + m_headingOffset);
+		return Rotation2d.fromDegrees(getHeadingDegrees());
+	}
+
+	/**
+	 * Gets the robot's heading from the gyro without creating a
+	 * {@code Rotation2d}.
+	 * 
+	 * @return The heading in degrees (CCW+)
+	 */
+	public double getHeadingDegrees() {
+		if (RobotBase.isSimulation()) {
+			return m_heading.getDegrees();
+		}
+		return -m_gyro.getYaw() + m_headingOffset;
+	}
+
+	/**
+	 * Gets the robot's heading from the gyro without creating a
+	 * {@code Rotation2d}.
+	 * 
+	 * @return The heading in radians (CCW+)
+	 */
+	public double getHeadingRadians() {
+		return Math.toRadians(getHeadingDegrees());
 	}
 
 	/**
@@ -124,12 +203,103 @@ public class DriveSubsystem extends SubsystemBase {
 	}
 
 	/**
-	 * Returns robot pose.
+	 * Returns the latest robot pose calculated by the odometry thread. Never
+	 * blocks. Creates a new {@code Pose2d} whenever the robot has moved, so code
+	 * running every loop should use {@link #getPose(double[])} instead.
 	 * 
 	 * @return The pose of the robot.
 	 */
 	public Pose2d getPose() {
-		return m_odometry.getPoseMeters();
+		getPose(m_latestPose);
+		double x = m_latestPose[0];
+		double y = m_latestPose[1];
+		double heading = m_latestPose[2];
+		// Pose2d is immutable, so only create a new one when the robot has moved
+		if (x != m_pose.getX() || y != m_pose.getY() || heading != m_pose.getRotation().getRadians()) {
+			m_pose = new Pose2d(x, y, Rotation2d.fromRadians(heading));
+		}
+		return m_pose;
+	}
+
+	/**
+	 * Stores the latest robot pose calculated by the odometry thread in the
+	 * specified array. Never blocks and does not allocate.
+	 * 
+	 * @param pose The array to store the x and y coordinates in meters and the
+	 *             heading in radians in
+	 * @return The timestamp of the pose in seconds ({@code NaN} if the odometry
+	 *         has no pose yet, in which case the array is left untouched)
+	 */
+	public double getPose(double[] pose) {
+		return m_poseHistory.getLatest(pose);
+	}
+
+	/**
+	 * Returns the poses calculated by the odometry thread, which can be used to
+	 * look up the pose of the robot at a past timestamp.
+	 * 
+	 * @return The pose history
+	 */
+	public PoseHistory getPoseHistory() {
+		return m_poseHistory;
+	}
+
+	/**
+	 * Stores the velocity of the robot measured by the odometry over the last
+	 * {@code kVelocityWindow} seconds in the specified array, relative to the
+	 * robot so that it does not depend on how the odometry frame is aligned with
+	 * the field.
+	 * 
+	 * @param velocity The array to store the forward and leftward speeds in
+	 *                 meters per second in
+	 * @return {@code true} if the velocity was measured; {@code false} if the
+	 *         odometry has no pose yet (in which case the array is left
+	 *         untouched)
+	 */
+	public boolean getRobotRelativeVelocity(double[] velocity) {
+		double timestamp = m_poseHistory.getLatest(m_velocityLatestPose);
+		if (Double.isNaN(timestamp) || !m_poseHistory.sample(timestamp - kVelocityWindow, m_velocityPastPose))
+			return false;
+		SwerveKinematics.toRobotRelative((m_velocityLatestPose[0] - m_velocityPastPose[0]) / kVelocityWindow,
+				(m_velocityLatestPose[1] - m_velocityPastPose[1]) / kVelocityWindow, m_velocityLatestPose[2],
+				velocity);
+		return true;
+	}
+
+	/**
+	 * Reads the gyro and the swerve modules and updates the odometry. Runs on the
+	 * odometry thread. The sensors and the timestamp are read while holding the
+	 * lock so that a reset cannot come between them and the update (which would
+	 * add the motion from before the reset and a pose older than the reset to
+	 * the history).
+	 */
+	private void updateOdometry() {
+		synchronized (m_odometry) {
+			for (int i = 0; i < m_modules.length; i++) {
+				m_odometryDistances[i] = m_modules[i].readDriveEncoderPosition();
+				m_odometryAngles[i] = m_modules[i].readModuleAngle();
+			}
+			double heading = getHeadingRadians();
+			double timestamp = Timer.getFPGATimestamp();
+			m_odometry.update(heading, m_odometryDistances, m_odometryAngles);
+			m_poseHistory.add(timestamp, m_odometry.getX(), m_odometry.getY(), m_odometry.getHeadingRadians());
+		}
+	}
+
+	/**
+	 * Resets the odometry to the specified pose.
+	 * 
+	 * @param x              The x-coordinate value of the robot
+	 * @param y              The y-coordinate value of the robot
+	 * @param headingRadians The heading of the robot in radians
+	 */
+	private void resetOdometry(double x, double y, double headingRadians) {
+		// read the same live values as the odometry thread, under the same lock
+		synchronized (m_odometry) {
+			readDistances();
+			m_odometry.resetPosition(getHeadingRadians(), m_distances, x, y, headingRadians);
+			m_poseHistory.add(Timer.getFPGATimestamp(), x, y, headingRadians);
+		}
 	}
 
 	/**
@@ -138,18 +308,43 @@ public class DriveSubsystem extends SubsystemBase {
 	 * 
 	 * @param speeds          The target chassis speed
 	 * @param isFieldRelative Whether or not the chassis speeds are field-relative
-	 * @return The module states, in order of FL, FR, BL, BR
+	 * @param moduleSpeeds    The array to store the speed of each module in, in
+	 *                        order of FL, FR, BL, BR
+	 * @param moduleAngles    The array to store the angle in degrees of each
+	 *                        module in, in order of FL, FR, BL, BR
 	 */
-	public SwerveModuleState[] calculateModuleStates(ChassisSpeeds speeds, boolean isFieldRelative) {
+	public void calculateModuleStates(ChassisSpeeds speeds, boolean isFieldRelative, double[] moduleSpeeds,
+			double[] moduleAngles) {
+		calculateModuleStates(speeds.vxMetersPerSecond, speeds.vyMetersPerSecond, speeds.omegaRadiansPerSecond,
+				isFieldRelative);
+		System.arraycopy(m_targetSpeeds, 0, moduleSpeeds, 0, m_modules.length);
+		System.arraycopy(m_targetAngles, 0, moduleAngles, 0, m_modules.length);
+	}
+
+	/**
+	 * Calculates the modules states needed for the robot to achieve the target
+	 * chassis speed and stores them in {@code m_targetSpeeds} and
+	 * {@code m_targetAngles}.
+	 * 
+	 * @param speedFwd        The forward speed
+	 * @param speedSide       The sideways speed
+	 * @param speedRot        The rotation speed
+	 * @param isFieldRelative Whether or not the speeds are field-relative
+	 */
+	private void calculateModuleStates(double speedFwd, double speedSide, double speedRot,
+			boolean isFieldRelative) {
+		double headingDegrees = getHeadingDegrees();
 		if (isFieldRelative) {
-			speeds = ChassisSpeeds.fromFieldRelativeSpeeds(speeds, getHeading());
+			SwerveKinematics.toRobotRelative(speedFwd, speedSide, Math.toRadians(headingDegrees),
+					m_robotRelativeSpeeds);
+			speedFwd = m_robotRelativeSpeeds[0];
+			speedSide = m_robotRelativeSpeeds[1];
 		}
-		SmartDashboard.putNumber("Heading Radians", getHeading().getRadians());
-		SmartDashboard.putNumber("Heading Degrees", getHeading().getDegrees());
+		m_headingRadiansSignal.set(Math.toRadians(headingDegrees));
+		m_headingDegreesSignal.set(headingDegrees);
 
-		SwerveModuleState[] states = m_kinematics.toSwerveModuleStates(speeds);
-		SwerveDriveKinematics.desaturateWheelSpeeds(states, kMaxSpeed);
-		return states;
+		m_kinematics.toModuleStates(speedFwd, speedSide, speedRot, m_targetSpeeds, m_targetAngles);
+		SwerveKinematics.desaturate(m_targetSpeeds, kMaxSpeed);
 	}
 
 	/**
@@ -157,17 +352,67 @@ public class DriveSubsystem extends SubsystemBase {
 	 * Stops all the motors.
 	 */
 	public void stopDriving() {
-		setModuleStates(calculateModuleStates(new ChassisSpeeds(0, 0, 0), true));
+		setModuleStates(0, 0, 0, true);
 	}
 
 	/**
-	 * Gets the module positions for each swerve module.
+	 * Gets the module positions for each swerve module. Creates a new
+	 * {@code Rotation2d} for each module, so code running every loop should use
+	 * {@link #getModuleDistance(int)} and {@link #getModuleAngle(int)} instead.
 	 * 
-	 * @return The module positions, in order of FL, FR, BL, BR
+	 * @return The module positions, in order of FL, FR, BL, BR (the returned
+	 *         array is reused by subsequent calls)
 	 */
 	public SwerveModulePosition[] getModulePositions() {
-		return new SwerveModulePosition[] { m_frontLeft.getModulePosition(), m_frontRight.getModulePosition(),
-				m_backLeft.getModulePosition(), m_backRight.getModulePosition() };
+		for (int i = 0; i < m_modules.length; i++) {
+			m_modules[i].getModulePosition(m_modulePositions[i]);
+		}
+		return m_modulePositions;
+	}
+
+	/**
+	 * Returns the distance driven by the specified swerve module.
+	 * 
+	 * @param index The index of the module, in order of FL, FR, BL, BR
+	 * @return The distance in meters
+	 */
+	public double getModuleDistance(int index) {
+		return m_modules[index].getDriveEncoderPosition();
+	}
+
+	/**
+	 * Returns the angle of the specified swerve module.
+	 * 
+	 * @param index The index of the module, in order of FL, FR, BL, BR
+	 * @return The angle in degrees
+	 */
+	public double getModuleAngle(int index) {
+		return m_modules[index].getModuleAngle();
+	}
+
+	/**
+	 * Determines whether or not every drive encoder reads zero.
+	 * 
+	 * @return {@code true} if every drive encoder reads zero; {@code false}
+	 *         otherwise
+	 */
+	private boolean encodersReset() {
+		for (var module : m_modules) {
+			if (Math.abs(module.readDriveEncoderPosition()) > 1e-3)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Reads the distance driven by each swerve module directly from the motor
+	 * controllers (like the odometry thread, rather than the snapshot taken at
+	 * the start of the loop) into {@code m_distances}.
+	 */
+	private void readDistances() {
+		for (int i = 0; i < m_modules.length; i++) {
+			m_distances[i] = m_modules[i].readDriveEncoderPosition();
+		}
 	}
 
 	/**
@@ -176,19 +421,32 @@ public class DriveSubsystem extends SubsystemBase {
 	 * @param moduleStates The module states, in order of FL, FR, BL, BR
 	 */
 	public void setModuleStates(SwerveModuleState[] moduleStates) {
-		// Get the current module angles
-		double[] moduleAngles = { m_frontLeft.getModuleAngle(), m_frontRight.getModuleAngle(),
-				m_backLeft.getModuleAngle(), m_backRight.getModuleAngle() };
 		for (int i = 0; i < moduleStates.length; i++) {
-			// Optimize target module states
-			moduleStates[i] = SwerveModuleState.optimize(moduleStates[i], Rotation2d.fromDegrees(moduleAngles[i]));
+			m_targetSpeeds[i] = moduleStates[i].speedMetersPerSecond;
+			m_targetAngles[i] = moduleStates[i].angle.getDegrees();
 		}
-		m_targetModuleStatePublisher.set(moduleStates);
+		applyModuleStates();
+	}
 
-		m_frontLeft.setModuleState(moduleStates[0]);
-		m_frontRight.setModuleState(moduleStates[1]);
-		m_backLeft.setModuleState(moduleStates[2]);
-		m_backRight.setModuleState(moduleStates[3]);
+	/**
+	 * Optimizes the module states in {@code m_targetSpeeds} and
+	 * {@code m_targetAngles} and sends them to the swerve modules.
+	 */
+	private void applyModuleStates() {
+		// Get the current module angles
+		for (int i = 0; i < m_modules.length; i++) {
+			m_currentAngles[i] = m_modules[i].getModuleAngle();
+		}
+		// Optimize target module states
+		SwerveKinematics.optimize(m_targetSpeeds, m_targetAngles, m_currentAngles);
+		for (int i = 0; i < m_modules.length; i++) {
+			putModuleState(m_targetStateBuffer, i, m_targetSpeeds[i], m_targetAngles[i]);
+		}
+		m_targetModuleStatePublisher.set(m_targetStateBuffer.array());
+
+		for (int i = 0; i < m_modules.length; i++) {
+			m_modules[i].setModuleState(m_targetSpeeds[i], m_targetAngles[i]);
+		}
 	}
 
 	/**
@@ -204,10 +462,19 @@ public class DriveSubsystem extends SubsystemBase {
 	}
 
 	public void setModuleStatesDirect(SwerveModuleState moduleState) {
-		m_frontLeft.setModuleState(moduleState);
-		m_frontRight.setModuleState(moduleState);
-		m_backLeft.setModuleState(moduleState);
-		m_backRight.setModuleState(moduleState);
+		setModuleStatesDirect(moduleState.speedMetersPerSecond, moduleState.angle.getDegrees());
+	}
+
+	/**
+	 * Directly sets the same speed and angle on every swerve module.
+	 * 
+	 * @param speed The drive speed in voltage
+	 * @param angle The module angle in degrees
+	 */
+	public void setModuleStatesDirect(double speed, double angle) {
+		for (SwerveModule module : m_modules) {
+			module.setModuleState(speed, angle);
+		}
 	}
 
 	/**
@@ -219,7 +486,8 @@ public class DriveSubsystem extends SubsystemBase {
 	 * @param isFieldRelative Whether or not the speeds are relative to the field
 	 */
 	public void setModuleStates(double speedFwd, double speedSide, double speedRot, boolean isFieldRelative) {
-		setModuleStates(calculateModuleStates(new ChassisSpeeds(speedFwd, speedSide, speedRot), isFieldRelative));
+		calculateModuleStates(speedFwd, speedSide, speedRot, isFieldRelative);
+		applyModuleStates();
 	}
 
 	@Override
@@ -227,10 +495,56 @@ public class DriveSubsystem extends SubsystemBase {
 		// SmartDashboard.putNumber("Current Position",
 		// getModulePositions()[0].distanceMeters);
 		// SmartDashboard.putNumber("Heading Degrees", getHeading().getDegrees());
-		m_posePublisher.set(m_odometry.update(getHeading(), getModulePositions()));
-		SwerveModuleState[] states = { m_frontLeft.getModuleState(), m_frontRight.getModuleState(),
-				m_backLeft.getModuleState(), m_backRight.getModuleState() };
-		m_currentModuleStatePublisher.set(states);
+		m_periodicTimer.start();
+		m_sampleTimer.start();
+		for (var module : m_modules) {
+			module.sample();
+		}
+		m_sampleTimer.stop();
+		if (!Double.isNaN(getPose(m_latestPose))) {
+			// Pose2d: translation (x, y) and rotation (radians)
+			m_poseBuffer.putDouble(0, m_latestPose[0]);
+			m_poseBuffer.putDouble(8, m_latestPose[1]);
+			m_poseBuffer.putDouble(16, m_latestPose[2]);
+			m_posePublisher.set(m_poseBuffer.array());
+		}
+		for (int i = 0; i < m_modules.length; i++) {
+			putModuleState(m_currentStateBuffer, i, m_modules[i].getDriveVoltage(), m_modules[i].getModuleAngle());
+		}
+		m_currentModuleStatePublisher.set(m_currentStateBuffer.array());
+		m_periodicTimer.stop();
+	}
+
+	@Override
+	public void simulationPeriodic() {
+		for (var module : m_modules) {
+			module.simulationPeriodic();
+		}
+	}
+
+	/**
+	 * Creates a buffer for packing structs (which are little-endian).
+	 *
+	 * @param size the size of the buffer in bytes
+	 * @return the buffer
+	 */
+	private static ByteBuffer structBuffer(int size) {
+		return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	/**
+	 * Packs a {@code SwerveModuleState} (the speed, then the angle in radians)
+	 * into the specified element of a struct array.
+	 *
+	 * @param buffer       the buffer holding the struct array
+	 * @param index        the index of the element
+	 * @param speed        the speed of the module
+	 * @param angleDegrees the angle of the module in degrees
+	 */
+	private static void putModuleState(ByteBuffer buffer, int index, double speed, double angleDegrees) {
+		int offset = index * SwerveModuleState.struct.getSize();
+		buffer.putDouble(offset, speed);
+		buffer.putDouble(offset + 8, Math.toRadians(angleDegrees));
 	}
 
 	/**
@@ -302,7 +616,7 @@ public class DriveSubsystem extends SubsystemBase {
 	public Command resetEncodersCommand() {
 		return runOnce(() -> {
 			resetEncoders();
-			m_odometry.resetPosition(getHeading(), getModulePositions(), new Pose2d());
+			resetOdometry(0, 0, 0);
 		});
 	}
 
@@ -314,8 +628,7 @@ public class DriveSubsystem extends SubsystemBase {
 	 */
 	public Command alignModulesToZeroComamnd() {
 		return run(() -> {
-			m_kinematics.resetHeadings(
-					new Rotation2d[] { new Rotation2d(0), new Rotation2d(0), new Rotation2d(0), new Rotation2d(0) });
+			Arrays.fill(m_targetAngles, 0);
 			setModuleStates(0, 0, 0, false);
 		}).raceWith(Commands.waitSeconds(5));
 	}
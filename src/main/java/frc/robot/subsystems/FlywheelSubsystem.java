@@ -1,73 +1,184 @@
 package frc.robot.subsystems;
 
+import static edu.wpi.first.units.Units.*;
 import static frc.robot.Constants.FlywheelConstants.*;
 
+import java.util.function.DoubleSupplier;
+
 import com.revrobotics.CANSparkBase.ControlType;
 import com.revrobotics.CANSparkBase.IdleMode;
 import com.revrobotics.CANSparkLowLevel.MotorType;
 import com.revrobotics.CANSparkMax;
 import com.revrobotics.RelativeEncoder;
 import com.revrobotics.SparkPIDController;
+import com.revrobotics.SparkPIDController.ArbFFUnits;
 
+import edu.wpi.first.math.controller.SimpleMotorFeedforward;
+import edu.wpi.first.units.Angle;
+import edu.wpi.first.units.MutableMeasure;
+import edu.wpi.first.units.Velocity;
+import edu.wpi.first.units.Voltage;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.sysid.SysIdRoutineLog;
 import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.Commands;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import edu.wpi.first.wpilibj2.command.sysid.SysIdRoutine;
+import frc.robot.CanBudget.SparkSignal;
+import frc.robot.DeviceConfigurator;
+import frc.robot.DeviceConfigurator.SparkMaxConfig;
+import frc.robot.FlywheelModel;
+import frc.robot.LoopTimer;
+import frc.robot.Telemetry;
 
 public class FlywheelSubsystem extends SubsystemBase {
-	private final CANSparkMax m_neoFlywheelBottom;
-	private final CANSparkMax m_neoFlywheelTop;
-	private final SparkPIDController m_neoControllerBottom;
-	private final SparkPIDController m_neoControllerTop;
+	private final LoopTimer.Section m_periodicTimer = LoopTimer.section("FlywheelSubsystem.periodic");
+	private final Wheel m_bottom = new Wheel("Bottom Flywheel", kBottomPort, kBottomInvert, kBottomP, kBottomS,
+			kBottomV, kBottomA);
+	private final Wheel m_top = new Wheel("Top Flywheel", kTopPort, kTopInvert, kTopP, kTopS, kTopV, kTopA);
+	private final Telemetry.NumberSignal m_timeToSetpointSignal = Telemetry.number("Flywheel Time To Setpoint",
+			0.01, 0.1);
+	private final SysIdRoutine m_sysidRoutine;
+	// Measures reused by the SysId log so that it does not allocate
+	private final MutableMeasure<Voltage> m_sysidVoltage = MutableMeasure.mutable(Volts.of(0));
+	private final MutableMeasure<Velocity<Angle>> m_sysidVelocity = MutableMeasure.mutable(RotationsPerSecond.of(0));
+	private double m_sysidVolts;
+
+	/**
+	 * One flywheel: its motor controller, the feedforward sent with every
+	 * setpoint as an arbitrary feedforward in volts, the model that predicts its
+	 * spin-up, and the state of its recovery boost.
+	 */
+	private static class Wheel {
+		final CANSparkMax m_motor;
+		final RelativeEncoder m_encoder;
+		final SparkPIDController m_controller;
+		final SimpleMotorFeedforward m_feedforward;
+		final FlywheelModel m_model;
+		double m_setpoint;
+		/** Whether the wheel has reached its setpoint since it was set. */
+		boolean m_armed;
+		/** Whether the recovery boost is being applied. */
+		boolean m_boosting;
 
-	private final RelativeEncoder m_neoEncoderBottom;
-	private final RelativeEncoder m_neoEncoderTop;
-	private double m_setVelocity;
+		Wheel(String name, int port, boolean inverted, double kP, double kS, double kV, double kA) {
+			m_motor = new CANSparkMax(port, MotorType.kBrushless);
+			m_encoder = m_motor.getEncoder();
+			m_controller = m_motor.getPIDController();
+			m_feedforward = new SimpleMotorFeedforward(kS, kV, kA);
+			m_model = new FlywheelModel(kS, kV, kA);
+			DeviceConfigurator.configure(name, m_motor, motorConfig(inverted, kP));
+		}
+
+		double getVelocity() {
+			return m_encoder.getVelocity();
+		}
+
+		void setVelocity(double velocity) {
+			m_setpoint = velocity;
+			m_armed = false;
+			m_boosting = false;
+			sendSetpoint(0);
+		}
+
+		/**
+		 * Sends the setpoint with its feedforward plus the specified boost.
+		 *
+		 * @param boostVolts the voltage added to the feedforward
+		 */
+		void sendSetpoint(double boostVolts) {
+			m_controller.setReference(m_setpoint, ControlType.kVelocity, 0,
+					m_feedforward.calculate(m_setpoint) + Math.copySign(boostVolts, m_setpoint), ArbFFUnits.kVoltage);
+		}
+
+		/**
+		 * Starts the recovery boost when the wheel, having reached its setpoint,
+		 * drops more than {@code kRecoveryThreshold} below it (a note has just
+		 * been shot), and stops it once the wheel is back within
+		 * {@code kAllowedError}.
+		 */
+		void updateRecoveryBoost() {
+			if (m_setpoint == 0)
+				return;
+			// how far the wheel lags behind its setpoint in the direction it spins
+			double lag = Math.copySign(m_setpoint - getVelocity(), m_setpoint);
+			if (m_boosting) {
+				if (lag < kAllowedError) {
+					m_boosting = false;
+					sendSetpoint(0);
+				}
+			} else if (Math.abs(lag) < kAllowedError)
+				m_armed = true;
+			else if (m_armed && lag > kRecoveryThreshold) {
+				m_boosting = true;
+				sendSetpoint(kRecoveryBoostVoltage);
+			}
+		}
+
+		boolean atSetpoint() {
+			return Math.abs(getVelocity() - m_setpoint) < kAllowedError;
+		}
+
+		double timeToVelocity(double velocity, double voltage) {
+			return m_model.timeToSpeed(getVelocity(), velocity, kAllowedError, voltage);
+		}
+	}
 
 	/**
 	 * Initializes a new instance of the {@link FlywheelSubsystem} class.
 	 */
 	public FlywheelSubsystem() {
-		m_neoFlywheelBottom = new CANSparkMax(kBottomPort, MotorType.kBrushless);
-		m_neoFlywheelTop = new CANSparkMax(kTopPort, MotorType.kBrushless);
-		m_neoControllerBottom = m_neoFlywheelBottom.getPIDController();
-		m_neoControllerTop = m_neoFlywheelTop.getPIDController();
-		m_neoEncoderBottom = m_neoFlywheelBottom.getEncoder();
-		m_neoEncoderTop = m_neoFlywheelTop.getEncoder();
-
-		// Initialize Motors
-		m_neoFlywheelBottom.restoreFactoryDefaults();
-		m_neoFlywheelBottom.setInverted(kBottomInvert);
-		m_neoFlywheelBottom.setIdleMode(IdleMode.kCoast);
-		m_neoFlywheelBottom.enableVoltageCompensation(12);
-		m_neoFlywheelBottom.setSmartCurrentLimit(kSmartCurrentLimit);
-		m_neoFlywheelBottom.setSecondaryCurrentLimit(kPeakCurrentLimit,
-				kPeakCurrentDurationMillis);
-
-		m_neoFlywheelTop.restoreFactoryDefaults();
-		m_neoFlywheelTop.setInverted(kTopInvert);
-		m_neoFlywheelTop.setIdleMode(IdleMode.kCoast);
-		m_neoFlywheelTop.enableVoltageCompensation(12);
-		m_neoFlywheelTop.setSmartCurrentLimit(kSmartCurrentLimit);
-		m_neoFlywheelTop.setSecondaryCurrentLimit(kPeakCurrentLimit,
-				kPeakCurrentDurationMillis);
-
-		m_neoEncoderBottom.setVelocityConversionFactor(kGearRatio);
-		m_neoControllerBottom.setP(kP);
-		m_neoControllerBottom.setI(kI);
-		m_neoControllerBottom.setD(kD);
-		m_neoControllerBottom.setIZone(kIz);
-		m_neoControllerBottom.setFF(kFF);
-		m_neoControllerBottom.setOutputRange(kMinOutput, kMaxOutput);
-
-		m_neoEncoderTop.setVelocityConversionFactor(kGearRatio);
-		m_neoControllerTop.setP(kP);
-		m_neoControllerTop.setI(kI);
-		m_neoControllerTop.setD(kD);
-		m_neoControllerTop.setIZone(kIz);
-		m_neoControllerTop.setFF(kFF);
-		m_neoControllerTop.setOutputRange(kMinOutput, kMaxOutput);
+		m_sysidRoutine = new SysIdRoutine(new SysIdRoutine.Config(),
+				new SysIdRoutine.Mechanism(volts -> {
+					m_sysidVolts = volts.in(Volts);
+					// the voltage compensation scales the duty cycle to the nominal voltage
+					m_bottom.m_motor.set(m_sysidVolts / kNominalVoltage);
+					m_top.m_motor.set(m_sysidVolts / kNominalVoltage);
+				}, this::logSysId, this, "flywheel"));
+	}
+
+	/**
+	 * Returns the configuration of a flywheel motor. The feedforward is sent
+	 * with every setpoint, so the controller has no FF gain of its own.
+	 *
+	 * @param inverted whether or not the motor is inverted
+	 * @param kP       the proportional gain of the velocity loop
+	 * @return the configuration
+	 */
+	private static SparkMaxConfig motorConfig(boolean inverted, double kP) {
+		return new SparkMaxConfig()
+				.restoreFactoryDefaults()
+				.inverted(inverted)
+				.idleMode(IdleMode.kCoast)
+				.voltageCompensation(kNominalVoltage)
+				.smartCurrentLimit(kSmartCurrentLimit)
+				.secondaryCurrentLimit(kPeakCurrentLimit, kPeakCurrentDurationMillis)
+				.velocityConversionFactor(kGearRatio)
+				.pid(kP, kI, kD)
+				.iZone(kIz)
+				.ff(0)
+				.outputRange(kMinOutput, kMaxOutput)
+				.reads(SparkSignal.VELOCITY, TimedRobot.kDefaultPeriod);
+	}
+
+	/**
+	 * Records the voltage and speed of each flywheel for SysId. The speeds are
+	 * in rotations per second, so the kV and kA it reports must be divided by
+	 * 60 to get the per-RPM constants.
+	 *
+	 * @param log the SysId log
+	 */
+	private void logSysId(SysIdRoutineLog log) {
+		m_sysidVoltage.mut_replace(m_sysidVolts, Volts);
+		log.motor("bottom-flywheel").voltage(m_sysidVoltage)
+				.angularVelocity(m_sysidVelocity.mut_replace(getBottomVelocity() / 60, RotationsPerSecond));
+		log.motor("top-flywheel").voltage(m_sysidVoltage)
+				.angularVelocity(m_sysidVelocity.mut_replace(getTopVelocity() / 60, RotationsPerSecond));
 	}
 
 	public void periodic() {
+		m_periodicTimer.start();
 		// SmartDashboard.putNumber("Flywheel Bottom Velocity", getBottomVelocity());
 		// SmartDashboard.putNumber("Flywheel top Velocity", getTopVelocity());
 		// SmartDashboard.putNumber("Flywheel Bottom Current",
@@ -75,43 +186,97 @@ public class FlywheelSubsystem extends SubsystemBase {
 		// SmartDashboard.putNumber("Flywheel top Current",
 		// m_neoFlywheelTop.getOutputCurrent());
 		// essentially the end method of the flywheel velocity setpoint mode
-		if (m_setVelocity == 0 && Math.abs(m_neoEncoderBottom.getVelocity()) > 0.05) {
-			m_neoFlywheelBottom.stopMotor();
-			m_neoFlywheelTop.stopMotor();
+		if (m_top.m_setpoint == 0 && m_bottom.m_setpoint == 0 && Math.abs(getBottomVelocity()) > 0.05) {
+			m_bottom.m_motor.stopMotor();
+			m_top.m_motor.stopMotor();
 		}
+		m_bottom.updateRecoveryBoost();
+		m_top.updateRecoveryBoost();
+		m_timeToSetpointSignal.set(Math.min(timeToSetpoint(), kMaxPredictedTime));
+		m_periodicTimer.stop();
 	}
 
 	/**
-	 * @return Current setpoint.
+	 * @return Setpoint of the top flywheel (rpm).
 	 */
-	public double getSetpoint() {
-		return m_setVelocity;
+	public double getTopSetpoint() {
+		return m_top.m_setpoint;
+	}
+
+	/**
+	 * @return Setpoint of the bottom flywheel (rpm).
+	 */
+	public double getBottomSetpoint() {
+		return m_bottom.m_setpoint;
 	}
 
 	/**
 	 * @return Measured velocity.
 	 */
 	public double getBottomVelocity() {
-		return m_neoEncoderBottom.getVelocity();
+		return m_bottom.getVelocity();
 	}
 
 	public double getTopVelocity() {
-		return m_neoEncoderTop.getVelocity();
+		return m_top.getVelocity();
 	}
 
 	/**
 	 * Sets target speed for flywheel.
-	 * 
+	 *
 	 * @param velocity Target velocity (rpm).
 	 */
 	public void setBottomVelocity(double velocity) {
-		m_setVelocity = velocity;
-		m_neoControllerBottom.setReference(m_setVelocity, ControlType.kVelocity);
+		m_bottom.setVelocity(velocity);
 	}
 
 	public void setTopVelocity(double velocity) {
-		m_setVelocity = velocity;
-		m_neoControllerTop.setReference(m_setVelocity, ControlType.kVelocity);
+		m_top.setVelocity(velocity);
+	}
+
+	/**
+	 * Predicts the time it takes both flywheels to get from their current speeds
+	 * to within {@code kAllowedError} of the specified speeds, given the
+	 * battery voltage.
+	 *
+	 * @param topVelocity    Target velocity of the top flywheel (rpm).
+	 * @param bottomVelocity Target velocity of the bottom flywheel (rpm).
+	 * @return The time in seconds ({@code Double.POSITIVE_INFINITY} if a speed
+	 *         cannot be reached).
+	 */
+	public double timeToVelocity(double topVelocity, double bottomVelocity) {
+		// the voltage compensation caps the output at the nominal voltage
+		double voltage = Math.min(RobotController.getBatteryVoltage(), kNominalVoltage);
+		return Math.max(m_top.timeToVelocity(topVelocity, voltage),
+				m_bottom.timeToVelocity(bottomVelocity, voltage));
+	}
+
+	/**
+	 * Predicts the time it takes both flywheels to reach their setpoints.
+	 *
+	 * @return The time in seconds (0 if both are at their setpoints).
+	 */
+	public double timeToSetpoint() {
+		return timeToVelocity(m_top.m_setpoint, m_bottom.m_setpoint);
+	}
+
+	/**
+	 * Creates a command that waits until the flywheels, spun up now, would just
+	 * reach the specified velocities by the time of the shot (plus
+	 * {@code kSpinUpMargin}) and then spins them up.
+	 *
+	 * @param topVelocity    Target velocity of the top flywheel (rpm).
+	 * @param bottomVelocity Target velocity of the bottom flywheel (rpm).
+	 * @param timeUntilShot  Supplies the time in seconds until the shot.
+	 * @return The command.
+	 */
+	public Command spinUpInTimeCommand(double topVelocity, double bottomVelocity, DoubleSupplier timeUntilShot) {
+		return Commands.waitUntil(
+				() -> timeToVelocity(topVelocity, bottomVelocity) + kSpinUpMargin >= timeUntilShot.getAsDouble())
+				.andThen(runOnce(() -> {
+					setBottomVelocity(bottomVelocity);
+					setTopVelocity(topVelocity);
+				}));
 	}
 
 	/**
@@ -125,11 +290,30 @@ public class FlywheelSubsystem extends SubsystemBase {
 	}
 
 	/**
-	 * @return Whether the flywheel is at its setpoint ABOVE 0
+	 * @return Whether both flywheels are within {@code kAllowedError} of their
+	 *         setpoints.
 	 */
 	public boolean atSetpoint() {
-		return Math.abs(getBottomVelocity() - getSetpoint()) < kAllowedError
-				|| Math.abs(getTopVelocity() - getSetpoint()) < kAllowedError;
+		return m_bottom.atSetpoint() && m_top.atSetpoint();
+	}
+
+	/**
+	 * Creates a command to run a SysId quasistatic test on both flywheels.
+	 *
+	 * @param direction The direction to run the test in.
+	 * @return The command.
+	 */
+	public Command sysidQuasistatic(SysIdRoutine.Direction direction) {
+		return m_sysidRoutine.quasistatic(direction);
 	}
 
-}
\ No newline at end of file
+	/**
+	 * Creates a command to run a SysId dynamic test on both flywheels.
+	 *
+	 * @param direction The direction to run the test in.
+	 * @return The command.
+	 */
+	public Command sysidDynamic(SysIdRoutine.Direction direction) {
+		return m_sysidRoutine.dynamic(direction);
+	}
+}
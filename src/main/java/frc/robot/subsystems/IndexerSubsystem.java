@@ -11,6 +11,8 @@ import com.revrobotics.RelativeEncoder;
 import edu.wpi.first.wpilibj.DigitalInput;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants.IndexerConstants;
+import frc.robot.DeviceConfigurator;
+import frc.robot.DeviceConfigurator.SparkMaxConfig;
 
 public class IndexerSubsystem extends SubsystemBase {
 	private CANSparkMax m_indexerMotor = new CANSparkMax(IndexerConstants.kIndexerPort, MotorType.kBrushless);;
@@ -23,11 +25,13 @@ public class IndexerSubsystem extends SubsystemBase {
 	 * 
 	 */
 	public IndexerSubsystem() {
-		m_indexerMotor.setIdleMode(IdleMode.kBrake);
-		m_indexerMotor.setInverted(IndexerConstants.kInvert);
-		m_indexerMotor.enableVoltageCompensation(12);
-		m_indexerMotor.setSmartCurrentLimit(IndexerConstants.kIndexerSmartCurrentLimit);
-		m_indexerMotor.setSecondaryCurrentLimit(IndexerConstants.kIndexerPeakCurrentLimit);
+		// Nothing is read from the motor, so its status frames stay idle
+		DeviceConfigurator.configure("Indexer", m_indexerMotor, new SparkMaxConfig()
+				.idleMode(IdleMode.kBrake)
+				.inverted(IndexerConstants.kInvert)
+				.voltageCompensation(12)
+				.smartCurrentLimit(IndexerConstants.kIndexerSmartCurrentLimit)
+				.secondaryCurrentLimit(IndexerConstants.kIndexerPeakCurrentLimit));
 		m_proximitySensor = new DigitalInput(1);
 	}
 
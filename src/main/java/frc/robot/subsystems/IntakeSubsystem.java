@@ -9,6 +9,8 @@ import com.revrobotics.RelativeEncoder;
 
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.DeviceConfigurator;
+import frc.robot.DeviceConfigurator.SparkMaxConfig;
 
 public class IntakeSubsystem extends SubsystemBase {
 	private final CANSparkMax m_motor = new CANSparkMax(kIntakePort, MotorType.kBrushless);
@@ -18,13 +20,15 @@ public class IntakeSubsystem extends SubsystemBase {
 	 * Initializes a new instance of the {@link IntakeSubsystem} class.
 	 */
 	public IntakeSubsystem() {
-		m_motor.restoreFactoryDefaults();
-		m_motor.setIdleMode(IdleMode.kCoast);
-		m_motor.setInverted(kInvert);
-		m_motor.enableVoltageCompensation(12);
-		m_motor.setSmartCurrentLimit(kSmartCurrentLimit);
-		m_motor.setSecondaryCurrentLimit(kPeakCurrentLimit, kPeakCurrentRotations);
-		m_encoder.setVelocityConversionFactor(kIntakeGearRatio);
+		// Nothing is read from the motor, so its status frames stay idle
+		DeviceConfigurator.configure("Intake", m_motor, new SparkMaxConfig()
+				.restoreFactoryDefaults()
+				.idleMode(IdleMode.kCoast)
+				.inverted(kInvert)
+				.voltageCompensation(12)
+				.smartCurrentLimit(kSmartCurrentLimit)
+				.secondaryCurrentLimit(kPeakCurrentLimit, kPeakCurrentRotations)
+				.velocityConversionFactor(kIntakeGearRatio));
 	}
 
 	/**
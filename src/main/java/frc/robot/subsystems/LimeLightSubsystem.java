@@ -1,6 +1,8 @@
 package frc.robot.subsystems;
 
 import static frc.robot.Constants.PoseConstants.*;
+import static frc.robot.Constants.PoseEstimatorConstants.kBotPoseQueueCapacity;
+import static frc.robot.Constants.PoseEstimatorConstants.kCameras;
 
 import java.util.EnumSet;
 import java.util.function.Consumer;
@@ -8,12 +10,18 @@ import java.util.function.Consumer;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Transform2d;
+import edu.wpi.first.math.geometry.Transform3d;
 import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.networktables.NetworkTable;
 import edu.wpi.first.networktables.NetworkTableEvent;
 import edu.wpi.first.networktables.NetworkTableInstance;
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.FieldGeometry;
+import frc.robot.FieldGeometry.Kind;
+import frc.robot.LimelightHelper;
+import frc.robot.LimelightResultsPipeline;
+import frc.robot.SampleQueue;
 
 /**
  * The purpose of the {@code LimeLightSubsystem} is to provide the pose of the
@@ -98,26 +106,148 @@ public class LimeLightSubsystem extends SubsystemBase {
 
 	}
 
+	/**
+	 * A LimeLight camera mounted on the robot.
+	 */
+	public static class Camera {
+
+		/**
+		 * The name of the LimeLight (its table in NetworkTables).
+		 */
+		public final String name;
+
+		/**
+		 * The pose of the camera relative to the center of the robot ({@code null}
+		 * to keep the pose configured on the LimeLight itself).
+		 */
+		public final Transform3d robotToCamera;
+
+		/**
+		 * The latency (in milliseconds) not included in the latency the LimeLight
+		 * reports (e.g., network delay).
+		 */
+		public final double latencyMillis;
+
+		/**
+		 * Constructs a {@code Camera}.
+		 * 
+		 * @param name          the name of the LimeLight
+		 * @param robotToCamera the pose of the camera relative to the center of the
+		 *                      robot ({@code null} to keep the pose configured on the
+		 *                      LimeLight itself)
+		 * @param latencyMillis the latency (in milliseconds) not included in the
+		 *                      latency the LimeLight reports
+		 */
+		public Camera(String name, Transform3d robotToCamera, double latencyMillis) {
+			this.name = name;
+			this.robotToCamera = robotToCamera;
+			this.latencyMillis = latencyMillis;
+		}
+	}
+
+	/**
+	 * A botpose sample received from LimeLight, queued for the robot loop.
+	 */
+	protected static class BotPoseSample {
+		/**
+		 * The maximum number of botpose elements kept: 11 for the pose and its
+		 * statistics plus 7 for each of up to 8 fiducials.
+		 */
+		static final int kMaxLength = 11 + 7 * 8;
+
+		/**
+		 * The index of the {@code Camera} the sample came from.
+		 */
+		public int camera;
+
+		/**
+		 * The time (FPGA time in seconds) at which the sample arrived.
+		 */
+		public double timestamp;
+
+		/**
+		 * The number of valid elements in {@code values}.
+		 */
+		public int length;
+
+		/**
+		 * The botpose elements.
+		 */
+		public final double[] values = new double[kMaxLength];
+	}
+
 	/**
 	 * A {@code Pose2d} representing the center of the field.
 	 */
 	protected static final Pose2d DEFAULT_POSE = new Pose(0, 0, 0);
 
 	/**
-	 * The most recent botpose data obtained from LimeLight.
+	 * The most recent botpose data obtained from LimeLight (only accessed by the
+	 * robot loop).
 	 */
 	protected double[] m_botpose;
 
+	/**
+	 * The {@code Camera}s providing botpose samples.
+	 */
+	protected final Camera[] m_cameras;
+
+	/**
+	 * The botpose samples from each {@code Camera} received by the NetworkTables
+	 * listener thread and not yet processed by the robot loop.
+	 */
+	protected final SampleQueue<BotPoseSample>[] m_botposeSamples;
+
 	/**
 	 * This {@code LimeLightSubsystem}'s confidence about its estimated pose.
 	 */
 	protected double m_confidence = 0;
 
 	/**
-	 * Constructs a {@code LimeLightSubsystem}.
+	 * Parse the full results (fiducials, latencies) of each {@code Camera} off the
+	 * robot loop.
+	 */
+	protected final LimelightResultsPipeline[] m_results;
+
+	/**
+	 * Constructs a {@code LimeLightSubsystem} using the {@code Camera}s in
+	 * {@code Constants}.
 	 */
 	public LimeLightSubsystem() {
-		subscribe("limelight", "botpose", new double[6], event -> changedBotPose(event));
+		this(kCameras);
+	}
+
+	/**
+	 * Constructs a {@code LimeLightSubsystem}.
+	 * 
+	 * @param cameras the {@code Camera}s providing botpose samples
+	 */
+	@SuppressWarnings("unchecked")
+	public LimeLightSubsystem(Camera... cameras) {
+		m_cameras = cameras;
+		m_botposeSamples = new SampleQueue[cameras.length];
+		m_results = new LimelightResultsPipeline[cameras.length];
+		for (int i = 0; i < cameras.length; i++) {
+			var camera = cameras[i];
+			if (camera.robotToCamera != null) {
+				var t = camera.robotToCamera;
+				LimelightHelper.setCameraPose_RobotSpace(camera.name, t.getX(), t.getY(), t.getZ(),
+						Math.toDegrees(t.getRotation().getX()), Math.toDegrees(t.getRotation().getY()),
+						Math.toDegrees(t.getRotation().getZ()));
+			}
+			m_botposeSamples[i] = new SampleQueue<BotPoseSample>(kBotPoseQueueCapacity, BotPoseSample::new);
+			m_results[i] = new LimelightResultsPipeline(camera.name);
+			int index = i;
+			subscribe(camera.name, "botpose", new double[6], event -> enqueueBotPose(index, event));
+		}
+	}
+
+	/**
+	 * Is called periodically by the {@code CommandScheduler}.
+	 */
+	@Override
+	public void periodic() {
+		processBotPoseSamples();
 	}
 
 	/**
@@ -144,6 +274,29 @@ public class LimeLightSubsystem extends SubsystemBase {
 		return m_confidence;
 	}
 
+	/**
+	 * Returns the latest completely parsed results from the first {@code Camera}.
+	 * Never blocks.
+	 * 
+	 * @return the latest completely parsed results from the first {@code Camera}
+	 *         (unchanged until the next call)
+	 */
+	public LimelightResultsPipeline.Snapshot latestResults() {
+		return latestResults(0);
+	}
+
+	/**
+	 * Returns the latest completely parsed results from the specified
+	 * {@code Camera}. Never blocks.
+	 * 
+	 * @param camera the index of the {@code Camera}
+	 * @return the latest completely parsed results from the specified
+	 *         {@code Camera} (unchanged until the next call)
+	 */
+	public LimelightResultsPipeline.Snapshot latestResults(int camera) {
+		return m_results[camera].latest();
+	}
+
 	/**
 	 * Adds the specified {@code Listener} to respond to the changes in the
 	 * specified topic in the specified table.
@@ -164,19 +317,61 @@ public class LimeLightSubsystem extends SubsystemBase {
 	}
 
 	/**
-	 * Is invoked whenever the "botpose" entry in the "limelight" table changes.
+	 * Is invoked on the NetworkTables listener thread whenever the "botpose" entry
+	 * of a {@code Camera} changes. Only copies the sample into
+	 * {@link #m_botposeSamples}; the robot loop processes it in
+	 * {@link #processBotPoseSamples()}.
 	 * 
-	 * @param event a {@code NetworkTableEvent} regarding the change in the
-	 *              "botpose" entry in the "limelight" table
-	 * @return a {@code double} array from the "botpose" entry in the "limelight"
-	 *         table
+	 * @param camera the index of the {@code Camera}
+	 * @param event  a {@code NetworkTableEvent} regarding the change in the
+	 *               "botpose" entry of the {@code Camera}
 	 */
-	protected double[] changedBotPose(NetworkTableEvent event) {
-		boolean validSample = false;
+	protected void enqueueBotPose(int camera, NetworkTableEvent event) {
+		var queue = m_botposeSamples[camera];
+		var sample = queue.claim();
+		if (sample == null) // the robot loop has fallen behind; drop the sample
+			return;
 		try {
 			var v = event.valueData.value;
-			m_botpose = v.getDoubleArray();
-			if (Math.abs(m_botpose[0]) > 0.1 || Math.abs(m_botpose[1]) > 0.1)
+			double[] botpose = v.getDoubleArray();
+			sample.camera = camera;
+			sample.timestamp = v.getTime() / 1e6;
+			sample.length = Math.min(botpose.length, BotPoseSample.kMaxLength);
+			System.arraycopy(botpose, 0, sample.values, 0, sample.length);
+		} catch (Exception e) {
+			sample.length = 0;
+		}
+		queue.publish();
+	}
+
+	/**
+	 * Processes the botpose samples queued since the last call, one
+	 * {@code Camera} after another and in the order they arrived from each. Must
+	 * be called from the robot loop.
+	 */
+	protected void processBotPoseSamples() {
+		for (var queue : m_botposeSamples) {
+			BotPoseSample sample;
+			while ((sample = queue.peek()) != null) {
+				changedBotPose(sample);
+				queue.release();
+			}
+		}
+	}
+
+	/**
+	 * Is invoked by the robot loop for each botpose sample from a {@code Camera}.
+	 * 
+	 * @param sample a {@code BotPoseSample} from the "botpose" entry of a
+	 *               {@code Camera}
+	 * @return a {@code double} array from the "botpose" entry of the
+	 *         {@code Camera}
+	 */
+	protected double[] changedBotPose(BotPoseSample sample) {
+		boolean validSample = false;
+		try {
+			m_botpose = copyBotPose(sample);
+			if (m_botpose != null && (Math.abs(m_botpose[0]) > 0.1 || Math.abs(m_botpose[1]) > 0.1))
 				validSample = true;
 		} catch (Exception e) {
 			m_botpose = null;
@@ -187,6 +382,22 @@ public class LimeLightSubsystem extends SubsystemBase {
 		return m_botpose;
 	}
 
+	/**
+	 * Copies the specified sample into {@link #m_botpose}, reusing the array
+	 * unless the length of the samples has changed.
+	 * 
+	 * @param sample a {@code BotPoseSample}
+	 * @return the copy ({@code null} if the sample is too short to be a botpose)
+	 */
+	protected double[] copyBotPose(BotPoseSample sample) {
+		if (sample.length < 6)
+			return null;
+		var botpose = m_botpose != null && m_botpose.length == sample.length ? m_botpose
+				: new double[sample.length];
+		System.arraycopy(sample.values, 0, botpose, 0, sample.length);
+		return botpose;
+	}
+
 	/**
 	 * Returns the transformation from the estimated pose of of the robot to the
 	 * specified target {@code Pose}.
@@ -319,8 +530,11 @@ public class LimeLightSubsystem extends SubsystemBase {
 	 *         it has not been possible to reliably estimate the pose of the robot
 	 */
 	public Double distanceToClosestSpeaker() {
-		Translation2d closestSpeaker = closest(kBlueSpeakerPosition, kRedSpeakerPosition);
-		return distanceTo(closestSpeaker);
+		var pose = estimatedPose();
+		if (pose == null)
+			return null;
+		int speaker = FieldGeometry.nearest(Kind.SPEAKER, pose.getX(), pose.getY());
+		return FieldGeometry.distance(speaker, pose.getX(), pose.getY());
 	}
 
 	/**
@@ -347,8 +561,43 @@ public class LimeLightSubsystem extends SubsystemBase {
 	 *         it has not been possible to reliably estimate the pose of the robot
 	 */
 	public Double angleToClosestSpeaker() {
-		Translation2d closestSpeaker = closest(kBlueSpeakerPosition, kRedSpeakerPosition);
-		return angleTo(closestSpeaker);
+		var pose = estimatedPose();
+		if (pose == null)
+			return null;
+		int speaker = FieldGeometry.nearest(Kind.SPEAKER, pose.getX(), pose.getY());
+		return FieldGeometry.bearing(speaker, pose.getX(), pose.getY(), pose.getRotation().getRadians());
+	}
+
+	/**
+	 * Returns the position of the closest landmark of the specified kind (of
+	 * either alliance).
+	 * 
+	 * @param kind the kind of the landmark
+	 * @return the position of the closest landmark of the specified kind;
+	 *         {@code null} if it has not been possible to reliably estimate the
+	 *         pose of the robot
+	 */
+	public Translation2d closest(Kind kind) {
+		var pose = estimatedPose();
+		if (pose == null)
+			return null;
+		return FieldGeometry.translation(FieldGeometry.nearest(kind, pose.getX(), pose.getY()));
+	}
+
+	/**
+	 * Returns the pose of the closest landmark of the specified kind (of either
+	 * alliance).
+	 * 
+	 * @param kind the kind of the landmark
+	 * @return the pose of the closest landmark of the specified kind; {@code null}
+	 *         if it has not been possible to reliably estimate the pose of the
+	 *         robot
+	 */
+	public Pose2d closestPose(Kind kind) {
+		var pose = estimatedPose();
+		if (pose == null)
+			return null;
+		return FieldGeometry.pose(FieldGeometry.nearest(kind, pose.getX(), pose.getY()));
 	}
 
 	/**
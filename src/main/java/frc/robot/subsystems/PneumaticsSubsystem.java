@@ -9,11 +9,14 @@ import static frc.robot.Constants.PneumaticsConstants.*;
 import edu.wpi.first.wpilibj.DoubleSolenoid;
 import edu.wpi.first.wpilibj.DoubleSolenoid.Value;
 import edu.wpi.first.wpilibj.PneumaticHub;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.LoopTimer;
+import frc.robot.Telemetry;
 
 public class PneumaticsSubsystem extends SubsystemBase {
+	private final LoopTimer.Section m_periodicTimer = LoopTimer.section("PneumaticsSubsystem.periodic");
+	private final Telemetry.NumberSignal m_pressureSignal = Telemetry.number("Pressure", 0.5, 0.25);
 	private final PneumaticHub m_hub = new PneumaticHub(kPneumaticHubID);
 	private final DoubleSolenoid m_leftAmpBarSolenoid = m_hub.makeDoubleSolenoid(kLeftAmpBarForwardChannel,
 			kLeftAmpBarReverseChannel);
@@ -116,7 +119,9 @@ public class PneumaticsSubsystem extends SubsystemBase {
 	}
 
 	public void periodic() {
-		SmartDashboard.putNumber("Pressure", m_hub.getPressure(0));
+		m_periodicTimer.start();
+		m_pressureSignal.set(m_hub.getPressure(0));
 		// SmartDashboard.putNumber("Pressure (Other side)",m_hub.getPressure(1));
+		m_periodicTimer.stop();
 	}
 }
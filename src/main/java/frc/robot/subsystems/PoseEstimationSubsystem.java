@@ -1,18 +1,25 @@
 package frc.robot.subsystems;
 
+import static frc.robot.Constants.PoseEstimatorConstants.*;
+
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.function.Supplier;
-import java.util.stream.Stream;
 
+import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
-import edu.wpi.first.networktables.NetworkTableEvent;
+import edu.wpi.first.math.geometry.Transform2d;
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.DriverStation.Alliance;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.LimelightHelper;
+import frc.robot.LimelightResultsPipeline;
+import frc.robot.LoopTimer;
+import frc.robot.PoseHistory;
+import frc.robot.Telemetry;
 
 /**
  * The purpose of the {@code PoseEstimationSubsystem} is to provide the pose of
@@ -53,6 +60,102 @@ public class PoseEstimationSubsystem extends LimeLightSubsystem {
 		 */
 		public Pose2d pose(Pose2d pose);
 
+		/**
+		 * Calculates the change in the pose of an object since the earlier time. This
+		 * is the primitive counterpart of {@link #pose(Pose2d)}: the change is stored
+		 * in a caller-owned array instead of being applied to a new {@code Pose2d}.
+		 * The default implementation calls {@link #pose(Pose2d)} and thus allocates;
+		 * {@code PoseCalculator}s used every loop should override it.
+		 * 
+		 * @param pose
+		 *              an array containing the x- and y-coordinate values and the yaw
+		 *              (in radians) of the object at the earlier time ({@code null}
+		 *              if the pose is not known)
+		 * @param delta
+		 *              the array to store the change in the x- and y-coordinate
+		 *              values (relative to the pose at the earlier time) and the
+		 *              change in the yaw (in radians) in
+		 * @return {@code true} if the change has been stored; {@code false} if the
+		 *         change cannot be calculated
+		 */
+		public default boolean delta(double[] pose, double[] delta) {
+			var earlier = pose == null ? null : new Pose2d(pose[0], pose[1], Rotation2d.fromRadians(pose[2]));
+			var current = pose(earlier);
+			if (earlier == null || current == null)
+				return false;
+			var change = current.minus(earlier);
+			delta[0] = change.getX();
+			delta[1] = change.getY();
+			delta[2] = change.getRotation().getRadians();
+			return true;
+		}
+
+	}
+
+	/**
+	 * A {@code RelativePoseCalculator} calculates the pose of an object by
+	 * applying the change in the pose reported by some source (e.g., odometry)
+	 * since the previous call. It keeps the previous pose in primitive fields, so
+	 * {@link #delta(double[], double[])} does not allocate any objects.
+	 */
+	protected static abstract class RelativePoseCalculator implements PoseCalculator {
+
+		/**
+		 * The previous pose reported by the source (x, y, and yaw in radians).
+		 */
+		private final double[] previous = new double[3];
+
+		/**
+		 * The current pose reported by the source (x, y, and yaw in radians).
+		 */
+		private final double[] current = new double[3];
+
+		/**
+		 * Whether or not {@code previous} contains a pose.
+		 */
+		private boolean hasPrevious = false;
+
+		/**
+		 * Reads the current pose from the source.
+		 * 
+		 * @param pose
+		 *             the array to store the x- and y-coordinate values and the yaw
+		 *             (in radians) in
+		 * @return {@code true} if the pose has been stored; {@code false} if the
+		 *         source has no pose
+		 */
+		protected abstract boolean read(double[] pose);
+
+		@Override
+		public Pose2d pose(Pose2d pose) {
+			double[] earlier = pose == null ? null
+					: new double[] { pose.getX(), pose.getY(), pose.getRotation().getRadians() };
+			double[] change = new double[3];
+			if (!delta(earlier, change))
+				return pose;
+			return pose.plus(new Transform2d(change[0], change[1], Rotation2d.fromRadians(change[2])));
+		}
+
+		@Override
+		public boolean delta(double[] pose, double[] delta) {
+			if (!read(current))
+				return false;
+			boolean changed = hasPrevious && pose != null;
+			if (changed) {
+				// the change relative to the previous pose
+				double cos = Math.cos(previous[2]);
+				double sin = Math.sin(previous[2]);
+				double dx = current[0] - previous[0];
+				double dy = current[1] - previous[1];
+				delta[0] = cos * dx + sin * dy;
+				delta[1] = -sin * dx + cos * dy;
+				delta[2] = MathUtil.angleModulus(current[2] - previous[2]);
+			}
+			System.arraycopy(current, 0, previous, 0, 3);
+			hasPrevious = true;
+			return changed;
+		}
+
 	}
 
 	/**
@@ -62,7 +165,7 @@ public class PoseEstimationSubsystem extends LimeLightSubsystem {
 	 * @author Jeong-Hyon Hwang (jhhbrown@gmail.com)
 	 * @author Andrew Hwang (u.andrew.h@gmail.com)
 	 */
-	public class PoseEstimator {
+	public static class PoseEstimator {
 
 		/**
 		 * The distance threshold for outlier detection (a sample {@code Pose2d} is
@@ -105,6 +208,18 @@ public class PoseEstimationSubsystem extends LimeLightSubsystem {
 		 */
 		protected double weight;
 
+		/**
+		 * The current speed of the robot in meters per second (widens the outlier
+		 * gate since latency compensation is less accurate at speed).
+		 */
+		protected double speed = 0;
+
+		/**
+		 * Buffers for fusing the changes calculated by the {@code PoseCalculator}s.
+		 */
+		private final double[] current = new double[3];
+		private final double[] delta = new double[3];
+
 		/**
 		 * Constructs a {@code PoseEstimator}.
 		 * 
@@ -157,6 +272,30 @@ public class PoseEstimationSubsystem extends LimeLightSubsystem {
 			return true;
 		}
 
+		/**
+		 * Updates this {@code PoseEstimator} based on the specified sample
+		 * {@code Pose2d} and its standard deviations.
+		 * 
+		 * @param sample
+		 *                  a sample {@code Pose2d}
+		 * @param xyStdDev
+		 *                  the standard deviation of the x- and y-coordinate values
+		 *                  of the sample {@code Pose2d} in meters
+		 * @param yawStdDev
+		 *                  the standard deviation of the yaw of the sample
+		 *                  {@code Pose2d} in radians
+		 * @return {@code false} if the specified sample {@code Pose2d} is considered an
+		 *         outlier and thus rejected; {@code true} if this
+		 *         {@code PoseEstimator} is updated based on the specified
+		 *         {@code Pose2d}
+		 */
+		public final boolean update(Pose2d sample, double xyStdDev, double yawStdDev) {
+			if (isOutlier(sample, xyStdDev))
+				return false;
+			estimatedPose(sample, xyStdDev, yawStdDev);
+			return true;
+		}
+
 		/**
 		 * Returns the number of outliers (i.e., sample {@code Pose2d}s that have been
 		 * rejected by this
@@ -169,6 +308,16 @@ public class PoseEstimationSubsystem extends LimeLightSubsystem {
 			return outliers;
 		}
 
+		/**
+		 * Sets the current speed of the robot.
+		 * 
+		 * @param metersPerSecond
+		 *                        the current speed of the robot in meters per second
+		 */
+		public void setSpeed(double metersPerSecond) {
+			this.speed = metersPerSecond;
+		}
+
 		/**
 		 * Determines whether or not the specified sample {@code Pose2d} is an outlier.
 		 * 
@@ -181,12 +330,31 @@ public class PoseEstimationSubsystem extends LimeLightSubsystem {
 		 *         {@code false} otherwise
 		 */
 		protected boolean isOutlier(Pose2d sample) {
+			return isOutlier(sample, kVisionXYStdDev);
+		}
+
+		/**
+		 * Determines whether or not the specified sample {@code Pose2d} with the
+		 * specified standard deviation is an outlier.
+		 * 
+		 * @param sample
+		 *                 a sample {@code Pose2d}
+		 * @param xyStdDev
+		 *                 the standard deviation of the x- and y-coordinate values
+		 *                 of the sample {@code Pose2d} in meters
+		 * @return {@code true} if either the x- or y-coordinate value of the sample
+		 *         {@code Pose2d} is different by more than {@link #gate(double)}
+		 *         compared to the estimated {@code Pose2d} maintained by this
+		 *         {@code PoseEstimator}; {@code false} otherwise
+		 */
+		protected boolean isOutlier(Pose2d sample, double xyStdDev) {
 			if (sample == null || this.estimatedPose == null)
 				return false;
 			if (hasNaN(sample))
 				return true;
 			Pose2d error = error(sample, this.estimatedPose);
-			if (Math.abs(error.getX()) > distanceThreshold || Math.abs(error.getY()) > distanceThreshold) {
+			double gate = gate(xyStdDev);
+			if (Math.abs(error.getX()) > gate || Math.abs(error.getY()) > gate) {
 				outliers++;
 				if (++rejections > rejectionLimit)
 					reset();
@@ -198,6 +366,21 @@ public class PoseEstimationSubsystem extends LimeLightSubsystem {
 			}
 		}
 
+		/**
+		 * Returns the largest error (in meters) of a sample {@code Pose2d} with the
+		 * specified standard deviation that is not considered an outlier. This
+		 * {@code PoseEstimator} uses the distance threshold, widened by how far the
+		 * robot moves in {@code kGateSpeedSlack} seconds.
+		 * 
+		 * @param xyStdDev
+		 *                 the standard deviation of the x- and y-coordinate values
+		 *                 of the sample in meters
+		 * @return the largest error (in meters) that is not considered an outlier
+		 */
+		protected double gate(double xyStdDev) {
+			return distanceThreshold + kGateSpeedSlack * speed;
+		}
+
 		/**
 		 * /** Resets this {@code PoseEstimator}.
 		 */
@@ -222,6 +405,25 @@ public class PoseEstimationSubsystem extends LimeLightSubsystem {
 			}
 		}
 
+		/**
+		 * Updates the estimated {@code Pose2d} based on the specified sample
+		 * {@code Pose2d} and its standard deviations. This {@code PoseEstimator}
+		 * applies the same weight to every sample, so the standard deviations are
+		 * ignored.
+		 * 
+		 * @param sample
+		 *                  a sample {@code Pose2d}
+		 * @param xyStdDev
+		 *                  the standard deviation of the x- and y-coordinate values
+		 *                  of the sample {@code Pose2d} in meters
+		 * @param yawStdDev
+		 *                  the standard deviation of the yaw of the sample
+		 *                  {@code Pose2d} in radians
+		 */
+		protected void estimatedPose(Pose2d sample, double xyStdDev, double yawStdDev) {
+			estimatedPose(sample);
+		}
+
 		/**
 		 * Calculates the discrepancies between the specified {@code Pose2d}s.
 		 * 
@@ -289,18 +491,373 @@ public class PoseEstimationSubsystem extends LimeLightSubsystem {
 		 *                        {@code PoseCalculator}s
 		 */
 		public void update(Collection<PoseCalculator> poseCalculators) {
-			if (poseCalculators.size() > 0) {
-				Stream<Pose2d> poses = poseCalculators.stream().map(c -> c.pose(estimatedPose));
-				estimatedPose = Pose.average(poses.toList().toArray(new Pose2d[0]));
+			update(poseCalculators.toArray(new PoseCalculator[0]));
+		}
+
+		/**
+		 * Updates the {@code Pose} estimated by this {@code PoseEstimator} based on the
+		 * specified {@code PoseCalculator}s by averaging the changes they calculate.
+		 * Does not allocate any objects as long as the {@code PoseCalculator}s
+		 * override {@link PoseCalculator#delta(double[], double[])}.
+		 * 
+		 * @param poseCalculators
+		 *                        {@code PoseCalculator}s
+		 */
+		public void update(PoseCalculator... poseCalculators) {
+			if (poseCalculators.length == 0)
+				return;
+			// every PoseCalculator is called even if the pose is not known so that it
+			// can keep track of the source
+			boolean known = copyEstimatedPose(current);
+			double dx = 0;
+			double dy = 0;
+			double dyaw = 0;
+			int count = 0;
+			for (var poseCalculator : poseCalculators) {
+				if (poseCalculator.delta(known ? current : null, delta)) {
+					dx += delta[0];
+					dy += delta[1];
+					dyaw += delta[2];
+					count++;
+				}
+			}
+			if (count > 0) {
+				dx /= count;
+				dy /= count;
+				dyaw /= count;
+				double cos = Math.cos(current[2]);
+				double sin = Math.sin(current[2]);
+				predict(current[0] + cos * dx - sin * dy, current[1] + sin * dx + cos * dy, current[2] + dyaw);
 			}
 		}
 
+		/**
+		 * Copies the estimated pose into the specified array.
+		 * 
+		 * @param pose
+		 *             the array to store the x- and y-coordinate values and the yaw
+		 *             (in radians) in
+		 * @return {@code true} if the pose has been copied; {@code false} if there is
+		 *         no estimated pose
+		 */
+		protected boolean copyEstimatedPose(double[] pose) {
+			if (estimatedPose == null)
+				return false;
+			pose[0] = estimatedPose.getX();
+			pose[1] = estimatedPose.getY();
+			pose[2] = estimatedPose.getRotation().getRadians();
+			return true;
+		}
+
+		/**
+		 * Moves the estimated {@code Pose2d} to the pose predicted by the
+		 * {@code PoseCalculator}s.
+		 * 
+		 * @param x
+		 *                   the predicted x-coordinate value
+		 * @param y
+		 *                   the predicted y-coordinate value
+		 * @param yawRadians
+		 *                   the predicted yaw in radians
+		 */
+		protected void predict(double x, double y, double yawRadians) {
+			estimatedPose = new Pose2d(x, y, Rotation2d.fromRadians(yawRadians));
+		}
+
+	}
+
+	/**
+	 * A {@code KalmanPoseEstimator} estimates the pose of an object using an
+	 * extended Kalman filter over the x- and y-coordinate values and the yaw. The
+	 * {@code PoseCalculator}s drive the prediction step, whose noise grows with
+	 * the distance traveled and the angle turned to account for wheel slip. Each
+	 * sample {@code Pose2d} drives the correction step with its own standard
+	 * deviations. The matrices are row-major 3x3 {@code double} arrays, so
+	 * updates do not allocate any objects.
+	 */
+	public static class KalmanPoseEstimator extends PoseEstimator {
+
+		/**
+		 * The estimated x-coordinate value, y-coordinate value, and yaw (in radians).
+		 */
+		private double m_x;
+		private double m_y;
+		private double m_yaw;
+
+		/**
+		 * Whether or not the state has been initialized by a sample {@code Pose2d}.
+		 */
+		private boolean m_initialized = false;
+
+		/**
+		 * Whether or not the state has changed since {@code estimatedPose} was last
+		 * created ({@code Pose2d} is immutable, so it is only recreated when needed).
+		 */
+		private boolean m_changed = false;
+
+		/**
+		 * The covariance of the state.
+		 */
+		private final double[] m_covariance = new double[9];
+
+		// Buffers for the matrix operations
+		private final double[] m_gain = new double[9];
+		private final double[] m_temp = new double[9];
+		private final double[] m_temp2 = new double[9];
+
+		/**
+		 * Constructs a {@code KalmanPoseEstimator}.
+		 * 
+		 * @param distanceThreshold
+		 *                          the distance threshold for outlier detection (a
+		 *                          sample {@code Pose2d} is considered an outlier and
+		 *                          rejected if its distance from the estimated
+		 *                          {@code Pose2d} is larger than this threshold)
+		 * @param rejectionLimit
+		 *                          the number of rejections needed to reset the
+		 *                          {@code KalmanPoseEstimator}
+		 */
+		public KalmanPoseEstimator(double distanceThreshold, int rejectionLimit) {
+			super(distanceThreshold, rejectionLimit, 0);
+		}
+
+		@Override
+		public Pose2d estimatedPose() {
+			if (!m_initialized)
+				return null;
+			if (m_changed) {
+				estimatedPose = new Pose2d(m_x, m_y, Rotation2d.fromRadians(m_yaw));
+				m_changed = false;
+			}
+			return estimatedPose;
+		}
+
+		@Override
+		protected boolean isOutlier(Pose2d sample, double xyStdDev) {
+			if (sample == null || !m_initialized)
+				return false;
+			if (hasNaN(sample))
+				return true;
+			if (Math.hypot(sample.getX() - m_x, sample.getY() - m_y) > gate(xyStdDev)) {
+				outliers++;
+				if (++rejections > rejectionLimit)
+					reset();
+				return true;
+			}
+			rejections = 0;
+			return false;
+		}
+
+		/**
+		 * Returns the largest error (in meters) of a sample {@code Pose2d} with the
+		 * specified standard deviation that is not considered an outlier:
+		 * {@code kGateSigmas} standard deviations of the difference between the
+		 * sample and the estimate, widened by how far the robot moves in
+		 * {@code kGateSpeedSlack} seconds. The gate is tight while the estimate is
+		 * certain and the robot is still, and opens up as the estimate grows
+		 * uncertain or the robot speeds up, but never beyond the distance threshold
+		 * (also widened by the speed).
+		 */
+		@Override
+		protected double gate(double xyStdDev) {
+			double variance = Math.max(m_covariance[0], m_covariance[4]) + xyStdDev * xyStdDev;
+			double slack = kGateSpeedSlack * speed;
+			return MathUtil.clamp(kGateSigmas * Math.sqrt(variance) + slack, kMinGate, distanceThreshold + slack);
+		}
+
+		@Override
+		protected void reset() {
+			super.reset();
+			m_initialized = false;
+		}
+
+		@Override
+		public void estimatedPose(Pose2d sample) {
+			estimatedPose(sample, kVisionXYStdDev, kVisionYawStdDev);
+		}
+
+		@Override
+		protected void estimatedPose(Pose2d sample, double xyStdDev, double yawStdDev) {
+			if (sample != null)
+				correct(sample.getX(), sample.getY(), sample.getRotation().getRadians(), xyStdDev, yawStdDev);
+		}
+
+		/**
+		 * Corrects the estimated state based on the specified measurement.
+		 * 
+		 * @param x
+		 *                  the measured x-coordinate value
+		 * @param y
+		 *                  the measured y-coordinate value
+		 * @param yaw
+		 *                  the measured yaw in radians
+		 * @param xyStdDev
+		 *                  the standard deviation of the measured x- and
+		 *                  y-coordinate values in meters
+		 * @param yawStdDev
+		 *                  the standard deviation of the measured yaw in radians
+		 */
+		public void correct(double x, double y, double yaw, double xyStdDev, double yawStdDev) {
+			double xyVariance = xyStdDev * xyStdDev;
+			double yawVariance = yawStdDev * yawStdDev;
+			if (!m_initialized) {
+				m_x = x;
+				m_y = y;
+				m_yaw = MathUtil.angleModulus(yaw);
+				Arrays.fill(m_covariance, 0);
+				m_covariance[0] = xyVariance;
+				m_covariance[4] = xyVariance;
+				m_covariance[8] = yawVariance;
+				m_initialized = true;
+				m_changed = true;
+				return;
+			}
+			// innovation covariance S = P + R
+			System.arraycopy(m_covariance, 0, m_temp, 0, 9);
+			m_temp[0] += xyVariance;
+			m_temp[4] += xyVariance;
+			m_temp[8] += yawVariance;
+			if (!invert(m_temp, m_temp2))
+				return;
+			// Kalman gain K = P S^-1
+			multiply(m_covariance, m_temp2, m_gain);
+			double ex = x - m_x;
+			double ey = y - m_y;
+			double eyaw = MathUtil.angleModulus(yaw - m_yaw);
+			m_x += m_gain[0] * ex + m_gain[1] * ey + m_gain[2] * eyaw;
+			m_y += m_gain[3] * ex + m_gain[4] * ey + m_gain[5] * eyaw;
+			m_yaw = MathUtil.angleModulus(m_yaw + m_gain[6] * ex + m_gain[7] * ey + m_gain[8] * eyaw);
+			// P = (I - K) P
+			multiply(m_gain, m_covariance, m_temp);
+			for (int i = 0; i < 9; i++)
+				m_covariance[i] -= m_temp[i];
+			symmetrize(m_covariance);
+			m_changed = true;
+			if (Double.isNaN(m_x) || Double.isNaN(m_y) || Double.isNaN(m_yaw))
+				reset();
+		}
+
+		@Override
+		protected boolean copyEstimatedPose(double[] pose) {
+			if (!m_initialized)
+				return false;
+			pose[0] = m_x;
+			pose[1] = m_y;
+			pose[2] = m_yaw;
+			return true;
+		}
+
+		@Override
+		protected void predict(double x, double y, double yaw) {
+			if (!m_initialized)
+				return;
+			double dx = x - m_x;
+			double dy = y - m_y;
+			double dyaw = MathUtil.angleModulus(yaw - m_yaw);
+			// P = F P F^T + Q, where F = [[1, 0, -dy], [0, 1, dx], [0, 0, 1]] is the
+			// Jacobian of the motion with respect to the state
+			Arrays.fill(m_temp, 0);
+			m_temp[0] = 1;
+			m_temp[2] = -dy;
+			m_temp[4] = 1;
+			m_temp[5] = dx;
+			m_temp[8] = 1;
+			multiply(m_temp, m_covariance, m_temp2);
+			multiplyTransposed(m_temp2, m_temp, m_covariance);
+			double xyStdDev = kOdometryXYStdDev + kOdometryXYStdDevPerMeter * Math.hypot(dx, dy);
+			double yawStdDev = kOdometryYawStdDev + kOdometryYawStdDevPerRadian * Math.abs(dyaw);
+			m_covariance[0] += xyStdDev * xyStdDev;
+			m_covariance[4] += xyStdDev * xyStdDev;
+			m_covariance[8] += yawStdDev * yawStdDev;
+			m_x = x;
+			m_y = y;
+			m_yaw = MathUtil.angleModulus(yaw);
+			m_changed = true;
+		}
+
+		/**
+		 * Multiplies the specified 3x3 matrices.
+		 * 
+		 * @param a
+		 *               the first matrix
+		 * @param b
+		 *               the second matrix
+		 * @param result
+		 *               the array to store {@code a * b} in (must not be {@code a}
+		 *               or {@code b})
+		 */
+		static void multiply(double[] a, double[] b, double[] result) {
+			for (int r = 0; r < 3; r++)
+				for (int c = 0; c < 3; c++)
+					result[3 * r + c] = a[3 * r] * b[c] + a[3 * r + 1] * b[3 + c] + a[3 * r + 2] * b[6 + c];
+		}
+
+		/**
+		 * Multiplies the first 3x3 matrix by the transpose of the second.
+		 * 
+		 * @param a
+		 *               the first matrix
+		 * @param b
+		 *               the second matrix
+		 * @param result
+		 *               the array to store {@code a * b^T} in (must not be
+		 *               {@code a} or {@code b})
+		 */
+		static void multiplyTransposed(double[] a, double[] b, double[] result) {
+			for (int r = 0; r < 3; r++)
+				for (int c = 0; c < 3; c++)
+					result[3 * r + c] = a[3 * r] * b[3 * c] + a[3 * r + 1] * b[3 * c + 1]
+							+ a[3 * r + 2] * b[3 * c + 2];
+		}
+
+		/**
+		 * Inverts the specified 3x3 matrix.
+		 * 
+		 * @param m
+		 *                the matrix
+		 * @param inverse
+		 *                the array to store the inverse in (must not be {@code m})
+		 * @return {@code false} if the matrix is singular; {@code true} otherwise
+		 */
+		static boolean invert(double[] m, double[] inverse) {
+			inverse[0] = m[4] * m[8] - m[5] * m[7];
+			inverse[1] = m[2] * m[7] - m[1] * m[8];
+			inverse[2] = m[1] * m[5] - m[2] * m[4];
+			inverse[3] = m[5] * m[6] - m[3] * m[8];
+			inverse[4] = m[0] * m[8] - m[2] * m[6];
+			inverse[5] = m[2] * m[3] - m[0] * m[5];
+			inverse[6] = m[3] * m[7] - m[4] * m[6];
+			inverse[7] = m[1] * m[6] - m[0] * m[7];
+			inverse[8] = m[0] * m[4] - m[1] * m[3];
+			double det = m[0] * inverse[0] + m[1] * inverse[3] + m[2] * inverse[6];
+			if (Math.abs(det) < 1E-12)
+				return false;
+			for (int i = 0; i < 9; i++)
+				inverse[i] /= det;
+			return true;
+		}
+
+		/**
+		 * Makes the specified 3x3 matrix exactly symmetric to keep rounding errors
+		 * from accumulating in the covariance.
+		 * 
+		 * @param m
+		 *          the matrix
+		 */
+		static void symmetrize(double[] m) {
+			m[1] = m[3] = (m[1] + m[3]) / 2;
+			m[2] = m[6] = (m[2] + m[6]) / 2;
+			m[5] = m[7] = (m[5] + m[7]) / 2;
+		}
+
 	}
 
 	/**
 	 * The {@code PoseEstimator} for estimating the pose of the robot.
 	 */
-	protected PoseEstimator m_poseEstimator = new PoseEstimator(1.0, 10, 0.1);
+	protected PoseEstimator m_poseEstimator = kUseKalmanFilter
+			? new KalmanPoseEstimator(kDistanceThreshold, kRejectionLimit)
+			: new PoseEstimator(kDistanceThreshold, kRejectionLimit, kWeight);
 
 	/**
 	 * The {@code PoseCalculator}s for enhancing the accuracy of the estimated pose
@@ -310,12 +867,75 @@ public class PoseEstimationSubsystem extends LimeLightSubsystem {
 	protected Map<String, PoseCalculator> m_poseCalculators = new TreeMap<String, PoseCalculator>();
 
 	/**
-	 * Constructs a {@code PoseEstimationSubsystem}.
+	 * The values of {@code m_poseCalculators} in an array so that they can be
+	 * iterated over every loop without allocating an iterator.
+	 */
+	protected PoseCalculator[] m_poseCalculatorArray = new PoseCalculator[0];
+
+	private final LoopTimer.Section m_periodicTimer = LoopTimer.section("PoseEstimation.periodic");
+	private final LoopTimer.Section m_estimatorTimer = LoopTimer.section("PoseEstimation.update");
+
+	// Dashboard values (registered for both alliances so that no key is built
+	// while running)
+	private final Telemetry.NumberSignal m_confidenceSignal = Telemetry.number("pose estimation: confidence",
+			0.01, 0.1);
+	private final Telemetry.NumberSignal m_blueAngleSignal = Telemetry
+			.number("pose estimation: rotation angle to Blue speaker (degrees)", 0.5, 0.1);
+	private final Telemetry.NumberSignal m_blueDistanceSignal = Telemetry
+			.number("pose estimation: distance to Blue speaker (meters)", 0.02, 0.1);
+	private final Telemetry.NumberSignal m_redAngleSignal = Telemetry
+			.number("pose estimation: rotation angle to Red speaker (degrees)", 0.5, 0.1);
+	private final Telemetry.NumberSignal m_redDistanceSignal = Telemetry
+			.number("pose estimation: distance to Red speaker (meters)", 0.02, 0.1);
+
+	/**
+	 * The timestamped poses from odometry used to move each botpose sample from
+	 * the time the image was captured to the time of the estimated pose
+	 * ({@code null} if latency compensation is disabled).
+	 */
+	protected PoseHistory m_odometryHistory = null;
+
+	/**
+	 * The time (FPGA time in seconds) of the odometry pose the estimated pose was
+	 * last updated with.
+	 */
+	protected double m_estimateTimestamp = Double.NaN;
+
+	/**
+	 * Buffers for latency compensation.
+	 */
+	private final double[] m_capturePose = new double[3];
+	private final double[] m_estimatePose = new double[3];
+	private final double[] m_compensatedPose = new double[3];
+
+	/**
+	 * The current speed of the robot in meters per second according to odometry.
+	 */
+	protected double m_speed = 0;
+
+	/**
+	 * Buffers for scoring vision samples.
+	 */
+	private final double[] m_earlierPose = new double[3];
+	private final double[] m_visionStdDevs = new double[2];
+
+	/**
+	 * Constructs a {@code PoseEstimationSubsystem} using the {@code Camera}s in
+	 * {@code Constants}.
 	 */
 	public PoseEstimationSubsystem() {
 		super();
 	}
 
+	/**
+	 * Constructs a {@code PoseEstimationSubsystem}.
+	 * 
+	 * @param cameras the {@code Camera}s providing botpose samples
+	 */
+	public PoseEstimationSubsystem(Camera... cameras) {
+		super(cameras);
+	}
+
 	/**
 	 * Returns a {@code Pose2d} representing the estimated pose of the robot.
 	 * 
@@ -343,46 +963,251 @@ public class PoseEstimationSubsystem extends LimeLightSubsystem {
 	 *                     gyroscope, encoders, etc.
 	 */
 	public void addPoseSupplier(String label, Supplier<Pose2d> poseSupplier) {
-		this.m_poseCalculators.put(label, new PoseCalculator() {
-
-			Pose2d previous = null;
+		addPoseCalculator(label, new RelativePoseCalculator() {
 
 			@Override
-			public Pose2d pose(Pose2d pose) {
+			protected boolean read(double[] pose) {
 				var current = poseSupplier.get();
-				if (this.previous == null || pose == null) {
-					this.previous = current;
-					return pose;
-				}
-				var refined = pose.plus(current.minus(this.previous));
-				this.previous = current;
-				return refined;
+				if (current == null)
+					return false;
+				pose[0] = current.getX();
+				pose[1] = current.getY();
+				pose[2] = current.getRotation().getRadians();
+				return true;
 			}
 
 		});
 	}
 
 	/**
-	 * Is invoked whenever the "botpose" entry in the "limelight" table changes.
+	 * Adds a {@code PoseHistory} whose latest poses are used in the same way as
+	 * the {@code Pose}s from a {@code Supplier<Pose>} (see
+	 * {@link #addPoseSupplier(String, Supplier)}), but without creating any
+	 * objects. If it is also the odometry history (see
+	 * {@link #setOdometryHistory(PoseHistory)}), the estimated pose is stamped
+	 * with the timestamp of the pose read from it.
 	 * 
-	 * @param event a {@code NetworkTableEvent} regarding the change in the
-	 *              "botpose" entry in the "limelight" table
-	 * @return a {@code TimestampedDoubleArray} representing the pose of the robot
-	 *         in terms of the x and y-coordinate values and the yaw value (the
-	 *         orientation relative to the positive x-axis) in
-	 *         degrees
+	 * @param label
+	 *                    a label associated with the specifiled
+	 *                    {@code PoseHistory}
+	 * @param poseHistory
+	 *                    a {@code PoseHistory} which contains poses obtained from
+	 *                    some sources such as a gyroscope, encoders, etc.
+	 */
+	public void addPoseSupplier(String label, PoseHistory poseHistory) {
+		addPoseCalculator(label, new RelativePoseCalculator() {
+
+			@Override
+			protected boolean read(double[] pose) {
+				// the pose and its timestamp come from the same sample
+				double timestamp = poseHistory.getLatest(pose);
+				if (poseHistory == m_odometryHistory)
+					m_estimateTimestamp = timestamp;
+				return !Double.isNaN(timestamp);
+			}
+
+		});
+	}
+
+	/**
+	 * Adds the specified {@code PoseCalculator}.
+	 * 
+	 * @param label
+	 *                       a label associated with the specifiled
+	 *                       {@code PoseCalculator}
+	 * @param poseCalculator
+	 *                       a {@code PoseCalculator}
+	 */
+	protected void addPoseCalculator(String label, PoseCalculator poseCalculator) {
+		this.m_poseCalculators.put(label, poseCalculator);
+		this.m_poseCalculatorArray = this.m_poseCalculators.values().toArray(new PoseCalculator[0]);
+	}
+
+	/**
+	 * Sets the {@code PoseHistory} of the poses from odometry so that each botpose
+	 * sample is fused as of the time the image was captured rather than the time
+	 * the sample arrived.
+	 * 
+	 * @param odometryHistory
+	 *                        the {@code PoseHistory} of the poses from odometry
+	 */
+	public void setOdometryHistory(PoseHistory odometryHistory) {
+		this.m_odometryHistory = odometryHistory;
+	}
+
+	/**
+	 * Returns the time at which the image for the specified botpose sample was
+	 * captured.
+	 * 
+	 * @param receivedTime
+	 *                     the time (FPGA time in seconds) at which the sample
+	 *                     arrived
+	 * @param botpose
+	 *                     the botpose sample
+	 * @param camera
+	 *                     the {@code Camera} the sample came from
+	 * @return the time (FPGA time in seconds) at which the image was captured
+	 */
+	protected static double captureTimestamp(double receivedTime, double[] botpose, Camera camera) {
+		// botpose[6] is the total (capture + pipeline) latency in milliseconds
+		double latency = botpose.length > 6 ? botpose[6]
+				: LimelightHelper.getLatency_Pipeline(camera.name) + LimelightHelper.getLatency_Capture(camera.name);
+		return receivedTime - (latency + camera.latencyMillis) / 1e3;
+	}
+
+	/**
+	 * Scores the specified botpose sample: rejects samples that cannot be right
+	 * and calculates the standard deviations of the others. Samples are trusted
+	 * less the fewer, the farther away, and the more ambiguous the tags are, and
+	 * the faster the robot moves during the latency. The statistics come from the
+	 * botpose array and, when it does not contain them (older LimeLight
+	 * firmware), from the fiducials in the JSON results; a sample without any is
+	 * trusted as little as one tag at {@code kVisionMaxTagDistance}.
+	 * 
+	 * @param botpose
+	 *                the botpose sample (the pose, then the latency, tag count,
+	 *                tag span, average tag distance, and average tag area, then
+	 *                id, txnc, tync, ta, distance to camera, distance to robot,
+	 *                and ambiguity for each tag)
+	 * @param results
+	 *                the latest JSON results from the same camera
+	 * @param speed
+	 *                the current speed of the robot in meters per second
+	 * @param stdDevs
+	 *                the array to store the standard deviations of the x- and
+	 *                y-coordinate values (in meters) and the yaw (in radians) in
+	 * @return {@code false} if the sample should be rejected
+	 */
+	protected static boolean scoreVisionSample(double[] botpose, LimelightResultsPipeline.Snapshot results,
+			double speed, double[] stdDevs) {
+		if (Math.abs(botpose[0]) <= 0.1 && Math.abs(botpose[1]) <= 0.1) // no pose
+			return false;
+		// a robot on the carpet is neither above it nor tipped over
+		if (Math.abs(botpose[2]) > kVisionMaxHeight || Math.abs(botpose[3]) > kVisionMaxTilt
+				|| Math.abs(botpose[4]) > kVisionMaxTilt)
+			return false;
+		double latency = botpose.length > 6 ? botpose[6] / 1e3 : 0;
+		if (latency > kVisionMaxLatency)
+			return false;
+		double tagCount, tagDistance, tagArea;
+		if (botpose.length > 10) {
+			tagCount = botpose[7];
+			tagDistance = botpose[9];
+			tagArea = botpose[10];
+		} else {
+			tagCount = results.fiducialCount;
+			tagDistance = 0;
+			tagArea = 0;
+			for (int i = 0; i < results.fiducialCount; i++) {
+				tagDistance += results.fiducialDistance[i] / tagCount;
+				tagArea += results.fiducialArea[i] / tagCount;
+			}
+			if (tagCount == 0) { // no statistics; score it as a single tag as far as trusted
+				tagCount = 1;
+				tagDistance = kVisionMaxTagDistance;
+				tagArea = kVisionMinTagArea;
+			}
+		}
+		if (tagCount < 1 || tagArea < kVisionMinTagArea || tagDistance > kVisionMaxTagDistance)
+			return false;
+		double scale = (1 + tagDistance * tagDistance) / tagCount;
+		// per-tag data (7 values per tag after the first 11) is only sent by newer
+		// LimeLight firmware
+		int tags = botpose.length > 11 ? (botpose.length - 11) / 7 : 0;
+		if (tags > 0) {
+			double ambiguity = 0;
+			for (int i = 0; i < tags; i++)
+				ambiguity += botpose[11 + 7 * i + 6];
+			scale *= 1 + kVisionAmbiguityScale * ambiguity / tags;
+		}
+		// latency compensation leaves some of the motion during the latency
+		double motion = kVisionLatencyMotionFraction * speed * latency;
+		stdDevs[0] = Math.hypot(kVisionXYStdDev * scale, motion);
+		stdDevs[1] = kVisionYawStdDev * scale;
+		return true;
+	}
+
+	/**
+	 * Moves the specified sample pose from the time it was captured to the time
+	 * of the estimated pose by applying the motion odometry measured in between.
+	 * Does not allocate any objects.
+	 * 
+	 * @param x
+	 *                    the x-coordinate value of the sample
+	 * @param y
+	 *                    the y-coordinate value of the sample
+	 * @param yaw
+	 *                    the yaw of the sample in radians
+	 * @param captureTime
+	 *                    the time (FPGA time in seconds) at which the sample was
+	 *                    captured
+	 * @param compensated
+	 *                    the array to store the compensated x, y, and yaw (in
+	 *                    radians) in
+	 */
+	protected void compensateLatency(double x, double y, double yaw, double captureTime, double[] compensated) {
+		double estimateTime = m_estimateTimestamp;
+		if (m_odometryHistory == null || Double.isNaN(estimateTime)
+				|| !m_odometryHistory.sample(captureTime, m_capturePose)
+				|| !m_odometryHistory.sample(estimateTime, m_estimatePose)) {
+			compensated[0] = x;
+			compensated[1] = y;
+			compensated[2] = yaw;
+			return;
+		}
+		// the motion since the capture relative to the robot at the time of capture
+		double cos = Math.cos(m_capturePose[2]);
+		double sin = Math.sin(m_capturePose[2]);
+		double fieldDx = m_estimatePose[0] - m_capturePose[0];
+		double fieldDy = m_estimatePose[1] - m_capturePose[1];
+		double dx = cos * fieldDx + sin * fieldDy;
+		double dy = -sin * fieldDx + cos * fieldDy;
+		double dyaw = m_estimatePose[2] - m_capturePose[2];
+		// the same motion applied to the sample
+		cos = Math.cos(yaw);
+		sin = Math.sin(yaw);
+		compensated[0] = x + cos * dx - sin * dy;
+		compensated[1] = y + sin * dx + cos * dy;
+		compensated[2] = yaw + dyaw;
+	}
+
+	/**
+	 * Updates the speed of the robot from the motion odometry measured over the
+	 * last {@code kSpeedWindow} seconds.
+	 */
+	private void updateSpeed() {
+		if (Double.isNaN(m_estimateTimestamp)
+				|| !m_odometryHistory.sample(m_estimateTimestamp - kSpeedWindow, m_earlierPose)
+				|| !m_odometryHistory.sample(m_estimateTimestamp, m_estimatePose))
+			return;
+		m_speed = Math.hypot(m_estimatePose[0] - m_earlierPose[0], m_estimatePose[1] - m_earlierPose[1])
+				/ kSpeedWindow;
+		m_poseEstimator.setSpeed(m_speed);
+	}
+
+	/**
+	 * Is invoked by the robot loop for each botpose sample from a {@code Camera}.
+	 * Samples from all {@code Camera}s are fused into the same estimate.
+	 * 
+	 * @param sample a {@code BotPoseSample} from the "botpose" entry of a
+	 *               {@code Camera}
+	 * @return a {@code double} array representing the pose of the robot in terms
+	 *         of the x and y-coordinate values and the yaw value (the orientation
+	 *         relative to the positive x-axis) in degrees
 	 */
 	@Override
-	protected double[] changedBotPose(NetworkTableEvent event) {
+	protected double[] changedBotPose(BotPoseSample sample) {
 		boolean validSample = false;
 		try {
-			var v = event.valueData.value;
-			m_botpose = v.getDoubleArray();
-			if (m_botpose != null) {
-				var pose = new Pose2d(m_botpose[0], m_botpose[1], Rotation2d.fromDegrees(m_botpose[5]));
-				if (Math.abs(pose.getX()) > 0.1 || Math.abs(pose.getY()) > 0.1) // if botpose seems reasonable
-					if (m_poseEstimator.update(pose))
-						validSample = true;
+			m_botpose = copyBotPose(sample);
+			if (m_botpose != null
+					&& scoreVisionSample(m_botpose, latestResults(sample.camera), m_speed, m_visionStdDevs)) {
+				compensateLatency(m_botpose[0], m_botpose[1], Math.toRadians(m_botpose[5]),
+						captureTimestamp(sample.timestamp, m_botpose, m_cameras[sample.camera]), m_compensatedPose);
+				var pose = new Pose2d(m_compensatedPose[0], m_compensatedPose[1],
+						Rotation2d.fromRadians(m_compensatedPose[2]));
+				if (m_poseEstimator.update(pose, m_visionStdDevs[0], m_visionStdDevs[1]))
+					validSample = true;
 			}
 			return m_botpose;
 		} catch (Exception e) {
@@ -398,11 +1223,23 @@ public class PoseEstimationSubsystem extends LimeLightSubsystem {
 	 */
 	@Override
 	public void periodic() {
-		super.periodic();
-		m_poseEstimator.update(m_poseCalculators.values());
+		m_periodicTimer.start();
+		m_estimatorTimer.start();
+		// odometry first, then the vision samples queued since the last loop, so
+		// each sample is compensated to the time of the estimate it corrects
+		m_estimateTimestamp = Double.NaN;
+		m_poseEstimator.update(m_poseCalculatorArray);
+		if (m_odometryHistory != null) {
+			// unless the odometry is one of the pose suppliers (which stamps the
+			// estimate with the pose it reads)
+			if (Double.isNaN(m_estimateTimestamp))
+				m_estimateTimestamp = m_odometryHistory.getLatestTimestamp();
+			updateSpeed();
+		}
+		processBotPoseSamples();
+		m_estimatorTimer.stop();
 		try {
-			SmartDashboard.putNumber("pose estimation: confidence",
-					confidence());
+			m_confidenceSignal.set(confidence());
 			var pose = estimatedPose();
 			if (pose != null) // pose data that can be used by AdvantageScope
 				// SmartDashboard.putNumberArray("pose estimation: pose estimated",
@@ -422,14 +1259,17 @@ public class PoseEstimationSubsystem extends LimeLightSubsystem {
 			// distanceToClosestSpeaker());
 			if (DriverStation.getAlliance().isPresent()) {
 				Alliance alliance = DriverStation.getAlliance().get();
-				SmartDashboard.putNumber("pose estimation: rotation angle to " + alliance + " speaker (degrees)",
-						angleToSpeaker());
-				SmartDashboard.putNumber("pose estimation: distance to " + alliance + " speaker (meters)",
-						distanceToSpeaker());
+				Double angle = angleToSpeaker();
+				Double distance = distanceToSpeaker();
+				if (angle != null && distance != null) {
+					(alliance == Alliance.Blue ? m_blueAngleSignal : m_redAngleSignal).set(angle);
+					(alliance == Alliance.Blue ? m_blueDistanceSignal : m_redDistanceSignal).set(distance);
+				}
 			}
 		} catch (Exception e) {
 			// e.printStackTrace();
 		}
+		m_periodicTimer.stop();
 	}
 
 }
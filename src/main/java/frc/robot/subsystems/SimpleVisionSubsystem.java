@@ -4,8 +4,10 @@ import edu.wpi.first.networktables.DoubleSubscriber;
 import edu.wpi.first.networktables.NetworkTableInstance;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.LimelightHelper;
+import frc.robot.LoopTimer;
 
 public class SimpleVisionSubsystem extends SubsystemBase {
+	private final LoopTimer.Section m_periodicTimer = LoopTimer.section("SimpleVisionSubsystem.periodic");
 	private final DoubleSubscriber m_angleSubscription;
 	// private final DoubleSubscriber m_distanceSubscription;
 	private double m_angle;
@@ -24,11 +26,13 @@ public class SimpleVisionSubsystem extends SubsystemBase {
 
 	@Override
 	public void periodic() {
+		m_periodicTimer.start();
 		// get the data from limelight
 		m_angle = m_angleSubscription.get();
 		// m_distance = m_distanceSubscription.get() - 0.5;
 		// SmartDashboard.putNumber("limelight angle to turn", m_angle);
 		// SmartDashboard.putNumber("limelight distance from tag", m_angle);
+		m_periodicTimer.stop();
 	}
 
 	/**
@@ -0,0 +1,129 @@
+package frc.robot.subsystems;
+
+import static frc.robot.Constants.DriveConstants.*;
+import static frc.robot.Constants.ShotConstants.kReleaseLatency;
+import static frc.robot.Constants.WarmUpConstants.*;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.controller.ProfiledPIDController;
+import edu.wpi.first.math.trajectory.TrapezoidProfile;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.FieldGeometry;
+import frc.robot.FieldGeometry.Kind;
+import frc.robot.ShotSolver;
+import frc.robot.SwerveKinematics;
+import frc.robot.Targeter;
+import frc.robot.Telemetry;
+
+/**
+ * Runs the math of {@code DriveCommand.execute},
+ * {@code DriveWhileAimingCommand.execute} (the {@code ShotSolver}), and the
+ * {@code Targeter} on synthetic poses while the robot is disabled, so that the
+ * JIT has compiled it by the time autonomous starts. Nothing is sent to the hardware: the
+ * controllers and kinematics used here are private copies configured like the
+ * ones in the drive commands and the {@code DriveSubsystem}. The work is spread
+ * over the disabled loops ({@code kWarmUpIterationsPerLoop} at a time) and
+ * stops after {@code kWarmUpIterations}, which is above the invocation counts
+ * at which HotSpot compiles a method with its optimizing compiler.
+ */
+public class WarmUpSubsystem extends SubsystemBase {
+	private final Targeter m_targeter;
+	private final ShotSolver m_shotSolver;
+	private final SwerveKinematics m_kinematics = new SwerveKinematics(
+			kFrontLeftLocation, kFrontRightLocation, kBackLeftLocation, kBackRightLocation);
+	private final ProfiledPIDController m_controllerX = new ProfiledPIDController(kDriveP, kDriveI, kDriveD,
+			new TrapezoidProfile.Constraints(kDriveMaxVelocity, kDriveMaxAcceleration));
+	private final ProfiledPIDController m_controllerYaw = new ProfiledPIDController(kTurnP, kTurnI, kTurnD,
+			new TrapezoidProfile.Constraints(kTurnMaxVelocity, kTurnMaxAcceleration));
+	private final double[] m_robotRelativeSpeeds = new double[2];
+	private final double[] m_speeds = new double[4];
+	private final double[] m_angles = new double[4];
+	private final double[] m_currentAngles = new double[4];
+	private final Telemetry.NumberSignal m_progressSignal = Telemetry.number("Warm-up Progress", 0.01, 0.5);
+	private int m_iterations = 0;
+	/**
+	 * Consumes the results so that the JIT cannot drop the calculations (and
+	 * tells whether any of them was not finite).
+	 */
+	private double m_sink = 0;
+
+	/**
+	 * Constructs a {@code WarmUpSubsystem}.
+	 *
+	 * @param targeter the {@code Targeter} used by the aiming commands
+	 */
+	public WarmUpSubsystem(Targeter targeter) {
+		m_targeter = targeter;
+		m_shotSolver = new ShotSolver(targeter, kReleaseLatency);
+		m_controllerYaw.enableContinuousInput(-180, 180);
+		SmartDashboard.putBoolean("Warm-up Complete", false);
+	}
+
+	/**
+	 * Determines whether or not the warm-up is complete.
+	 *
+	 * @return {@code true} if the hot paths have been run
+	 *         {@code kWarmUpIterations} times; {@code false} otherwise
+	 */
+	public boolean isComplete() {
+		return m_iterations >= kWarmUpIterations;
+	}
+
+	@Override
+	public void periodic() {
+		if (isComplete() || !DriverStation.isDisabled())
+			return;
+		long start = System.nanoTime();
+		for (int i = 0; i < kWarmUpIterationsPerLoop && !isComplete(); i++)
+			exercise(m_iterations++);
+		m_progressSignal.set((double) m_iterations / kWarmUpIterations);
+		if (isComplete()) {
+			SmartDashboard.putBoolean("Warm-up Complete", true);
+			DataLogManager.log(String.format("Warm-up complete (last batch %.2f ms%s)",
+					(System.nanoTime() - start) / 1e6, Double.isFinite(m_sink) ? "" : ", non-finite results"));
+		}
+	}
+
+	/**
+	 * Runs the hot paths once on a synthetic pose.
+	 *
+	 * @param i the number of the iteration
+	 */
+	private void exercise(int i) {
+		// a synthetic robot pose sweeping over the field
+		double t = i * 0.01;
+		double x = 6 * Math.sin(t);
+		double y = 3 * Math.cos(1.3 * t);
+		double headingRadians = MathUtil.angleModulus(2 * t);
+		double headingDegrees = Math.toDegrees(headingRadians);
+		if (i % 100 == 0) { // a new target, as in DriveCommand.initialize
+			m_controllerX.reset(x);
+			m_controllerX.setGoal(-x);
+			m_controllerYaw.reset(headingDegrees);
+			m_controllerYaw.setGoal(-headingDegrees);
+		}
+
+		// DriveCommand.execute and DriveSubsystem.setModuleStates
+		double speedX = m_controllerX.calculate(x);
+		double speedYaw = -m_controllerYaw.calculate(headingDegrees);
+		SwerveKinematics.toRobotRelative(speedX, y, headingRadians, m_robotRelativeSpeeds);
+		m_kinematics.toModuleStates(m_robotRelativeSpeeds[0], m_robotRelativeSpeeds[1], speedYaw, m_speeds,
+				m_angles);
+		SwerveKinematics.desaturate(m_speeds, kMaxSpeed);
+		SwerveKinematics.optimize(m_speeds, m_angles, m_currentAngles);
+		m_currentAngles[i & 3] = m_angles[i & 3];
+
+		// DriveWhileAimingCommand.execute
+		int speaker = FieldGeometry.nearest(Kind.SPEAKER, x, y);
+		var target = FieldGeometry.translation(speaker);
+		double vx = 3 * Math.cos(t);
+		double vy = -2 * Math.sin(1.3 * t);
+		var solution = m_shotSolver.solve(x, y, vx, vy, target.getX(), target.getY());
+		double angle = MathUtil.angleModulus(m_shotSolver.getHeadingRadians() - headingRadians);
+		m_sink += m_speeds[0] + m_angles[3] + angle + FieldGeometry.bearing(speaker, x, y, headingRadians)
+				+ solution.aimerHeight + solution.topRPM + m_targeter.getAngle(x) + m_targeter.getRPM(y);
+	}
+}
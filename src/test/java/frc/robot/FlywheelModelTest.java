@@ -0,0 +1,74 @@
+package frc.robot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the spin-up times {@code FlywheelModel} predicts against a numerical
+ * integration of the same motor model.
+ */
+class FlywheelModelTest {
+	private static final double kS = 0.1;
+	private static final double kV = 0.001;
+	/** A time constant of 0.5 s. */
+	private static final double kA = 0.0005;
+	private static final double kDt = 1e-5;
+
+	/**
+	 * Integrates the motor model under a constant voltage until the speed
+	 * reaches the specified one.
+	 *
+	 * @param friction   the voltage needed to overcome static friction (volts)
+	 * @param startRPM   the initial speed in RPM
+	 * @param reachedRPM the speed to reach in RPM
+	 * @param voltage    the voltage applied (volts)
+	 * @return the time in seconds
+	 */
+	private static double simulate(double friction, double startRPM, double reachedRPM, double voltage) {
+		double rpm = startRPM;
+		double direction = Math.signum(reachedRPM - startRPM);
+		double time = 0;
+		while (direction * (reachedRPM - rpm) > 0) {
+			rpm += (voltage - Math.signum(rpm) * friction - kV * rpm) / kA * kDt;
+			time += kDt;
+		}
+		return time;
+	}
+
+	@Test
+	void settlesWhereTheVoltageBalancesTheModel() {
+		var model = new FlywheelModel(kS, kV, kA);
+		assertEquals(11_900, model.steadyStateSpeed(12), 1e-6);
+		assertEquals(0, model.steadyStateSpeed(0.05), 1e-6);
+	}
+
+	@Test
+	void takesNoTimeWithinTheTolerance() {
+		var model = new FlywheelModel(kS, kV, kA);
+		assertEquals(0, model.timeToSpeed(7960, 8000, 50, 12), 0);
+		assertEquals(0, model.timeToSpeed(8040, 8000, 50, 12), 0);
+	}
+
+	@Test
+	void matchesTheModelWhenSpinningUp() {
+		var model = new FlywheelModel(kS, kV, kA);
+		assertEquals(simulate(kS, 0, 7950, 12), model.timeToSpeed(0, 8000, 50, 12), 1e-3);
+		assertEquals(simulate(kS, 3000, 7950, 12), model.timeToSpeed(3000, 8000, 50, 12), 1e-3);
+		// a lower battery voltage takes longer
+		assertEquals(simulate(kS, 0, 7950, 10), model.timeToSpeed(0, 8000, 50, 10), 1e-3);
+	}
+
+	@Test
+	void matchesTheModelWhenSlowingDown() {
+		var model = new FlywheelModel(0, kV, kA);
+		assertEquals(simulate(0, 8000, 2050, -12), model.timeToSpeed(8000, 2000, 50, 12), 1e-3);
+	}
+
+	@Test
+	void cannotReachASpeedBeyondTheSteadyState() {
+		var model = new FlywheelModel(kS, kV, kA);
+		assertEquals(Double.POSITIVE_INFINITY, model.timeToSpeed(0, 12_000, 50, 12), 0);
+		assertEquals(Double.POSITIVE_INFINITY, model.timeToSpeed(0, 8000, 50, 8), 0);
+	}
+}
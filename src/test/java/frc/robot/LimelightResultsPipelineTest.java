@@ -0,0 +1,94 @@
+package frc.robot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonFactory;
+
+/**
+ * Checks that {@code LimelightResultsPipeline.parse} picks the fields the
+ * robot uses out of a Limelight JSON dump and skips the rest.
+ */
+class LimelightResultsPipelineTest {
+	private static final double kEpsilon = 1e-9;
+
+	private final JsonFactory m_factory = new JsonFactory();
+	private final LimelightResultsPipeline.Snapshot m_snapshot = new LimelightResultsPipeline.Snapshot();
+	private final double[] m_targetPose = new double[6];
+
+	private boolean parse(String json) throws IOException {
+		try (var parser = m_factory.createParser(json)) {
+			return LimelightResultsPipeline.parse(parser, m_snapshot, m_targetPose);
+		}
+	}
+
+	@Test
+	void parsesResults() throws IOException {
+		assertTrue(parse("{\"Results\":{\"pID\":1,\"tl\":11.5,\"cl\":20.25,\"ts\":1234.5,\"v\":1,"
+				+ "\"botpose\":[1,2,0,0,0,90],\"botpose_wpiblue\":[9.27,6.1,0,0,0,90,42],"
+				+ "\"botpose_wpired\":[7.27,2,0,0,0,-90],\"t6c_rs\":[0.3,0,0.2,0,25,0],"
+				+ "\"Classifier\":[{\"class\":\"note\"}],\"Fiducial\":["
+				+ "{\"fID\":7,\"tx\":-3.5,\"ty\":1.25,\"ta\":0.04,\"t6t_cs\":[0,0,2],\"pts\":[[1,2],[3,4]]},"
+				+ "{\"fID\":8,\"tx\":4,\"ty\":1,\"ta\":0.02,\"t6t_cs\":[3,0,4]}]}}"));
+		assertTrue(m_snapshot.valid);
+		assertEquals(1, m_snapshot.pipelineID, kEpsilon);
+		assertEquals(11.5, m_snapshot.latencyPipeline, kEpsilon);
+		assertEquals(20.25, m_snapshot.latencyCapture, kEpsilon);
+		assertEquals(1234.5, m_snapshot.timestampLimelightPublish, kEpsilon);
+		assertEquals(90, m_snapshot.botpose[5], kEpsilon);
+		// the numbers that do not fit are dropped
+		assertEquals(9.27, m_snapshot.botposeWpiBlue[0], kEpsilon);
+		assertEquals(90, m_snapshot.botposeWpiBlue[5], kEpsilon);
+		assertEquals(-90, m_snapshot.botposeWpiRed[5], kEpsilon);
+		assertEquals(25, m_snapshot.cameraPoseRobotSpace[4], kEpsilon);
+		assertEquals(2, m_snapshot.fiducialCount);
+		assertEquals(7, m_snapshot.fiducialIds[0]);
+		assertEquals(-3.5, m_snapshot.fiducialTx[0], kEpsilon);
+		assertEquals(1.25, m_snapshot.fiducialTy[0], kEpsilon);
+		assertEquals(0.04, m_snapshot.fiducialArea[0], kEpsilon);
+		assertEquals(2, m_snapshot.fiducialDistance[0], kEpsilon);
+		assertEquals(8, m_snapshot.fiducialIds[1]);
+		assertEquals(5, m_snapshot.fiducialDistance[1], kEpsilon);
+	}
+
+	@Test
+	void clearsFieldsMissingFromTheDump() throws IOException {
+		parse("{\"Results\":{\"v\":1,\"pID\":2,\"botpose\":[1,2,3,4,5,6],\"Fiducial\":[{\"fID\":3}]}}");
+		assertTrue(parse("{\"Results\":{\"v\":0}}"));
+		assertFalse(m_snapshot.valid);
+		assertEquals(0, m_snapshot.pipelineID, kEpsilon);
+		assertEquals(0, m_snapshot.botpose[0], kEpsilon);
+		assertEquals(0, m_snapshot.fiducialCount);
+	}
+
+	@Test
+	void skipsUnknownFieldsOutsideTheResults() throws IOException {
+		assertTrue(parse("{\"Other\":{\"Results\":{\"v\":1}},\"list\":[1,{\"a\":[]}],\"Results\":{\"tl\":5}}"));
+		assertFalse(m_snapshot.valid);
+		assertEquals(5, m_snapshot.latencyPipeline, kEpsilon);
+	}
+
+	@Test
+	void keepsAtMostTheMaximumNumberOfFiducials() throws IOException {
+		var json = new StringBuilder("{\"Results\":{\"Fiducial\":[");
+		for (int i = 0; i < LimelightResultsPipeline.kMaxFiducials + 2; i++)
+			json.append(i == 0 ? "" : ",").append("{\"fID\":").append(i).append(",\"t6t_cs\":[0,0,1]}");
+		json.append("],\"v\":1}}");
+		assertTrue(parse(json.toString()));
+		assertEquals(LimelightResultsPipeline.kMaxFiducials, m_snapshot.fiducialCount);
+		assertEquals(LimelightResultsPipeline.kMaxFiducials - 1,
+				m_snapshot.fiducialIds[LimelightResultsPipeline.kMaxFiducials - 1]);
+		// the fields after the fiducials are still read
+		assertTrue(m_snapshot.valid);
+	}
+
+	@Test
+	void rejectsADumpThatIsNotAnObject() throws IOException {
+		assertFalse(parse("[]"));
+	}
+}
@@ -0,0 +1,86 @@
+package frc.robot;
+
+import static frc.robot.Constants.ShotConstants.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that {@code ShotSolver} aims a moving robot at a virtual target
+ * consistent with the time of flight it reports.
+ */
+class ShotSolverTest {
+	private static final double kEpsilon = 1e-9;
+	private static final double kRPM = 8000;
+	private static final double kNoteSpeed = kNoteSpeedPerRPM * kRPM;
+	private static final double kLatency = 0.2;
+
+	/** A {@code Targeter} with the flywheels at {@code kRPM} at every distance. */
+	private static class ConstantTargeter implements Targeter {
+		public double getAngle(double distanceMeters) {
+			return distanceMeters / 10;
+		}
+
+		public double getRPM(double distanceMeters) {
+			return kRPM;
+		}
+
+		public double calcAimerHeightFromDistance(double distanceMeters) {
+			return getAngle(distanceMeters);
+		}
+	}
+
+	private final ShotSolver m_solver = new ShotSolver(new ConstantTargeter(), kLatency);
+
+	/**
+	 * Asserts that the virtual target of the last solution is the target moved
+	 * against the velocity by the reported time of flight, and that the
+	 * distance, heading, and solution are those of that virtual target.
+	 */
+	private void assertConsistent(double x, double y, double vx, double vy, double targetX, double targetY) {
+		double timeOfFlight = m_solver.getTimeOfFlight();
+		assertEquals(targetX - vx * timeOfFlight, m_solver.getVirtualTargetX(), kEpsilon);
+		assertEquals(targetY - vy * timeOfFlight, m_solver.getVirtualTargetY(), kEpsilon);
+		double dx = m_solver.getVirtualTargetX() - (x + vx * kLatency);
+		double dy = m_solver.getVirtualTargetY() - (y + vy * kLatency);
+		assertEquals(Math.hypot(dx, dy), m_solver.getDistance(), kEpsilon);
+		assertEquals(Math.atan2(dy, dx), m_solver.getHeadingRadians(), kEpsilon);
+		assertEquals(m_solver.getDistance() / 10, m_solver.getSolution().aimerHeight, kEpsilon);
+	}
+
+	@Test
+	void aimsStraightAtTheTargetWhileStationary() {
+		var solution = m_solver.solve(1, 2, 0, 0, 5, 5);
+		assertTrue(m_solver.isConverged());
+		assertEquals(2, m_solver.getIterations());
+		assertEquals(5, m_solver.getDistance(), kEpsilon);
+		assertEquals(5 / kNoteSpeed, m_solver.getTimeOfFlight(), kEpsilon);
+		assertEquals(0.5, solution.aimerHeight, kEpsilon);
+		assertEquals(kRPM, solution.topRPM, kEpsilon);
+		assertEquals(kRPM, solution.bottomRPM, kEpsilon);
+		assertConsistent(1, 2, 0, 0, 5, 5);
+	}
+
+	@Test
+	void leadsTheTargetWhileMoving() {
+		m_solver.solve(0, 0, 1.5, -2, 6, 1);
+		assertTrue(m_solver.isConverged());
+		assertTrue(m_solver.getIterations() <= kMaxIterations);
+		assertConsistent(0, 0, 1.5, -2, 6, 1);
+		// the time of flight matches the distance it was solved for
+		assertEquals(m_solver.getDistance() / kNoteSpeed, m_solver.getTimeOfFlight(), kTimeOfFlightTolerance);
+		// moving in -y shifts the virtual target toward +y
+		assertTrue(m_solver.getVirtualTargetY() > 1);
+	}
+
+	@Test
+	void reportsTheTimeOfFlightUsedWhenNotConverging() {
+		// faster than the note, so the time of flight does not converge
+		m_solver.solve(0, 0, -4 * kNoteSpeed, 0, 10, 0);
+		assertFalse(m_solver.isConverged());
+		assertEquals(kMaxIterations, m_solver.getIterations());
+		assertConsistent(0, 0, -4 * kNoteSpeed, 0, 10, 0);
+	}
+}
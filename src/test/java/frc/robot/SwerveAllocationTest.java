@@ -0,0 +1,106 @@
+package frc.robot;
+
+import static frc.robot.Constants.DriveConstants.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.hal.HAL;
+import frc.robot.subsystems.DriveSubsystem;
+
+/**
+ * Checks that the drive loop does not allocate once warm: the per-loop drive
+ * math alone (the field-relative conversion, inverse kinematics,
+ * desaturation, and optimization {@code DriveSubsystem.calculateModuleStates}
+ * and {@code applyModuleStates} run, and the odometry update and pose history
+ * the odometry thread runs), and the whole {@code DriveSubsystem} loop against
+ * the simulated hardware.
+ */
+class SwerveAllocationTest {
+	/** The cycles run before measuring so that the JIT compiles the path. */
+	private static final int kWarmUpCycles = 50_000;
+	private static final int kMeasuredCycles = 10_000;
+	/**
+	 * The bytes the vendor libraries may allocate per loop of the
+	 * {@code DriveSubsystem}: the Phoenix 6 {@code StatusSignal} boxes its value
+	 * on every refresh (a 16-byte {@code Double} for each of the 4 CANcoders).
+	 */
+	private static final long kMaxVendorBytesPerCycle = 4 * 16;
+
+	private final SwerveKinematics m_kinematics = new SwerveKinematics(
+			kFrontLeftLocation, kFrontRightLocation, kBackLeftLocation, kBackRightLocation);
+	private final double[] m_distances = new double[4];
+	private final double[] m_angles = new double[4];
+	private final SwerveOdometry m_odometry = new SwerveOdometry(m_kinematics, 0, m_distances, 0, 0, 0);
+	private final PoseHistory m_poseHistory = new PoseHistory(kOdometryHistoryLength);
+	private final double[] m_robotRelativeSpeeds = new double[2];
+	private final double[] m_targetSpeeds = new double[4];
+	private final double[] m_targetAngles = new double[4];
+	private final double[] m_pose = new double[3];
+	private final double[] m_pastPose = new double[3];
+	private double m_time;
+	private double m_heading;
+
+	/**
+	 * Runs one loop of the drive: calculates and optimizes the module states
+	 * for the joystick input, moves the modules to them, and updates the
+	 * odometry.
+	 */
+	private void cycle() {
+		m_time += kOdometryPeriod;
+		m_heading += 0.001;
+		SwerveKinematics.toRobotRelative(2, 1, m_heading, m_robotRelativeSpeeds);
+		m_kinematics.toModuleStates(m_robotRelativeSpeeds[0], m_robotRelativeSpeeds[1], 0.5, m_targetSpeeds,
+				m_targetAngles);
+		SwerveKinematics.desaturate(m_targetSpeeds, kMaxSpeed);
+		SwerveKinematics.optimize(m_targetSpeeds, m_targetAngles, m_angles);
+		for (int i = 0; i < m_angles.length; i++) {
+			m_angles[i] = m_targetAngles[i];
+			m_distances[i] += m_targetSpeeds[i] * kOdometryPeriod;
+		}
+		m_odometry.update(m_heading, m_distances, m_angles);
+		m_poseHistory.add(m_time, m_odometry.getX(), m_odometry.getY(), m_odometry.getHeadingRadians());
+		m_poseHistory.getLatest(m_pose);
+		m_poseHistory.sample(m_time - kVelocityWindow, m_pastPose);
+	}
+
+	/**
+	 * Runs the specified loop {@code kWarmUpCycles} times and then measures
+	 * what it allocates over {@code kMeasuredCycles} more.
+	 *
+	 * @param loop the loop
+	 * @return the bytes allocated by the measured cycles
+	 */
+	private static long allocatedBytes(Runnable loop) {
+		var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+		long thread = Thread.currentThread().getId();
+		for (int i = 0; i < kWarmUpCycles; i++)
+			loop.run();
+		long before = threads.getThreadAllocatedBytes(thread);
+		for (int i = 0; i < kMeasuredCycles; i++)
+			loop.run();
+		return threads.getThreadAllocatedBytes(thread) - before;
+	}
+
+	@Test
+	void driveMathDoesNotAllocate() {
+		assertEquals(0, allocatedBytes(this::cycle), "bytes allocated");
+	}
+
+	@Test
+	void driveSubsystemLoopDoesNotAllocate() {
+		assumeTrue(HAL.initialize(500, 0));
+		var drive = new DriveSubsystem();
+		long allocated = allocatedBytes(() -> {
+			drive.setModuleStates(0.5, 0.25, 0.1, true);
+			drive.periodic();
+		});
+		assertTrue(allocated <= kMaxVendorBytesPerCycle * kMeasuredCycles,
+				"allocated " + (double) allocated / kMeasuredCycles + " bytes per loop");
+	}
+}
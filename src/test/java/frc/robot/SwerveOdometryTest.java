@@ -0,0 +1,78 @@
+package frc.robot;
+
+import static frc.robot.Constants.DriveConstants.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.math.MathUtil;
+
+/**
+ * Checks the pose {@code SwerveOdometry} integrates from the module
+ * distances and the gyro, including when the gyro jumps between -pi and pi.
+ */
+class SwerveOdometryTest {
+	private static final double kEpsilon = 1e-9;
+
+	private final SwerveKinematics m_kinematics = new SwerveKinematics(
+			kFrontLeftLocation, kFrontRightLocation, kBackLeftLocation, kBackRightLocation);
+
+	/**
+	 * Drives every module forward by 0.01 m per cycle while the gyro turns by
+	 * 0.01 rad per cycle, starting at the specified gyro angle, and returns the
+	 * resulting pose.
+	 *
+	 * @param startRadians the initial gyro angle in radians
+	 * @param wrap         whether or not the gyro angle is wrapped into
+	 *                     [-pi, pi) as the navX reports it
+	 * @return the pose [x, y, heading in radians]
+	 */
+	private double[] drive(double startRadians, boolean wrap) {
+		double[] distances = new double[4];
+		double[] angles = new double[4];
+		var odometry = new SwerveOdometry(m_kinematics, startRadians, distances, 0, 0, 0);
+		double gyro = startRadians;
+		for (int i = 0; i < 20; i++) {
+			gyro += 0.01;
+			for (int j = 0; j < distances.length; j++)
+				distances[j] += 0.01;
+			odometry.update(wrap ? MathUtil.angleModulus(gyro) : gyro, distances, angles);
+		}
+		return new double[] { odometry.getX(), odometry.getY(), odometry.getHeadingRadians() };
+	}
+
+	@Test
+	void drivesStraightWithoutTurning() {
+		double[] distances = new double[4];
+		double[] angles = { 90, 90, 90, 90 };
+		var odometry = new SwerveOdometry(m_kinematics, 0, distances, 1, 2, Math.PI / 2);
+		for (int j = 0; j < distances.length; j++)
+			distances[j] = 0.5;
+		odometry.update(0, distances, angles);
+		// the modules point to the left of the robot, which faces +y, so it moves
+		// toward -x
+		assertEquals(0.5, odometry.getX(), kEpsilon);
+		assertEquals(2, odometry.getY(), kEpsilon);
+		assertEquals(Math.PI / 2, odometry.getHeadingRadians(), kEpsilon);
+	}
+
+	@Test
+	void crossingTheGyroSeamKeepsTheTranslation() {
+		// the gyro crosses from pi to -pi halfway through
+		double[] wrapped = drive(Math.PI - 0.1, true);
+		double[] unwrapped = drive(Math.PI - 0.1, false);
+		assertEquals(unwrapped[0], wrapped[0], kEpsilon);
+		assertEquals(unwrapped[1], wrapped[1], kEpsilon);
+		assertEquals(Math.cos(unwrapped[2]), Math.cos(wrapped[2]), kEpsilon);
+		assertEquals(Math.sin(unwrapped[2]), Math.sin(wrapped[2]), kEpsilon);
+	}
+
+	@Test
+	void crossingTheGyroSeamMatchesTurningElsewhere() {
+		// the result only depends on the change in gyro angle, not where it starts
+		double[] seam = drive(Math.PI - 0.1, true);
+		double[] zero = drive(0, true);
+		assertEquals(zero[0], seam[0], kEpsilon);
+		assertEquals(zero[1], seam[1], kEpsilon);
+	}
+}
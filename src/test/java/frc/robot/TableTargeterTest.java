@@ -0,0 +1,61 @@
+package frc.robot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that {@code Targeter.TableTargeter} reproduces its calibration
+ * points, interpolates between them, and clamps distances outside the range.
+ */
+class TableTargeterTest {
+	private static final double kEpsilon = 1e-9;
+
+	/** Two calibration points inside a 0.5-4 m range sampled every 0.5 m. */
+	private final Targeter.TableTargeter m_targeter = new Targeter.TableTargeter(
+			new double[][] { { 1, 0.5, 4000, 3000 }, { 3, 0.9, 8000, 7000 } }, 0.5, 4, 0.5);
+	private final Targeter.Solution m_solution = new Targeter.Solution();
+
+	private void assertSolution(double height, double topRPM, double bottomRPM, double distance) {
+		assertSame(m_solution, m_targeter.solve(distance, m_solution));
+		assertEquals(height, m_solution.aimerHeight, kEpsilon);
+		assertEquals(topRPM, m_solution.topRPM, kEpsilon);
+		assertEquals(bottomRPM, m_solution.bottomRPM, kEpsilon);
+		assertEquals(height, m_targeter.getAngle(distance), kEpsilon);
+		assertEquals(topRPM, m_targeter.getRPM(distance), kEpsilon);
+	}
+
+	@Test
+	void reproducesTheCalibrationPoints() {
+		assertSolution(0.5, 4000, 3000, 1);
+		assertSolution(0.9, 8000, 7000, 3);
+	}
+
+	@Test
+	void interpolatesBetweenRows() {
+		// on a row resampled between the calibration points
+		assertSolution(0.7, 6000, 5000, 2);
+		// between two rows
+		assertSolution(0.55, 4500, 3500, 1.25);
+		assertSolution(0.86, 7600, 6600, 2.8);
+	}
+
+	@Test
+	void holdsTheEndPointsOutsideTheCalibration() {
+		// the rows of the range beyond the calibration points repeat them
+		assertSolution(0.5, 4000, 3000, 0.75);
+		assertSolution(0.9, 8000, 7000, 3.5);
+	}
+
+	@Test
+	void clampsDistancesOutsideTheRange() {
+		assertSolution(0.5, 4000, 3000, 0.5);
+		assertSolution(0.5, 4000, 3000, 0);
+		assertSolution(0.5, 4000, 3000, -2);
+		assertSolution(0.5, 4000, 3000, Double.NaN);
+		assertSolution(0.9, 8000, 7000, 4);
+		assertSolution(0.9, 8000, 7000, 12);
+		assertSolution(0.9, 8000, 7000, Double.POSITIVE_INFINITY);
+	}
+}